@@ -0,0 +1,31 @@
+-- ============================================
+-- Token de dispositivo GPS por bus
+-- PostgreSQL Version (11+ por sha256())
+-- ============================================
+-- Con gps.dispositivos.autenticacion.habilitada=true las peticiones
+-- POST /api/gps/** deben enviar la cabecera X-Device-Token. El backend
+-- solo guarda el SHA-256 (hex) del token en buses.token_dispositivo_hash;
+-- el token en claro se configura en el equipo y no se almacena.
+--
+-- Los cambios se aplican en memoria en el siguiente refresco
+-- (gps.dispositivos.refresco-ms).
+
+-- ============================================
+-- Columna (ddl-auto=update también la crea)
+-- ============================================
+ALTER TABLE buses ADD COLUMN IF NOT EXISTS token_dispositivo_hash VARCHAR(64);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_buses_token_dispositivo_hash
+    ON buses (token_dispositivo_hash);
+
+-- ============================================
+-- Asignar o rotar el token de un bus
+-- ============================================
+-- Generar un token aleatorio, por ejemplo: openssl rand -hex 32
+UPDATE buses
+SET token_dispositivo_hash = encode(sha256(convert_to('<token>', 'UTF8')), 'hex')
+WHERE id_bus = <id_bus>;
+
+-- ============================================
+-- Revocar el token de un bus
+-- ============================================
+-- UPDATE buses SET token_dispositivo_hash = NULL WHERE id_bus = <id_bus>;
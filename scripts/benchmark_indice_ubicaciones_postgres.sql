@@ -0,0 +1,91 @@
+-- ============================================
+-- Benchmark de idx_gps_viaje_fecha sobre una copia sintética
+-- de ubicaciones_tiempo_real con varios millones de filas
+-- PostgreSQL Version
+-- ============================================
+-- Uso: psql -d bd_servicios -f scripts/benchmark_indice_ubicaciones_postgres.sql
+--
+-- Trabaja en el esquema bench_gps (se elimina al final) y no toca las
+-- tablas reales. Genera 5.000 viajes x 1.000 fijaciones = 5.000.000 filas,
+-- intercaladas en el tiempo como llegan en producción.
+-- Comparar "Execution Time" y "Buffers" de cada EXPLAIN entre las fases.
+
+\timing on
+
+DROP SCHEMA IF EXISTS bench_gps CASCADE;
+CREATE SCHEMA bench_gps;
+
+CREATE TABLE bench_gps.ubicaciones_tiempo_real (
+    id_tracking     BIGINT PRIMARY KEY,
+    id_viaje        INTEGER NOT NULL,
+    latitud         NUMERIC(10, 8) NOT NULL,
+    longitud        NUMERIC(11, 8) NOT NULL,
+    velocidad_kmh   NUMERIC(5, 2),
+    rumbo           NUMERIC(5, 2),
+    fecha_registro  TIMESTAMPTZ NOT NULL
+);
+
+-- ============================================
+-- Datos: una fijación cada 5 s por viaje, viajes intercalados
+-- ============================================
+
+INSERT INTO bench_gps.ubicaciones_tiempo_real
+SELECT
+    n,
+    (n % 5000) + 1,
+    -12.04 + random() / 10,
+    -77.03 + random() / 10,
+    round((random() * 60)::numeric, 2),
+    round((random() * 359)::numeric, 2),
+    TIMESTAMPTZ '2025-01-01 06:00:00-05' + ((n / 5000) * INTERVAL '5 seconds')
+FROM generate_series(1, 5000000) AS n;
+
+-- ============================================
+-- Fase 1: índices de una sola columna (esquema anterior)
+-- ============================================
+
+CREATE INDEX idx_gps_viaje ON bench_gps.ubicaciones_tiempo_real (id_viaje);
+CREATE INDEX idx_gps_fecha ON bench_gps.ubicaciones_tiempo_real (fecha_registro);
+VACUUM (ANALYZE) bench_gps.ubicaciones_tiempo_real;
+
+-- Última ubicación de un viaje
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT latitud, longitud, rumbo, velocidad_kmh, fecha_registro
+FROM bench_gps.ubicaciones_tiempo_real WHERE id_viaje = 2500
+ORDER BY fecha_registro DESC, id_tracking DESC LIMIT 1;
+
+-- Página de historial (GET /api/trips/{id}/track)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id_tracking, latitud, longitud, velocidad_kmh, rumbo, fecha_registro
+FROM bench_gps.ubicaciones_tiempo_real
+WHERE id_viaje = 2500
+  AND fecha_registro >= TIMESTAMPTZ '2025-01-01 06:30:00-05'
+ORDER BY fecha_registro, id_tracking LIMIT 500;
+
+-- ============================================
+-- Fase 2: índice compuesto cubriente
+-- ============================================
+
+DROP INDEX bench_gps.idx_gps_viaje;
+CREATE INDEX idx_gps_viaje_fecha ON bench_gps.ubicaciones_tiempo_real
+    (id_viaje, fecha_registro DESC, id_tracking DESC)
+    INCLUDE (latitud, longitud, velocidad_kmh, rumbo);
+VACUUM (ANALYZE) bench_gps.ubicaciones_tiempo_real;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT latitud, longitud, rumbo, velocidad_kmh, fecha_registro
+FROM bench_gps.ubicaciones_tiempo_real WHERE id_viaje = 2500
+ORDER BY fecha_registro DESC, id_tracking DESC LIMIT 1;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id_tracking, latitud, longitud, velocidad_kmh, rumbo, fecha_registro
+FROM bench_gps.ubicaciones_tiempo_real
+WHERE id_viaje = 2500
+  AND fecha_registro >= TIMESTAMPTZ '2025-01-01 06:30:00-05'
+ORDER BY fecha_registro, id_tracking LIMIT 500;
+
+-- ============================================
+-- Limpieza
+-- ============================================
+
+DROP SCHEMA bench_gps CASCADE;
@@ -0,0 +1,49 @@
+-- ============================================
+-- Índice compuesto (id_viaje, fecha_registro DESC) para
+-- ubicaciones_tiempo_real
+-- PostgreSQL Version (11+ por INCLUDE)
+-- ============================================
+-- Sustituye a idx_gps_viaje. Con el índice de una sola columna la
+-- "última ubicación del viaje" y las ventanas de historial tenían que
+-- leer todas las filas del viaje y ordenarlas; con este índice se
+-- recorren en orden y se detienen en el LIMIT.
+--
+-- Las columnas de posición van en INCLUDE (no forman parte de la clave)
+-- para que esas consultas sean index-only scans sin visitar el heap.
+--
+-- CREATE/DROP INDEX CONCURRENTLY no puede ejecutarse dentro de una
+-- transacción: ejecutar cada sentencia por separado (psql en autocommit).
+
+-- ============================================
+-- Crear índice cubriente sin bloquear la ingesta
+-- ============================================
+
+-- Si hibernate (ddl-auto=update) ya creó idx_gps_viaje_fecha sin INCLUDE,
+-- se elimina para recrearlo cubriente
+DROP INDEX CONCURRENTLY IF EXISTS idx_gps_viaje_fecha;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_gps_viaje_fecha
+    ON ubicaciones_tiempo_real (id_viaje, fecha_registro DESC, id_tracking DESC)
+    INCLUDE (latitud, longitud, velocidad_kmh, rumbo);
+
+-- ============================================
+-- Eliminar el índice de una sola columna (lo cubre el prefijo del compuesto)
+-- ============================================
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_gps_viaje;
+
+-- El index-only scan necesita el visibility map al día
+VACUUM (ANALYZE) ubicaciones_tiempo_real;
+
+-- ============================================
+-- Verificación
+-- ============================================
+
+-- SELECT indexname, indexdef FROM pg_indexes
+--     WHERE tablename = 'ubicaciones_tiempo_real';
+--
+-- El plan debe mostrar "Index Only Scan using idx_gps_viaje_fecha":
+-- EXPLAIN (ANALYZE, BUFFERS)
+--     SELECT latitud, longitud, rumbo, velocidad_kmh, fecha_registro
+--     FROM ubicaciones_tiempo_real WHERE id_viaje = 1
+--     ORDER BY fecha_registro DESC, id_tracking DESC LIMIT 1;
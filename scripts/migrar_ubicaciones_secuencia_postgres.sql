@@ -0,0 +1,60 @@
+-- ============================================
+-- Migración de ubicaciones_tiempo_real.id_tracking
+-- de IDENTITY a secuencia con incremento 50
+-- PostgreSQL Version
+-- ============================================
+-- IMPORTANTE: ejecutar ANTES de desplegar la versión que usa
+-- GenerationType.SEQUENCE. Si Hibernate crea la secuencia por su cuenta
+-- (ddl-auto=update) empezará en 1 y chocará con los IDs existentes.
+--
+-- La aplicación usa el optimizador pooled-lo: cada nextval reserva
+-- el bloque [valor, valor + 49], tanto desde Hibernate como desde
+-- la ingesta por lotes con JDBC.
+
+BEGIN;
+
+-- Evitar inserciones concurrentes mientras se alinea la secuencia
+LOCK TABLE ubicaciones_tiempo_real IN SHARE ROW EXCLUSIVE MODE;
+
+-- ============================================
+-- Quitar la generación IDENTITY / SERIAL de la columna
+-- ============================================
+
+ALTER TABLE ubicaciones_tiempo_real
+    ALTER COLUMN id_tracking DROP IDENTITY IF EXISTS;
+
+ALTER TABLE ubicaciones_tiempo_real
+    ALTER COLUMN id_tracking DROP DEFAULT;
+
+-- ============================================
+-- Crear la secuencia y posicionarla después del ID más alto
+-- ============================================
+
+CREATE SEQUENCE IF NOT EXISTS ubicaciones_tiempo_real_seq
+    INCREMENT BY 50
+    MINVALUE 1;
+
+SELECT setval(
+    'ubicaciones_tiempo_real_seq',
+    COALESCE((SELECT MAX(id_tracking) FROM ubicaciones_tiempo_real), 0) + 1,
+    false
+);
+
+ALTER SEQUENCE ubicaciones_tiempo_real_seq
+    OWNED BY ubicaciones_tiempo_real.id_tracking;
+
+-- Valor por defecto para inserciones manuales (usan solo el primer ID del bloque)
+ALTER TABLE ubicaciones_tiempo_real
+    ALTER COLUMN id_tracking SET DEFAULT nextval('ubicaciones_tiempo_real_seq');
+
+-- La secuencia antigua de SERIAL (si existía) ya no se usa
+DROP SEQUENCE IF EXISTS ubicaciones_tiempo_real_id_tracking_seq;
+
+COMMIT;
+
+-- ============================================
+-- Verificación
+-- ============================================
+
+-- SELECT last_value, increment_by FROM pg_sequences
+--     WHERE sequencename = 'ubicaciones_tiempo_real_seq';
@@ -0,0 +1,135 @@
+-- ============================================
+-- Migración de ubicaciones_tiempo_real a tabla
+-- particionada por rango de fecha_registro
+-- PostgreSQL Version (12+)
+-- ============================================
+-- IMPORTANTE: ejecutar después de migrar_ubicaciones_secuencia_postgres.sql
+-- y de crear_indice_ubicaciones_viaje_fecha_postgres.sql, con la ingesta
+-- detenida (la tabla queda bloqueada durante la copia).
+--
+-- Crea particiones diarias (nombre ubicaciones_tiempo_real_pAAAAMMDD, días
+-- en America/Lima) que cubren el historial y la próxima semana. A partir de
+-- ahí ParticionUbicacionService crea las futuras y elimina las que salen de
+-- la ventana de retención (gps.particiones.*). Si se usa intervalo SEMANAL,
+-- ajustar el bloque de creación para que las semanas empiecen en lunes.
+--
+-- Sin partición DEFAULT (lo recomendado) y con PostgreSQL 14+ la retención
+-- separa las particiones con DETACH PARTITION ... CONCURRENTLY, que no bloquea
+-- la ingesta; un INSERT fuera de todo rango falla.
+-- La partición DEFAULT opcional (bloque comentado más abajo, junto con
+-- gps.particiones.particion-defecto=true) recibe esas filas, pero mientras
+-- exista PostgreSQL no permite CONCURRENTLY: cada DETACH toma ACCESS EXCLUSIVE
+-- y la ingesta espera detrás de él hasta gps.particiones.lock-timeout-ms.
+--
+-- La clave primaria pasa a ser (id_tracking, fecha_registro) porque en
+-- PostgreSQL debe incluir la columna de particionado; id_tracking sigue
+-- saliendo de la secuencia, así que continúa siendo único.
+
+BEGIN;
+
+SET LOCAL TIME ZONE 'America/Lima';
+
+LOCK TABLE ubicaciones_tiempo_real IN ACCESS EXCLUSIVE MODE;
+
+-- ============================================
+-- Apartar la tabla actual (los nombres de índices son por esquema)
+-- ============================================
+
+ALTER TABLE ubicaciones_tiempo_real RENAME TO ubicaciones_tiempo_real_anterior;
+
+ALTER TABLE ubicaciones_tiempo_real_anterior
+    RENAME CONSTRAINT ubicaciones_tiempo_real_pkey TO ubicaciones_tiempo_real_anterior_pkey;
+
+ALTER INDEX IF EXISTS idx_gps_viaje_fecha RENAME TO idx_gps_viaje_fecha_anterior;
+ALTER INDEX IF EXISTS idx_gps_viaje RENAME TO idx_gps_viaje_anterior;
+ALTER INDEX IF EXISTS idx_gps_fecha RENAME TO idx_gps_fecha_anterior;
+
+ALTER TABLE ubicaciones_tiempo_real_anterior
+    ALTER COLUMN id_tracking DROP DEFAULT;
+
+-- ============================================
+-- Tabla particionada
+-- ============================================
+
+CREATE TABLE ubicaciones_tiempo_real (
+    id_tracking     BIGINT NOT NULL DEFAULT nextval('ubicaciones_tiempo_real_seq'),
+    id_viaje        INTEGER NOT NULL REFERENCES viajes (id_viaje),
+    latitud         NUMERIC(10, 8) NOT NULL,
+    longitud        NUMERIC(11, 8) NOT NULL,
+    velocidad_kmh   NUMERIC(5, 2),
+    rumbo           NUMERIC(5, 2),
+    fecha_registro  TIMESTAMPTZ NOT NULL,
+    CONSTRAINT ubicaciones_tiempo_real_pkey PRIMARY KEY (id_tracking, fecha_registro)
+) PARTITION BY RANGE (fecha_registro);
+
+ALTER SEQUENCE ubicaciones_tiempo_real_seq
+    OWNED BY ubicaciones_tiempo_real.id_tracking;
+
+-- ============================================
+-- Particiones diarias: desde la primera ubicación hasta dentro de 7 días
+-- ============================================
+
+DO $$
+DECLARE
+    dia DATE := COALESCE(
+        (SELECT MIN(fecha_registro)::date FROM ubicaciones_tiempo_real_anterior),
+        CURRENT_DATE
+    );
+BEGIN
+    WHILE dia <= CURRENT_DATE + 7 LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF ubicaciones_tiempo_real FOR VALUES FROM (%L) TO (%L)',
+            'ubicaciones_tiempo_real_p' || to_char(dia, 'YYYYMMDD'),
+            dia::timestamptz,
+            (dia + 1)::timestamptz
+        );
+        dia := dia + 1;
+    END LOOP;
+END $$;
+
+-- Opcional, ver la nota del encabezado: filas fuera de rango (después del
+-- bucle, porque crear una partición con DEFAULT existente recorre la DEFAULT)
+-- CREATE TABLE ubicaciones_tiempo_real_default
+--     PARTITION OF ubicaciones_tiempo_real DEFAULT;
+
+-- ============================================
+-- Copiar el historial
+-- ============================================
+
+INSERT INTO ubicaciones_tiempo_real
+    (id_tracking, id_viaje, latitud, longitud, velocidad_kmh, rumbo, fecha_registro)
+SELECT id_tracking, id_viaje, latitud, longitud, velocidad_kmh, rumbo, fecha_registro
+FROM ubicaciones_tiempo_real_anterior;
+
+-- ============================================
+-- Índices (se propagan a cada partición, también a las futuras)
+-- ============================================
+
+CREATE INDEX idx_gps_viaje_fecha
+    ON ubicaciones_tiempo_real (id_viaje, fecha_registro DESC, id_tracking DESC)
+    INCLUDE (latitud, longitud, velocidad_kmh, rumbo);
+
+CREATE INDEX idx_gps_fecha
+    ON ubicaciones_tiempo_real (fecha_registro);
+
+COMMIT;
+
+ANALYZE ubicaciones_tiempo_real;
+
+-- ============================================
+-- Verificación y limpieza
+-- ============================================
+
+-- SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+--     FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+--     WHERE i.inhparent = 'ubicaciones_tiempo_real'::regclass
+--     ORDER BY c.relname;
+--
+-- -- Si se creó la DEFAULT: vacía salvo filas con fecha_registro fuera del historial
+-- SELECT COUNT(*) FROM ubicaciones_tiempo_real_default;
+--
+-- SELECT (SELECT COUNT(*) FROM ubicaciones_tiempo_real) AS nuevas,
+--        (SELECT COUNT(*) FROM ubicaciones_tiempo_real_anterior) AS anteriores;
+--
+-- Una vez verificado:
+-- DROP TABLE ubicaciones_tiempo_real_anterior;
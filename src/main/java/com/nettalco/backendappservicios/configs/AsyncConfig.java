@@ -1,40 +1,39 @@
 package com.nettalco.backendappservicios.configs;
 
+import com.nettalco.backendappservicios.util.EjecutorVirtualAcotado;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.Executor;
 
 /**
- * Configuración para habilitar procesamiento asíncrono con Virtual Threads (Project Loom).
+ * Executor con Virtual Threads (Project Loom) para el trabajo asíncrono contra la base de datos.
  * Java 21+ soporta Virtual Threads nativamente.
  */
 @Configuration
-@EnableAsync
 public class AsyncConfig {
     
     /**
-     * Configura un Executor usando Virtual Threads para operaciones asíncronas.
-     * Los Virtual Threads son más eficientes para operaciones I/O bound como
-     * la ingesta de GPS en tiempo real.
+     * Executor de los lotes del buffer write-behind: un hilo virtual por tarea.
+     * Las tareas escriben en la base de datos, así que por defecto se ejecutan a lo sumo
+     * tantas como conexiones tiene el pool de Hikari menos {@code gps.async.conexiones-reservadas},
+     * que quedan libres para las peticiones; {@code gps.async.max-concurrentes} fija el
+     * valor explícitamente. El resto espera hasta {@code gps.async.max-en-espera} y con la espera llena se
+     * aplica {@code gps.async.politica-rechazo} (RECHAZAR o LLAMADOR).
+     * Métricas en gps.async.*.
      */
     @Bean(name = "virtualThreadExecutor")
-    public Executor virtualThreadExecutor() {
-        // En Java 21+, podemos usar Executors.newVirtualThreadPerTaskExecutor()
-        // pero Spring aún no lo soporta directamente, así que usamos ThreadPoolTaskExecutor
-        // con configuración optimizada para I/O
-        
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(200);
-        executor.setQueueCapacity(1000);
-        executor.setThreadNamePrefix("gps-async-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        executor.initialize();
-        return executor;
+    public EjecutorVirtualAcotado virtualThreadExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int tamanoPool,
+            @Value("${gps.async.conexiones-reservadas:4}") int conexionesReservadas,
+            @Value("${gps.async.max-concurrentes:0}") int maxConcurrentes,
+            @Value("${gps.async.max-en-espera:1000}") int maxEnEspera,
+            @Value("${gps.async.politica-rechazo:RECHAZAR}") EjecutorVirtualAcotado.PoliticaRechazo politica) {
+        if (maxConcurrentes <= 0) {
+            maxConcurrentes = Math.max(1, tamanoPool - conexionesReservadas);
+        }
+        return new EjecutorVirtualAcotado("gps.async", maxConcurrentes, maxEnEspera, politica, meterRegistry);
     }
 }
 
@@ -0,0 +1,26 @@
+package com.nettalco.backendappservicios.configs;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Habilita las tareas programadas (@Scheduled) de mantenimiento de cachés en memoria
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    
+    /**
+     * Scheduler propio para las tareas @Scheduled, separado del scheduler
+     * interno del broker STOMP (heartbeats de WebSocket)
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(4);
+        scheduler.setThreadNamePrefix("tareas-");
+        return scheduler;
+    }
+}
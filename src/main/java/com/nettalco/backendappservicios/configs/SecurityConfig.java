@@ -1,10 +1,16 @@
 package com.nettalco.backendappservicios.configs;
 
+import com.nettalco.backendappservicios.security.DispositivoGpsAuthFilter;
 import com.nettalco.backendappservicios.security.JwtAuthFilter;
+import com.nettalco.backendappservicios.servicesinterfaces.IDispositivoGpsService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
@@ -18,15 +24,64 @@ import java.util.Arrays;
 /**
  * Configuración de seguridad para el backend de servicios
  * Define qué endpoints requieren autenticación y configura CORS
+ *
+ * Las rutas públicas de alto tráfico (ingesta GPS, viajes, rutas, cercanía) usan una
+ * cadena propia mínima: sin JWT, sin contexto de seguridad, sin anónimo ni caché de
+ * peticiones. CORS lo resuelven los @CrossOrigin de sus controladores. La ingesta
+ * se autentica con el token de dispositivo cuando está habilitado y se limita por
+ * bus o IP antes de llegar al controlador.
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
     
+    private static final String[] RUTAS_PUBLICAS_ALTO_TRAFICO = {
+        "/api/gps/**",
+        "/api/trips/**",
+        "/api/rutas/**",
+        "/api/paraderos/**",
+        "/api/buses/**"
+    };
+    
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
     
+    @Autowired
+    private IDispositivoGpsService dispositivoGpsService;
+    
+    @Autowired
+    private ILimiteIngestaService limiteIngestaService;
+    
+    @Bean
+    @Order(1)
+    public SecurityFilterChain rutasPublicasFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher(RUTAS_PUBLICAS_ALTO_TRAFICO)
+            .csrf(AbstractHttpConfigurer::disable)
+            .cors(AbstractHttpConfigurer::disable)
+            .securityContext(AbstractHttpConfigurer::disable)
+            .sessionManagement(AbstractHttpConfigurer::disable)
+            .requestCache(AbstractHttpConfigurer::disable)
+            .anonymous(AbstractHttpConfigurer::disable)
+            .logout(AbstractHttpConfigurer::disable)
+            .addFilterBefore(new DispositivoGpsAuthFilter(dispositivoGpsService, limiteIngestaService), UsernamePasswordAuthenticationFilter.class);
+        
+        return http.build();
+    }
+    
+    /**
+     * JwtAuthFilter es un @Component: sin esto Spring Boot también lo registraría como
+     * filtro del servlet y se ejecutaría en todas las peticiones, incluidas las de alto tráfico
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthFilter> jwtAuthFilterRegistration(JwtAuthFilter filter) {
+        FilterRegistrationBean<JwtAuthFilter> registro = new FilterRegistrationBean<>(filter);
+        registro.setEnabled(false);
+        return registro;
+    }
+    
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             // Configurar CORS
@@ -51,11 +106,9 @@ public class SecurityConfig {
                 .requestMatchers("/api/versiones-privacidad/**").permitAll() // Todas las versiones de privacidad públicas
                 .requestMatchers("/actuator/health").permitAll() // Health check de Spring Boot Actuator (si está habilitado)
                 
-                // Endpoints de transporte (públicos para acceso sin restricciones)
-                // NOTA: Para producción, considerar autenticación o tokens específicos para GPS
-                .requestMatchers("/api/gps/**").permitAll() // GPS público para alto throughput
-                .requestMatchers("/api/rutas/**").permitAll() // Rutas públicas para acceso libre
-                .requestMatchers("/api/trips/**").permitAll() // Viajes públicos para seguimiento
+                // Endpoints de transporte: /api/gps, /api/rutas, /api/trips, /api/paraderos
+                // y /api/buses los atiende rutasPublicasFilterChain
+                .requestMatchers("/ws/**").permitAll() // WebSocket de posiciones de la flota
                 
                 // Todos los demás endpoints requieren autenticación
                 .anyRequest().authenticated()
@@ -0,0 +1,64 @@
+package com.nettalco.backendappservicios.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.Arrays;
+
+/**
+ * Configuración WebSocket/STOMP para el broadcast de posiciones de la flota.
+ * 
+ * Destinos:
+ * - /topic/flota             todas las posiciones de viajes en curso
+ * - /topic/flota/ruta/{id}   solo las posiciones de una ruta
+ * - /app/flota/snapshot      (subscribe) foto actual de la flota al conectar
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    
+    @Value("${gps.flota.ws.origenes-permitidos:}")
+    private String[] origenesPermitidos;
+    
+    @Value("${gps.flota.ws.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+    
+    @Value("${gps.flota.ws.send-buffer-size-limit:262144}")
+    private int sendBufferSizeLimit;
+    
+    /**
+     * /ws/** no requiere autenticación, así que el handshake solo se acepta desde los
+     * orígenes de {@code gps.flota.ws.origenes-permitidos}; sin ninguno configurado, solo
+     * desde el mismo origen. Las apps nativas no envían Origin y no se ven afectadas.
+     */
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws/flota")
+            .setAllowedOriginPatterns(Arrays.stream(origenesPermitidos)
+                .map(String::strip)
+                .filter(origen -> !origen.isEmpty())
+                .toArray(String[]::new));
+    }
+    
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic");
+        registry.setApplicationDestinationPrefixes("/app");
+    }
+    
+    /**
+     * Un consumidor lento no se bufferiza sin límite: si un envío tarda más que
+     * send-time-limit o el buffer pendiente supera send-buffer-size-limit,
+     * se cierra su sesión.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs);
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+}
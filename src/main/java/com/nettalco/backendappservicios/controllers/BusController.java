@@ -0,0 +1,43 @@
+package com.nettalco.backendappservicios.controllers;
+
+import com.nettalco.backendappservicios.dtos.BusCercanoResponse;
+import com.nettalco.backendappservicios.servicesinterfaces.ICercaniaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/buses")
+@CrossOrigin(origins = "*")
+public class BusController {
+    
+    @Autowired
+    private ICercaniaService cercaniaService;
+    
+    /**
+     * Buses de viajes en curso cercanos a una posición, según su última ubicación GPS.
+     * Se resuelve con un índice en memoria, sin consultar la base de datos.
+     * Endpoint: GET /api/buses/cercanos?lat=&lng=&radio=&limite=
+     */
+    @GetMapping("/cercanos")
+    public ResponseEntity<?> obtenerBusesCercanos(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "1000") double radio,
+            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            List<BusCercanoResponse> buses = cercaniaService.busesCercanos(lat, lng, radio, limite);
+            return ResponseEntity.ok(buses);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al obtener los buses cercanos: " + e.getMessage()));
+        }
+    }
+}
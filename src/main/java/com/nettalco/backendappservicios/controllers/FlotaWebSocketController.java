@@ -0,0 +1,30 @@
+package com.nettalco.backendappservicios.controllers;
+
+import com.nettalco.backendappservicios.dtos.PosicionFlotaResponse;
+import com.nettalco.backendappservicios.servicesinterfaces.IFlotaBroadcastService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+
+/**
+ * Controlador STOMP del broadcast de flota.
+ * Las actualizaciones llegan por /topic/flota (o /topic/flota/ruta/{id});
+ * este controlador solo entrega la foto inicial.
+ */
+@Controller
+public class FlotaWebSocketController {
+    
+    @Autowired
+    private IFlotaBroadcastService flotaService;
+    
+    /**
+     * Foto actual de la flota en curso, respondida directamente al suscriptor
+     * Destino: /app/flota/snapshot
+     */
+    @SubscribeMapping("/flota/snapshot")
+    public List<PosicionFlotaResponse> obtenerSnapshot() {
+        return flotaService.obtenerSnapshot();
+    }
+}
@@ -1,19 +1,36 @@
 package com.nettalco.backendappservicios.controllers;
 
+import com.nettalco.backendappservicios.dtos.GPSIngestaBinariaResponse;
+import com.nettalco.backendappservicios.dtos.GPSIngestaLoteResponse;
 import com.nettalco.backendappservicios.dtos.GPSIngestaRequest;
 import com.nettalco.backendappservicios.dtos.GPSIngestaResponse;
+import com.nettalco.backendappservicios.exceptions.DispositivoNoAutorizadoException;
+import com.nettalco.backendappservicios.exceptions.LimiteExcedidoException;
+import com.nettalco.backendappservicios.security.DispositivoGpsAuthFilter;
+import com.nettalco.backendappservicios.servicesinterfaces.IBufferUbicacionService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.servicesinterfaces.IIngestaBinariaService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService.Origen;
 import com.nettalco.backendappservicios.servicesinterfaces.IUbicacionTiempoRealService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * Controller optimizado para ingesta de GPS en tiempo real.
  * Diseñado para alto throughput con procesamiento asíncrono.
+ * Con token de dispositivo, solo se aceptan ubicaciones de viajes (o equipos) del bus autenticado.
  */
 @RestController
 @RequestMapping("/api/gps")
@@ -23,18 +40,36 @@ public class GPSController {
     @Autowired
     private IUbicacionTiempoRealService ubicacionService;
     
+    @Autowired
+    private IBufferUbicacionService bufferService;
+    
+    @Autowired
+    private IIngestaBinariaService ingestaBinariaService;
+    
+    @Autowired
+    private ILimiteIngestaService limiteIngestaService;
+    
+    @Autowired
+    private IEstadoViajeService estadoViajeService;
+    
     /**
      * Endpoint síncrono para registro de ubicación GPS.
      * Usa transacciones REQUIRES_NEW para minimizar bloqueos.
      */
     @PostMapping("/ubicacion")
-    public ResponseEntity<?> registrarUbicacion(@Valid @RequestBody GPSIngestaRequest request) {
+    public ResponseEntity<?> registrarUbicacion(
+            @Valid @RequestBody GPSIngestaRequest request,
+            @RequestAttribute(name = DispositivoGpsAuthFilter.ATRIBUTO_ID_BUS, required = false) Integer idBus) {
         try {
+            verificarBus(idBus, List.of(request.idViaje()));
             GPSIngestaResponse response = ubicacionService.registrarUbicacion(request);
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                 .body(Map.of("error", e.getMessage()));
+        } catch (DispositivoNoAutorizadoException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Error al registrar ubicación: " + e.getMessage()));
@@ -43,31 +78,123 @@ public class GPSController {
     
     /**
      * Endpoint asíncrono para registro de ubicación GPS.
-     * Retorna inmediatamente mientras procesa en background.
-     * Ideal para alto throughput.
+     * La ubicación se encola en el buffer write-behind y se persiste en el
+     * siguiente lote. Si el buffer está lleno responde 429 para que el
+     * dispositivo reintente más tarde.
      */
     @PostMapping("/ubicacion/async")
-    public ResponseEntity<?> registrarUbicacionAsync(@Valid @RequestBody GPSIngestaRequest request) {
+    public ResponseEntity<?> registrarUbicacionAsync(
+            @Valid @RequestBody GPSIngestaRequest request,
+            @RequestAttribute(name = DispositivoGpsAuthFilter.ATRIBUTO_ID_BUS, required = false) Integer idBus) {
         try {
-            ubicacionService.registrarUbicacionAsync(request)
-                .thenAccept(response -> {
-                    // Log opcional: la ubicación fue registrada exitosamente
-                    // En producción, podrías enviar esto a un sistema de notificaciones
-                })
-                .exceptionally(ex -> {
-                    // Log del error
-                    return null;
-                });
+            verificarBus(idBus, List.of(request.idViaje()));
+            if (!bufferService.encolar(request)) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "Buffer de ingesta lleno, reintente en unos segundos"));
+            }
             
             return ResponseEntity.accepted()
                 .body(Map.of(
                     "mensaje", "Ubicación en proceso de registro",
                     "idViaje", request.idViaje()
                 ));
+        } catch (DispositivoNoAutorizadoException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Error al iniciar registro de ubicación: " + e.getMessage()));
         }
     }
+    
+    /**
+     * Endpoint de ingesta por lotes: recibe un arreglo de ubicaciones, posiblemente
+     * de varios viajes, y las registra en una sola transacción.
+     * La respuesta incluye un resultado por elemento; una ubicación inválida
+     * no rechaza al resto del lote.
+     * Cada elemento cuenta como una fijación en el límite de tasa del origen.
+     */
+    @PostMapping("/ubicaciones/batch")
+    public ResponseEntity<?> registrarUbicacionesLote(
+            @RequestBody List<GPSIngestaRequest> requests,
+            @RequestAttribute(name = DispositivoGpsAuthFilter.ATRIBUTO_ORIGEN, required = false) Origen origen,
+            @RequestAttribute(name = DispositivoGpsAuthFilter.ATRIBUTO_ID_BUS, required = false) Integer idBus) {
+        try {
+            // El filtro ya descontó una fijación al recibir la petición
+            if (origen != null && requests != null && requests.size() > 1) {
+                long esperaMs = limiteIngestaService.reservar(origen.clase(), origen.clave(), requests.size() - 1);
+                if (esperaMs == Long.MAX_VALUE) {
+                    throw new IllegalArgumentException("El lote supera la ráfaga máxima de fijaciones del origen");
+                }
+                if (esperaMs > 0) {
+                    throw new LimiteExcedidoException("El origen excedió su límite de ingesta", esperaMs);
+                }
+            }
+            if (requests != null) {
+                verificarBus(idBus, requests.stream()
+                    .filter(Objects::nonNull)
+                    .map(GPSIngestaRequest::idViaje)
+                    .filter(Objects::nonNull)
+                    .toList());
+            }
+            GPSIngestaLoteResponse response = ubicacionService.registrarUbicacionesLote(requests);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (LimiteExcedidoException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getSegundosReintento()))
+                .body(Map.of("error", e.getMessage()));
+        } catch (DispositivoNoAutorizadoException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al registrar el lote de ubicaciones: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Endpoint de ingesta binaria para equipos a bordo: una trama de ancho fijo
+     * (ver TramaGps) con varias fijaciones, identificada por el IMEI del equipo.
+     * Evita el JSON y la validación por elemento; las fijaciones se insertan en lote.
+     */
+    @PostMapping(value = "/ubicaciones/binario", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> registrarTrama(
+            @RequestBody byte[] trama,
+            @RequestAttribute(name = DispositivoGpsAuthFilter.ATRIBUTO_ORIGEN, required = false) Origen origen,
+            @RequestAttribute(name = DispositivoGpsAuthFilter.ATRIBUTO_ID_BUS, required = false) Integer idBus) {
+        try {
+            GPSIngestaBinariaResponse response = ingestaBinariaService.registrarTrama(ByteBuffer.wrap(trama), origen, idBus);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", e.getMessage()));
+        } catch (LimiteExcedidoException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getSegundosReintento()))
+                .body(Map.of("error", e.getMessage()));
+        } catch (DispositivoNoAutorizadoException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al registrar la trama GPS: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Con token de dispositivo ({@code idBus} no nulo), exige que los viajes en curso sean de ese bus
+     */
+    private void verificarBus(Integer idBus, List<Integer> idsViaje) {
+        if (idBus != null && estadoViajeService.asignadoAOtroBus(idsViaje, idBus)) {
+            throw new DispositivoNoAutorizadoException("El viaje no corresponde al bus del token de dispositivo");
+        }
+    }
 }
 
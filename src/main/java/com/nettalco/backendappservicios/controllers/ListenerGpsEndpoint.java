@@ -0,0 +1,27 @@
+package com.nettalco.backendappservicios.controllers;
+
+import com.nettalco.backendappservicios.dtos.ConexionGpsResponse;
+import com.nettalco.backendappservicios.servicesinterfaces.IListenerGpsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Estadísticas por conexión del listener GPS TCP/UDP.
+ * Endpoint: GET /actuator/gpslistener (requiere autenticación)
+ */
+@Component
+@Endpoint(id = "gpslistener")
+public class ListenerGpsEndpoint {
+    
+    @Autowired
+    private IListenerGpsService listenerGpsService;
+    
+    @ReadOperation
+    public List<ConexionGpsResponse> conexiones() {
+        return listenerGpsService.listarConexiones();
+    }
+}
@@ -0,0 +1,43 @@
+package com.nettalco.backendappservicios.controllers;
+
+import com.nettalco.backendappservicios.dtos.ParaderoCercanoResponse;
+import com.nettalco.backendappservicios.servicesinterfaces.ICercaniaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/paraderos")
+@CrossOrigin(origins = "*")
+public class ParaderoController {
+    
+    @Autowired
+    private ICercaniaService cercaniaService;
+    
+    /**
+     * Paraderos oficiales cercanos a una posición, del más cercano al más lejano.
+     * Se resuelve con un índice en memoria, sin consultar la base de datos.
+     * Endpoint: GET /api/paraderos/cercanos?lat=&lng=&radio=&limite=
+     */
+    @GetMapping("/cercanos")
+    public ResponseEntity<?> obtenerParaderosCercanos(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "500") double radio,
+            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            List<ParaderoCercanoResponse> paraderos = cercaniaService.paraderosCercanos(lat, lng, radio, limite);
+            return ResponseEntity.ok(paraderos);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al obtener los paraderos cercanos: " + e.getMessage()));
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.nettalco.backendappservicios.controllers;
 
 import com.nettalco.backendappservicios.dtos.CrearRutaRequest;
+import com.nettalco.backendappservicios.dtos.RespuestaSerializada;
 import com.nettalco.backendappservicios.dtos.RutaDetalleCompletoResponse;
 import com.nettalco.backendappservicios.dtos.RutaResponse;
 import com.nettalco.backendappservicios.servicesinterfaces.IRutaService;
+import com.nettalco.backendappservicios.servicesinterfaces.ISuscripcionUbicacionService;
+import com.nettalco.backendappservicios.util.RespuestasHttp;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/rutas")
@@ -22,6 +30,12 @@ public class RutaController {
     @Autowired
     private IRutaService rutaService;
     
+    @Autowired
+    private ISuscripcionUbicacionService suscripcionService;
+    
+    @Value("${gps.http-cache.rutas-max-age-s:60}")
+    private long rutasMaxAgeS;
+    
     @PostMapping
     public ResponseEntity<?> crearRuta(@Valid @RequestBody CrearRutaRequest request) {
         try {
@@ -36,19 +50,39 @@ public class RutaController {
         }
     }
     
+    /**
+     * El ETag sale de la revisión de la ruta cacheada en memoria: con If-None-Match
+     * vigente se responde 304 sin cargar la ruta.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> obtenerRutaPorId(@PathVariable Integer id) {
+    public ResponseEntity<?> obtenerRutaPorId(@PathVariable Integer id, WebRequest webRequest) {
+        String etag = rutaService.obtenerEtagRuta(id);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         Optional<RutaResponse> ruta = rutaService.obtenerRutaPorId(id);
         if (ruta.isPresent()) {
-            return ResponseEntity.ok(ruta.get());
+            return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControlRutas())
+                .body(ruta.get());
         }
         return ResponseEntity.notFound().build();
     }
     
+    /**
+     * Catálogo de rutas con sus puntos. Se responde desde el JSON cacheado (en gzip si el
+     * cliente lo acepta); si envía If-None-Match con el ETag vigente se responde 304 sin cuerpo.
+     */
     @GetMapping
-    public ResponseEntity<List<RutaResponse>> listarRutas() {
-        List<RutaResponse> rutas = rutaService.listarRutas();
-        return ResponseEntity.ok(rutas);
+    public ResponseEntity<?> listarRutas(WebRequest webRequest) {
+        try {
+            RespuestaSerializada catalogo = rutaService.obtenerCatalogoSerializado();
+            return RespuestasHttp.json(webRequest, catalogo, cacheControlRutas());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al listar las rutas: " + e.getMessage()));
+        }
     }
     
     @PutMapping("/{id}")
@@ -102,5 +136,23 @@ public class RutaController {
                 .body(Map.of("error", "Error al obtener el detalle completo: " + e.getMessage()));
         }
     }
+    
+    /**
+     * Stream Server-Sent Events con las posiciones de todos los buses en curso de la ruta.
+     * Cada evento "bus" incluye el tripId para que el cliente actualice el marcador correcto.
+     * GET /api/rutas/{id}/buses/stream
+     */
+    @GetMapping(value = "/{id}/buses/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirBuses(@PathVariable Integer id) {
+        return suscripcionService.suscribirRuta(id);
+    }
+    
+    /**
+     * Las rutas cambian poco: el cliente puede reutilizarlas durante max-age
+     * y luego revalidarlas con el ETag
+     */
+    private CacheControl cacheControlRutas() {
+        return CacheControl.maxAge(rutasMaxAgeS, TimeUnit.SECONDS).cachePublic().mustRevalidate();
+    }
 }
 
@@ -1,14 +1,27 @@
 package com.nettalco.backendappservicios.controllers;
 
 import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.CursorTrack;
+import com.nettalco.backendappservicios.dtos.EtaViajeResponse;
+import com.nettalco.backendappservicios.dtos.RespuestaVersionada;
 import com.nettalco.backendappservicios.dtos.TripDetailResponse;
 import com.nettalco.backendappservicios.dtos.ViajeActivoResponse;
+import com.nettalco.backendappservicios.servicesinterfaces.ISuscripcionUbicacionService;
 import com.nettalco.backendappservicios.servicesinterfaces.IViajeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,20 +31,42 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class ViajeController {
     
+    private static final int LIMITE_TRACK_DEFECTO = 500;
+    private static final int LIMITE_TRACK_MAXIMO = 5000;
+    
     @Autowired
     private IViajeService viajeService;
     
+    @Autowired
+    private ISuscripcionUbicacionService suscripcionService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
-     * Obtiene los detalles de un viaje incluyendo la ruta completa
+     * Obtiene los detalles de un viaje incluyendo la ruta completa.
+     * Responde con ETag y siempre revalida (el estado y la ETA cambian); para un viaje
+     * en curso con If-None-Match vigente se responde 304 sin consultar la base de datos.
      * Endpoint: GET /api/trips/{tripId}/route
      */
     @GetMapping("/{tripId}/route")
-    public ResponseEntity<?> obtenerRutaViaje(@PathVariable Integer tripId) {
+    public ResponseEntity<?> obtenerRutaViaje(@PathVariable Integer tripId, WebRequest webRequest) {
         try {
-            Optional<TripDetailResponse> tripDetail = viajeService.obtenerDetalleViaje(tripId);
+            Optional<String> etagEnCurso = viajeService.obtenerEtagDetalleViajeEnCurso(tripId);
+            if (etagEnCurso.isPresent() && webRequest.checkNotModified(etagEnCurso.get())) {
+                return null;
+            }
+            
+            Optional<RespuestaVersionada<TripDetailResponse>> tripDetail = viajeService.obtenerDetalleViajeVersionado(tripId);
             
             if (tripDetail.isPresent()) {
-                return ResponseEntity.ok(tripDetail.get());
+                if (webRequest.checkNotModified(tripDetail.get().etag())) {
+                    return null;
+                }
+                return ResponseEntity.ok()
+                    .eTag(tripDetail.get().etag())
+                    .cacheControl(CacheControl.noCache())
+                    .body(tripDetail.get().cuerpo());
             }
             
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -63,6 +98,95 @@ public class ViajeController {
         }
     }
     
+    /**
+     * Tiempos estimados de llegada a cada paradero oficial pendiente y al final de la ruta.
+     * Se recalculan con cada ubicación GPS; esta lectura no consulta la base de datos.
+     * Endpoint: GET /api/trips/{tripId}/eta
+     */
+    @GetMapping("/{tripId}/eta")
+    public ResponseEntity<?> obtenerEta(@PathVariable Integer tripId) {
+        try {
+            Optional<EtaViajeResponse> eta = viajeService.obtenerEta(tripId);
+            
+            if (eta.isPresent()) {
+                return ResponseEntity.ok(eta.get());
+            }
+            
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "ETA no disponible para el viaje"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al obtener la ETA: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Stream Server-Sent Events con la posición del bus del viaje.
+     * Envía la posición actual al conectar y luego un evento "location" por cada
+     * ubicación GPS registrada, en lugar de que el cliente haga polling.
+     * Endpoint: GET /api/trips/{tripId}/location/stream
+     */
+    @GetMapping(value = "/{tripId}/location/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirUbicacion(@PathVariable Integer tripId) {
+        return suscripcionService.suscribirViaje(tripId);
+    }
+    
+    /**
+     * Historial GPS de un viaje con paginación keyset sobre (fecha_registro, id_tracking).
+     * Los puntos se escriben en la respuesta a medida que se leen de la base de datos.
+     * Para la página siguiente se envía el nextCursor recibido en el parámetro after.
+     * Endpoint: GET /api/trips/{tripId}/track?from=&to=&after=&limit=
+     */
+    @GetMapping("/{tripId}/track")
+    public ResponseEntity<?> obtenerTrack(
+            @PathVariable Integer tripId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + LIMITE_TRACK_DEFECTO) int limit) {
+        if (limit < 1 || limit > LIMITE_TRACK_MAXIMO) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "El límite debe estar entre 1 y " + LIMITE_TRACK_MAXIMO));
+        }
+        CursorTrack cursor;
+        try {
+            cursor = after != null && !after.isBlank() ? CursorTrack.decodificar(after) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Cursor inválido"));
+        }
+        try {
+            if (!viajeService.existeViaje(tripId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Viaje no encontrado"));
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al obtener el historial del viaje: " + e.getMessage()));
+        }
+        
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.createGenerator(salida)) {
+                generador.writeStartObject();
+                generador.writeNumberProperty("tripId", tripId);
+                generador.writeName("points");
+                generador.writeStartArray();
+                Optional<CursorTrack> siguiente = viajeService.recorrerTrack(
+                    tripId, from, to, cursor, limit, generador::writePOJO);
+                generador.writeEndArray();
+                if (siguiente.isPresent()) {
+                    generador.writeStringProperty("nextCursor", siguiente.get().codificar());
+                } else {
+                    generador.writeNullProperty("nextCursor");
+                }
+                generador.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(cuerpo);
+    }
+    
     /**
      * Obtiene los viajes activos para una ruta específica
      * Endpoint: GET /api/trips/ruta/{rutaId}/activos
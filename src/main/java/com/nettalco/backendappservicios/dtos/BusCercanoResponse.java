@@ -0,0 +1,17 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Bus de un viaje en curso cercano a una posición, con la distancia en metros
+ */
+public record BusCercanoResponse(
+    Integer tripId,
+    Integer routeId,
+    Double latitude,
+    Double longitude,
+    Double heading,
+    Double speed,
+    OffsetDateTime timestamp,
+    double distanceMeters
+) {}
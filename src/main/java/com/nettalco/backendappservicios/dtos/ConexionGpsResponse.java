@@ -0,0 +1,18 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Estadísticas de una conexión TCP (o de un remitente UDP) del listener GPS
+ */
+public record ConexionGpsResponse(
+    String protocolo,
+    String remoto,
+    String imei,
+    OffsetDateTime inicio,
+    OffsetDateTime ultimaActividad,
+    long tramas,
+    long fijaciones,
+    long bytes,
+    long errores
+) {}
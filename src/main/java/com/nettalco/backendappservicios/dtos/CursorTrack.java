@@ -0,0 +1,46 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor de paginación keyset sobre (fecha_registro, id_tracking).
+ * Se expone al cliente como texto opaco en base64url.
+ */
+public record CursorTrack(
+    OffsetDateTime fechaRegistro,
+    long idTracking
+) {
+    private static final char SEPARADOR = '|';
+    
+    public static CursorTrack de(PuntoTrackResponse punto) {
+        return new CursorTrack(punto.timestamp(), punto.id());
+    }
+    
+    public String codificar() {
+        String texto = fechaRegistro.toString() + SEPARADOR + idTracking;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static CursorTrack decodificar(String cursor) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new CursorTrack(
+                OffsetDateTime.parse(texto.substring(0, separador)),
+                Long.parseLong(texto.substring(separador + 1))
+            );
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.nettalco.backendappservicios.dtos;
+
+/**
+ * Proyección mínima de un viaje para validar la ingesta de GPS
+ * sin cargar la entidad ni sus relaciones
+ */
+public record EstadoViaje(
+    Integer idViaje,
+    Integer idRuta,
+    Integer idBus,
+    String estado
+) {
+    public static final String EN_CURSO = "en_curso";
+    
+    public boolean enCurso() {
+        return EN_CURSO.equals(estado);
+    }
+}
@@ -0,0 +1,30 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Tiempos estimados de llegada de un viaje, recalculados con cada ubicación GPS
+ */
+public record EtaViajeResponse(
+    Integer tripId,
+    Integer routeId,
+    double progressMeters,
+    double remainingMeters,
+    double speedKmh,
+    Integer estimatedArrivalMinutes,
+    OffsetDateTime updatedAt,
+    List<StopEtaResponse> stops
+) {
+    /**
+     * ETA a un paradero oficial que el bus aún no ha pasado
+     */
+    public record StopEtaResponse(
+        Integer order,
+        String name,
+        double latitude,
+        double longitude,
+        double distanceMeters,
+        int etaMinutes
+    ) {}
+}
@@ -0,0 +1,9 @@
+package com.nettalco.backendappservicios.dtos;
+
+public record GPSIngestaBinariaResponse(
+    String imei,
+    Integer idViaje,
+    int total,
+    int registradas,
+    int rechazadas
+) {}
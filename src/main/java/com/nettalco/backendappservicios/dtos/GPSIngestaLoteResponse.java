@@ -0,0 +1,24 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Resultado de la ingesta de un lote de ubicaciones GPS.
+ * Cada elemento del lote tiene su propio resultado para que una
+ * ubicación inválida no rechace al resto.
+ */
+public record GPSIngestaLoteResponse(
+    int total,
+    int registrados,
+    int rechazados,
+    List<ResultadoItem> resultados
+) {
+    public record ResultadoItem(
+        int indice,
+        Integer idViaje,
+        Long idTracking,
+        OffsetDateTime fechaRegistro,
+        String error
+    ) {}
+}
@@ -0,0 +1,14 @@
+package com.nettalco.backendappservicios.dtos;
+
+/**
+ * Paradero oficial de una ruta cercano a una posición, con la distancia en metros
+ */
+public record ParaderoCercanoResponse(
+    Integer routeId,
+    String routeName,
+    Integer order,
+    String name,
+    double latitude,
+    double longitude,
+    double distanceMeters
+) {}
@@ -0,0 +1,13 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Partición por rango de fecha_registro de ubicaciones_tiempo_real.
+ * El límite superior es exclusivo.
+ */
+public record ParticionUbicacion(
+    String nombre,
+    OffsetDateTime desde,
+    OffsetDateTime hasta
+) {}
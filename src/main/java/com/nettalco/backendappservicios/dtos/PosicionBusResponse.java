@@ -0,0 +1,29 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Posición de un bus identificada por viaje y ruta,
+ * usada en los streams en vivo donde llegan buses de varios viajes
+ */
+public record PosicionBusResponse(
+    Integer tripId,
+    Integer routeId,
+    Double latitude,
+    Double longitude,
+    Double heading,
+    Double speed,
+    OffsetDateTime timestamp
+) {
+    public static PosicionBusResponse de(Integer tripId, Integer routeId, BusLocationResponse ubicacion) {
+        return new PosicionBusResponse(
+            tripId,
+            routeId,
+            ubicacion.latitude(),
+            ubicacion.longitude(),
+            ubicacion.heading(),
+            ubicacion.speed(),
+            ubicacion.timestamp()
+        );
+    }
+}
@@ -0,0 +1,27 @@
+package com.nettalco.backendappservicios.dtos;
+
+/**
+ * Posición compacta de un bus para el broadcast de flota por WebSocket.
+ * La marca de tiempo va en epoch millis para reducir el tamaño de cada mensaje.
+ */
+public record PosicionFlotaResponse(
+    Integer tripId,
+    Integer routeId,
+    double lat,
+    double lng,
+    Double heading,
+    Double speed,
+    long ts
+) {
+    public static PosicionFlotaResponse de(Integer tripId, Integer routeId, BusLocationResponse ubicacion) {
+        return new PosicionFlotaResponse(
+            tripId,
+            routeId,
+            ubicacion.latitude(),
+            ubicacion.longitude(),
+            ubicacion.heading(),
+            ubicacion.speed(),
+            ubicacion.timestamp().toInstant().toEpochMilli()
+        );
+    }
+}
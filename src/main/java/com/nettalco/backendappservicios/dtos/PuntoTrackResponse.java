@@ -0,0 +1,16 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Punto del historial GPS de un viaje, proyectado directamente desde JDBC
+ * (sin entidades administradas)
+ */
+public record PuntoTrackResponse(
+    Long id,
+    double latitude,
+    double longitude,
+    Double speed,
+    Double heading,
+    OffsetDateTime timestamp
+) {}
@@ -0,0 +1,43 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cuerpo JSON ya serializado (también comprimido con gzip) junto con su ETag, para
+ * responder lecturas frecuentes sin volver a consultar, serializar ni comprimir.
+ * El ETag se deriva del contenido, así que es el mismo entre reinicios e instancias;
+ * la variante gzip tiene su propio ETag.
+ */
+public record RespuestaSerializada(byte[] contenido, byte[] contenidoGzip, String etag) {
+    
+    public static RespuestaSerializada de(byte[] contenido) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contenido);
+            String etag = HexFormat.of().formatHex(Arrays.copyOf(hash, 16));
+            return new RespuestaSerializada(contenido, comprimir(contenido), "\"" + etag + "\"");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+    
+    public String etagGzip() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+    
+    private static byte[] comprimir(byte[] contenido) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, contenido.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(contenido);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+}
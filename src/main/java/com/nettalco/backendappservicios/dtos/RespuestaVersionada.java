@@ -0,0 +1,6 @@
+package com.nettalco.backendappservicios.dtos;
+
+/**
+ * Respuesta junto con el ETag de la versión de los datos con que se armó
+ */
+public record RespuestaVersionada<T>(T cuerpo, String etag) {}
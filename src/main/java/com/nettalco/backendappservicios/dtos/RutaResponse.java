@@ -1,6 +1,5 @@
 package com.nettalco.backendappservicios.dtos;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 public record RutaResponse(
@@ -14,8 +13,8 @@ public record RutaResponse(
     public record PuntoRutaResponse(
         Integer idPunto,
         Integer orden,
-        BigDecimal latitud,
-        BigDecimal longitud,
+        double latitud,
+        double longitud,
         String nombreParadero,
         Boolean esParaderoOficial
     ) {}
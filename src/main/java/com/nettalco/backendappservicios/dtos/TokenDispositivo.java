@@ -0,0 +1,6 @@
+package com.nettalco.backendappservicios.dtos;
+
+/**
+ * Hash del token precompartido de un equipo GPS y el bus al que pertenece
+ */
+public record TokenDispositivo(String hash, Integer idBus) {}
@@ -0,0 +1,26 @@
+package com.nettalco.backendappservicios.dtos;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Fila de ubicación GPS ya validada y lista para insertarse en lote
+ * en ubicaciones_tiempo_real (sin pasar por el contexto de persistencia)
+ */
+public record UbicacionRegistro(
+    Integer idViaje,
+    double latitud,
+    double longitud,
+    Double velocidadKmh,
+    Double rumbo,
+    OffsetDateTime fechaRegistro
+) {
+    public BusLocationResponse aBusLocationResponse() {
+        return new BusLocationResponse(
+            latitud,
+            longitud,
+            rumbo,
+            velocidadKmh,
+            fechaRegistro
+        );
+    }
+}
@@ -27,6 +27,10 @@ public class Bus {
     @Column(name = "estado", length = 20)
     private String estado;
     
+    // SHA-256 (hex) del token precompartido del equipo GPS; el token en claro no se guarda
+    @Column(name = "token_dispositivo_hash", unique = true, length = 64)
+    private String tokenDispositivoHash;
+    
     @PrePersist
     protected void onCreate() {
         if (capacidad == null) {
@@ -97,6 +101,14 @@ public class Bus {
         this.estado = estado;
     }
     
+    public String getTokenDispositivoHash() {
+        return tokenDispositivoHash;
+    }
+    
+    public void setTokenDispositivoHash(String tokenDispositivoHash) {
+        this.tokenDispositivoHash = tokenDispositivoHash;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,7 +1,6 @@
 package com.nettalco.backendappservicios.entities;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
@@ -20,11 +19,11 @@ public class RutaPunto {
     @Column(name = "orden", nullable = false)
     private Integer orden;
     
-    @Column(name = "latitud", nullable = false, precision = 10, scale = 8)
-    private BigDecimal latitud;
+    @Column(name = "latitud", nullable = false, columnDefinition = "numeric(10,8)")
+    private double latitud;
     
-    @Column(name = "longitud", nullable = false, precision = 11, scale = 8)
-    private BigDecimal longitud;
+    @Column(name = "longitud", nullable = false, columnDefinition = "numeric(11,8)")
+    private double longitud;
     
     @Column(name = "nombre_paradero", length = 150)
     private String nombreParadero;
@@ -42,7 +41,7 @@ public class RutaPunto {
     // Constructors
     public RutaPunto() {}
     
-    public RutaPunto(Ruta ruta, Integer orden, BigDecimal latitud, BigDecimal longitud, 
+    public RutaPunto(Ruta ruta, Integer orden, double latitud, double longitud, 
                     String nombreParadero, Boolean esParaderoOficial) {
         this.ruta = ruta;
         this.orden = orden;
@@ -77,19 +76,19 @@ public class RutaPunto {
         this.orden = orden;
     }
     
-    public BigDecimal getLatitud() {
+    public double getLatitud() {
         return latitud;
     }
     
-    public void setLatitud(BigDecimal latitud) {
+    public void setLatitud(double latitud) {
         this.latitud = latitud;
     }
     
-    public BigDecimal getLongitud() {
+    public double getLongitud() {
         return longitud;
     }
     
-    public void setLongitud(BigDecimal longitud) {
+    public void setLongitud(double longitud) {
         this.longitud = longitud;
     }
     
@@ -1,19 +1,34 @@
 package com.nettalco.backendappservicios.entities;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.Objects;
 
+/**
+ * idx_gps_viaje_fecha permite leer la última posición y las ventanas de un viaje
+ * recorriendo el índice en orden. En producción se crea con INCLUDE de las
+ * columnas de posición (scripts/crear_indice_ubicaciones_viaje_fecha_postgres.sql)
+ * para que esas lecturas sean index-only scans.
+ */
 @Entity
 @Table(name = "ubicaciones_tiempo_real", indexes = {
-    @Index(name = "idx_gps_viaje", columnList = "id_viaje"),
+    @Index(name = "idx_gps_viaje_fecha", columnList = "id_viaje, fecha_registro DESC, id_tracking DESC"),
     @Index(name = "idx_gps_fecha", columnList = "fecha_registro")
 })
 public class UbicacionTiempoReal {
     
+    public static final String SECUENCIA_ID = "ubicaciones_tiempo_real_seq";
+    
+    public static final int INCREMENTO_SECUENCIA_ID = 50;
+    
+    /**
+     * Secuencia con incremento 50 (optimizador pooled-lo) para que Hibernate
+     * pueda agrupar los INSERT en lotes JDBC; con IDENTITY cada fila exigía
+     * recuperar la clave generada de forma individual.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SECUENCIA_ID)
+    @SequenceGenerator(name = SECUENCIA_ID, sequenceName = SECUENCIA_ID, allocationSize = INCREMENTO_SECUENCIA_ID)
     @Column(name = "id_tracking")
     private Long idTracking;
     
@@ -21,17 +36,22 @@ public class UbicacionTiempoReal {
     @JoinColumn(name = "id_viaje", nullable = false)
     private Viaje viaje;
     
-    @Column(name = "latitud", nullable = false, precision = 10, scale = 8)
-    private BigDecimal latitud;
+    /**
+     * Coordenadas como double en memoria: la columna sigue siendo numeric(10,8)
+     * y un double conserva los 10 dígitos significativos sin crear BigDecimal
+     * al hidratar la entidad.
+     */
+    @Column(name = "latitud", nullable = false, columnDefinition = "numeric(10,8)")
+    private double latitud;
     
-    @Column(name = "longitud", nullable = false, precision = 11, scale = 8)
-    private BigDecimal longitud;
+    @Column(name = "longitud", nullable = false, columnDefinition = "numeric(11,8)")
+    private double longitud;
     
-    @Column(name = "velocidad_kmh", precision = 5, scale = 2)
-    private BigDecimal velocidadKmh;
+    @Column(name = "velocidad_kmh", columnDefinition = "numeric(5,2)")
+    private Double velocidadKmh;
     
-    @Column(name = "rumbo", precision = 5, scale = 2)
-    private BigDecimal rumbo;
+    @Column(name = "rumbo", columnDefinition = "numeric(5,2)")
+    private Double rumbo;
     
     @Column(name = "fecha_registro", nullable = false)
     private OffsetDateTime fechaRegistro;
@@ -46,8 +66,8 @@ public class UbicacionTiempoReal {
     // Constructors
     public UbicacionTiempoReal() {}
     
-    public UbicacionTiempoReal(Viaje viaje, BigDecimal latitud, BigDecimal longitud, 
-                               BigDecimal velocidadKmh, BigDecimal rumbo, OffsetDateTime fechaRegistro) {
+    public UbicacionTiempoReal(Viaje viaje, double latitud, double longitud, 
+                               Double velocidadKmh, Double rumbo, OffsetDateTime fechaRegistro) {
         this.viaje = viaje;
         this.latitud = latitud;
         this.longitud = longitud;
@@ -73,35 +93,35 @@ public class UbicacionTiempoReal {
         this.viaje = viaje;
     }
     
-    public BigDecimal getLatitud() {
+    public double getLatitud() {
         return latitud;
     }
     
-    public void setLatitud(BigDecimal latitud) {
+    public void setLatitud(double latitud) {
         this.latitud = latitud;
     }
     
-    public BigDecimal getLongitud() {
+    public double getLongitud() {
         return longitud;
     }
     
-    public void setLongitud(BigDecimal longitud) {
+    public void setLongitud(double longitud) {
         this.longitud = longitud;
     }
     
-    public BigDecimal getVelocidadKmh() {
+    public Double getVelocidadKmh() {
         return velocidadKmh;
     }
     
-    public void setVelocidadKmh(BigDecimal velocidadKmh) {
+    public void setVelocidadKmh(Double velocidadKmh) {
         this.velocidadKmh = velocidadKmh;
     }
     
-    public BigDecimal getRumbo() {
+    public Double getRumbo() {
         return rumbo;
     }
     
-    public void setRumbo(BigDecimal rumbo) {
+    public void setRumbo(Double rumbo) {
         this.rumbo = rumbo;
     }
     
@@ -0,0 +1,11 @@
+package com.nettalco.backendappservicios.exceptions;
+
+/**
+ * El bus autenticado por el token de dispositivo no es el asignado al viaje o al equipo de la ingesta
+ */
+public class DispositivoNoAutorizadoException extends RuntimeException {
+    
+    public DispositivoNoAutorizadoException(String mensaje) {
+        super(mensaje);
+    }
+}
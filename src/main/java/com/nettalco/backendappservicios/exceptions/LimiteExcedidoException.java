@@ -0,0 +1,25 @@
+package com.nettalco.backendappservicios.exceptions;
+
+/**
+ * Un equipo excedió su límite de tasa de ingesta; lleva la espera sugerida antes de reintentar
+ */
+public class LimiteExcedidoException extends RuntimeException {
+    
+    private final long esperaMs;
+    
+    public LimiteExcedidoException(String mensaje, long esperaMs) {
+        super(mensaje);
+        this.esperaMs = esperaMs;
+    }
+    
+    public long getEsperaMs() {
+        return esperaMs;
+    }
+    
+    /**
+     * Valor para el header Retry-After: segundos enteros, al menos 1
+     */
+    public long getSegundosReintento() {
+        return Math.max(1, (esperaMs + 999) / 1000);
+    }
+}
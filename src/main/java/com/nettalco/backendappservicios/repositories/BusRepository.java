@@ -1,9 +1,13 @@
 package com.nettalco.backendappservicios.repositories;
 
+import com.nettalco.backendappservicios.dtos.TokenDispositivo;
 import com.nettalco.backendappservicios.entities.Bus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,5 +16,18 @@ public interface BusRepository extends JpaRepository<Bus, Integer> {
     Optional<Bus> findByPlaca(String placa);
     
     boolean existsByPlaca(String placa);
+    
+    /**
+     * ID del bus al que está asignado un equipo GPS (ingesta binaria por IMEI)
+     */
+    @Query("SELECT b.idBus FROM Bus b WHERE b.imeiGps = :imei")
+    List<Integer> findIdsByImeiGps(@Param("imei") String imei);
+    
+    /**
+     * Hashes de los tokens de equipos GPS registrados (autenticación de la ingesta)
+     */
+    @Query("SELECT new com.nettalco.backendappservicios.dtos.TokenDispositivo(b.tokenDispositivoHash, b.idBus) "
+        + "FROM Bus b WHERE b.tokenDispositivoHash IS NOT NULL")
+    List<TokenDispositivo> findTokensDispositivo();
 }
 
@@ -4,6 +4,8 @@ import com.nettalco.backendappservicios.entities.ConductorDetalle;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +17,9 @@ public interface ConductorDetalleRepository extends JpaRepository<ConductorDetal
      * @return Optional con el ConductorDetalle si existe
      */
     Optional<ConductorDetalle> findByIdUsuarioGestion(Integer idUsuarioGestion);
+    
+    /**
+     * Busca varios conductores en una sola consulta (IN)
+     */
+    List<ConductorDetalle> findByIdUsuarioGestionIn(Collection<Integer> idsUsuarioGestion);
 }
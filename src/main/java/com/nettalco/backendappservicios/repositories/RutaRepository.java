@@ -6,14 +6,43 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RutaRepository extends JpaRepository<Ruta, Integer> {
     
+    /**
+     * md5 del contenido persistido de cada ruta (datos y puntos en orden); cambia con
+     * cualquier modificación, hecha desde este backend, otra instancia o la base de datos
+     */
+    String SELECT_HUELLAS = "SELECT r.id_ruta AS \"idRuta\", md5(concat_ws('|', "
+        + "quote_nullable(r.nombre), quote_nullable(r.descripcion), quote_nullable(r.color_mapa), quote_nullable(r.estado), "
+        + "(SELECT string_agg(concat_ws(',', p.id_punto, p.orden, p.latitud, p.longitud, "
+        + "quote_nullable(p.nombre_paradero), quote_nullable(p.es_paradero_oficial)), ';' ORDER BY p.orden, p.id_punto) "
+        + "FROM ruta_puntos p WHERE p.id_ruta = r.id_ruta))) AS \"huella\" FROM rutas r";
+    
+    interface HuellaRuta {
+        Integer getIdRuta();
+        
+        String getHuella();
+    }
+    
     @Query("SELECT r FROM Ruta r LEFT JOIN FETCH r.puntos WHERE r.idRuta = :id")
     Optional<Ruta> findByIdWithPuntos(@Param("id") Integer id);
     
+    /**
+     * Todas las rutas con sus puntos en una sola consulta
+     */
+    @Query("SELECT DISTINCT r FROM Ruta r LEFT JOIN FETCH r.puntos")
+    List<Ruta> findAllWithPuntos();
+    
     boolean existsByNombre(String nombre);
+    
+    @Query(value = SELECT_HUELLAS, nativeQuery = true)
+    List<HuellaRuta> findHuellas();
+    
+    @Query(value = SELECT_HUELLAS + " WHERE r.id_ruta = :id", nativeQuery = true)
+    Optional<HuellaRuta> findHuellaById(@Param("id") Integer id);
 }
 
@@ -0,0 +1,91 @@
+package com.nettalco.backendappservicios.repositories;
+
+import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.CursorTrack;
+import com.nettalco.backendappservicios.dtos.ParticionUbicacion;
+import com.nettalco.backendappservicios.dtos.PuntoTrackResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Operaciones masivas sobre ubicaciones_tiempo_real que no
+ * pasan por el EntityManager
+ */
+public interface UbicacionTiempoRealRepositoryCustom {
+    
+    /**
+     * Inserta las ubicaciones con sentencias INSERT multi-fila
+     * @param registros Ubicaciones ya validadas
+     * @return IDs generados, en el mismo orden que los registros
+     */
+    List<Long> insertarLote(List<UbicacionRegistro> registros);
+    
+    /**
+     * Recorre una página del historial de un viaje ordenada por (fecha_registro, id_tracking),
+     * entregando cada fila al consumidor a medida que se lee del ResultSet
+     * @param desde Inclusive, opcional
+     * @param hasta Exclusivo, opcional
+     * @param despues Cursor keyset: solo filas posteriores a él, opcional
+     * @return Cantidad de filas entregadas
+     */
+    int recorrerTrack(Integer idViaje, OffsetDateTime desde, OffsetDateTime hasta,
+                      CursorTrack despues, int limite, Consumer<PuntoTrackResponse> consumidor);
+    
+    /**
+     * Última ubicación registrada de un viaje: top-1 sobre idx_gps_viaje_fecha,
+     * proyectada sin cargar la entidad
+     */
+    Optional<BusLocationResponse> buscarUltimaUbicacion(Integer idViaje);
+    
+    /**
+     * Indica si la tabla ya fue migrada a particionado por rango
+     * (scripts/particionar_ubicaciones_tiempo_real_postgres.sql)
+     */
+    boolean esTablaParticionada();
+    
+    /**
+     * Particiones de rango existentes; las que no tienen límites de fecha
+     * (DEFAULT, MAXVALUE) no se incluyen
+     */
+    List<ParticionUbicacion> listarParticiones();
+    
+    /**
+     * @return false si ya existía una tabla con ese nombre
+     */
+    boolean crearParticion(ParticionUbicacion particion);
+    
+    /**
+     * @return false si la tabla ya tenía partición DEFAULT
+     */
+    boolean crearParticionDefecto();
+    
+    /**
+     * Borra de la partición DEFAULT las filas anteriores a la fecha
+     * @return Filas borradas (0 si no hay partición DEFAULT)
+     */
+    int depurarParticionDefecto(OffsetDateTime antesDe);
+    
+    /**
+     * Separa la partición de la tabla (fuera de una transacción). Sin partición DEFAULT
+     * usa DETACH CONCURRENTLY, que no bloquea la ingesta; PostgreSQL no lo permite si
+     * existe una DEFAULT (ni antes de la versión 14), y entonces se usa un DETACH común
+     * que espera el bloqueo como máximo {@code lockTimeoutMs}.
+     * Un DETACH CONCURRENTLY interrumpido se completa con FINALIZE.
+     */
+    void separarParticion(String nombre, long lockTimeoutMs);
+    
+    /**
+     * Tablas con el prefijo dado que no son partición de la tabla
+     * (separadas en una ejecución anterior que no llegó a eliminarlas)
+     */
+    List<String> listarTablasSeparadas(String prefijo);
+    
+    /**
+     * Elimina una tabla ya separada de la tabla particionada
+     */
+    void eliminarParticion(String nombre);
+}
@@ -0,0 +1,297 @@
+package com.nettalco.backendappservicios.repositories;
+
+import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.CursorTrack;
+import com.nettalco.backendappservicios.dtos.ParticionUbicacion;
+import com.nettalco.backendappservicios.dtos.PuntoTrackResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.entities.UbicacionTiempoReal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class UbicacionTiempoRealRepositoryCustomImpl implements UbicacionTiempoRealRepositoryCustom {
+    
+    private static final String INSERT_BASE = "INSERT INTO ubicaciones_tiempo_real " +
+        "(id_tracking, id_viaje, latitud, longitud, velocidad_kmh, rumbo, fecha_registro) VALUES ";
+    
+    private static final String FILA = "(?, ?, ?, ?, ?, ?, ?)";
+    
+    // Cada nextval reserva un bloque [valor, valor + incremento - 1], igual que
+    // el optimizador pooled-lo que usa Hibernate sobre la misma secuencia
+    private static final String RESERVAR_BLOQUES = "SELECT nextval('" + UbicacionTiempoReal.SECUENCIA_ID + "') " +
+        "FROM generate_series(1, ?)";
+    
+    // PostgreSQL admite hasta 32767 parámetros por sentencia (7 por fila)
+    private static final int FILAS_POR_SENTENCIA = 1000;
+    
+    private static final String SELECT_TRACK = "SELECT id_tracking, latitud, longitud, velocidad_kmh, rumbo, fecha_registro " +
+        "FROM ubicaciones_tiempo_real WHERE id_viaje = ?";
+    
+    // Mismo orden que idx_gps_viaje_fecha: se resuelve leyendo una sola entrada del índice
+    private static final String SELECT_ULTIMA = "SELECT latitud, longitud, rumbo, velocidad_kmh, fecha_registro " +
+        "FROM ubicaciones_tiempo_real WHERE id_viaje = ? " +
+        "ORDER BY fecha_registro DESC, id_tracking DESC LIMIT 1";
+    
+    private static final String TABLA = "ubicaciones_tiempo_real";
+    
+    private static final String PARTICION_DEFECTO = TABLA + "_default";
+    
+    private static final String SELECT_PARTICION_DEFECTO = "SELECT partdefid::regclass::text " +
+        "FROM pg_partitioned_table WHERE partrelid = '" + TABLA + "'::regclass AND partdefid <> 0";
+    
+    // Los límites se extraen de la expresión FOR VALUES FROM (...) TO (...) de cada partición
+    private static final String SELECT_PARTICIONES = "SELECT c.relname, " +
+        "substring(pg_get_expr(c.relpartbound, c.oid) FROM 'FROM \\(''([^'']+)''\\)')::timestamptz, " +
+        "substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \\(''([^'']+)''\\)')::timestamptz " +
+        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+        "WHERE i.inhparent = '" + TABLA + "'::regclass";
+    
+    // Dentro de una transacción el driver de PostgreSQL lee por cursor en bloques de este tamaño
+    private static final int FETCH_SIZE_TRACK = 500;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public List<Long> insertarLote(List<UbicacionRegistro> registros) {
+        List<Long> ids = reservarIds(registros.size());
+        for (int desde = 0; desde < registros.size(); desde += FILAS_POR_SENTENCIA) {
+            int hasta = Math.min(desde + FILAS_POR_SENTENCIA, registros.size());
+            insertarBloque(registros.subList(desde, hasta), ids.subList(desde, hasta));
+        }
+        return ids;
+    }
+    
+    private List<Long> reservarIds(int cantidad) {
+        int incremento = UbicacionTiempoReal.INCREMENTO_SECUENCIA_ID;
+        int bloques = (cantidad + incremento - 1) / incremento;
+        List<Long> inicios = jdbcTemplate.queryForList(RESERVAR_BLOQUES, Long.class, bloques);
+        
+        List<Long> ids = new ArrayList<>(cantidad);
+        for (Long inicio : inicios) {
+            for (int i = 0; i < incremento && ids.size() < cantidad; i++) {
+                ids.add(inicio + i);
+            }
+        }
+        return ids;
+    }
+    
+    private void insertarBloque(List<UbicacionRegistro> bloque, List<Long> ids) {
+        StringBuilder sql = new StringBuilder(INSERT_BASE.length() + bloque.size() * (FILA.length() + 1));
+        sql.append(INSERT_BASE);
+        for (int i = 0; i < bloque.size(); i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(FILA);
+        }
+        
+        jdbcTemplate.update(sql.toString(), ps -> {
+            int idx = 1;
+            for (int i = 0; i < bloque.size(); i++) {
+                UbicacionRegistro registro = bloque.get(i);
+                ps.setLong(idx++, ids.get(i));
+                ps.setInt(idx++, registro.idViaje());
+                ps.setDouble(idx++, registro.latitud());
+                ps.setDouble(idx++, registro.longitud());
+                establecerDoubleNullable(ps, idx++, registro.velocidadKmh());
+                establecerDoubleNullable(ps, idx++, registro.rumbo());
+                ps.setObject(idx++, registro.fechaRegistro());
+            }
+        });
+    }
+    
+    @Override
+    public int recorrerTrack(Integer idViaje, OffsetDateTime desde, OffsetDateTime hasta,
+                             CursorTrack despues, int limite, Consumer<PuntoTrackResponse> consumidor) {
+        StringBuilder sql = new StringBuilder(SELECT_TRACK);
+        List<Object> parametros = new ArrayList<>(6);
+        parametros.add(idViaje);
+        if (desde != null) {
+            sql.append(" AND fecha_registro >= ?");
+            parametros.add(desde);
+        }
+        if (hasta != null) {
+            sql.append(" AND fecha_registro < ?");
+            parametros.add(hasta);
+        }
+        if (despues != null) {
+            sql.append(" AND (fecha_registro, id_tracking) > (?, ?)");
+            parametros.add(despues.fechaRegistro());
+            parametros.add(despues.idTracking());
+        }
+        sql.append(" ORDER BY fecha_registro, id_tracking LIMIT ?");
+        parametros.add(limite);
+        
+        int[] filas = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            ps.setFetchSize(FETCH_SIZE_TRACK);
+            for (int i = 0; i < parametros.size(); i++) {
+                ps.setObject(i + 1, parametros.get(i));
+            }
+            return ps;
+        }, (ResultSet rs) -> {
+            consumidor.accept(mapearPuntoTrack(rs));
+            filas[0]++;
+        });
+        return filas[0];
+    }
+    
+    @Override
+    public Optional<BusLocationResponse> buscarUltimaUbicacion(Integer idViaje) {
+        List<BusLocationResponse> filas = jdbcTemplate.query(SELECT_ULTIMA, (rs, i) -> new BusLocationResponse(
+            rs.getDouble(1),
+            rs.getDouble(2),
+            obtenerDoubleNullable(rs, 3),
+            obtenerDoubleNullable(rs, 4),
+            rs.getObject(5, OffsetDateTime.class)
+        ), idViaje);
+        return filas.stream().findFirst();
+    }
+    
+    private static PuntoTrackResponse mapearPuntoTrack(ResultSet rs) throws SQLException {
+        return new PuntoTrackResponse(
+            rs.getLong(1),
+            rs.getDouble(2),
+            rs.getDouble(3),
+            obtenerDoubleNullable(rs, 4),
+            obtenerDoubleNullable(rs, 5),
+            rs.getObject(6, OffsetDateTime.class)
+        );
+    }
+    
+    // Se envían como float8; PostgreSQL los redondea a la escala de la columna numeric al insertar
+    private static void establecerDoubleNullable(PreparedStatement ps, int indice, Double valor) throws SQLException {
+        if (valor == null) {
+            ps.setNull(indice, Types.DOUBLE);
+        } else {
+            ps.setDouble(indice, valor);
+        }
+    }
+    
+    // getDouble evita crear un BigDecimal por columna
+    private static Double obtenerDoubleNullable(ResultSet rs, int columna) throws SQLException {
+        double valor = rs.getDouble(columna);
+        return rs.wasNull() ? null : valor;
+    }
+    
+    @Override
+    public boolean esTablaParticionada() {
+        List<String> tipos = jdbcTemplate.queryForList(
+            "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, TABLA);
+        return !tipos.isEmpty() && "p".equals(tipos.get(0));
+    }
+    
+    @Override
+    public List<ParticionUbicacion> listarParticiones() {
+        List<ParticionUbicacion> particiones = new ArrayList<>();
+        jdbcTemplate.query(SELECT_PARTICIONES, (ResultSet rs) -> {
+            OffsetDateTime desde = rs.getObject(2, OffsetDateTime.class);
+            OffsetDateTime hasta = rs.getObject(3, OffsetDateTime.class);
+            if (desde != null && hasta != null) {
+                particiones.add(new ParticionUbicacion(rs.getString(1), desde, hasta));
+            }
+        });
+        return particiones;
+    }
+    
+    @Override
+    public boolean crearParticion(ParticionUbicacion particion) {
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, particion.nombre())) {
+            return false;
+        }
+        // DDL sin parámetros: el nombre lo genera la aplicación y los límites son fechas ISO
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + identificador(particion.nombre()) +
+            " PARTITION OF " + TABLA +
+            " FOR VALUES FROM ('" + particion.desde() + "') TO ('" + particion.hasta() + "')");
+        return true;
+    }
+    
+    @Override
+    public boolean crearParticionDefecto() {
+        if (!jdbcTemplate.queryForList(SELECT_PARTICION_DEFECTO, String.class).isEmpty()) {
+            return false;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + PARTICION_DEFECTO + " PARTITION OF " + TABLA + " DEFAULT");
+        return true;
+    }
+    
+    @Override
+    public int depurarParticionDefecto(OffsetDateTime antesDe) {
+        List<String> nombres = jdbcTemplate.queryForList(SELECT_PARTICION_DEFECTO, String.class);
+        if (nombres.isEmpty()) {
+            return 0;
+        }
+        // Nombre tomado del catálogo (ya viene entrecomillado si hace falta)
+        return jdbcTemplate.update("DELETE FROM " + nombres.get(0) + " WHERE fecha_registro < ?", antesDe);
+    }
+    
+    @Override
+    public void separarParticion(String nombre, long lockTimeoutMs) {
+        String particion = identificador(nombre);
+        List<Boolean> pendiente = jdbcTemplate.queryForList(
+            "SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass(?)", Boolean.class, particion);
+        if (pendiente.isEmpty()) {
+            return;
+        }
+        if (pendiente.get(0)) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLA + " DETACH PARTITION " + particion + " FINALIZE");
+            return;
+        }
+        Integer version = jdbcTemplate.queryForObject("SELECT current_setting('server_version_num')::int", Integer.class);
+        if (version != null && version >= 140000 && jdbcTemplate.queryForList(SELECT_PARTICION_DEFECTO, String.class).isEmpty()) {
+            // No admite transacción: con autocommit cada sentencia va por separado
+            jdbcTemplate.execute("ALTER TABLE " + TABLA + " DETACH PARTITION " + particion + " CONCURRENTLY");
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) conexion -> {
+            boolean autoCommit = conexion.getAutoCommit();
+            conexion.setAutoCommit(false);
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("SET LOCAL lock_timeout = " + Math.max(1, lockTimeoutMs));
+                sentencia.execute("ALTER TABLE " + TABLA + " DETACH PARTITION " + particion);
+                conexion.commit();
+            } catch (SQLException e) {
+                conexion.rollback();
+                throw e;
+            } finally {
+                conexion.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+    
+    @Override
+    public List<String> listarTablasSeparadas(String prefijo) {
+        return jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_class c " +
+            "WHERE c.relkind = 'r' AND NOT c.relispartition AND starts_with(c.relname, ?) " +
+            "AND c.relnamespace = (SELECT t.relnamespace FROM pg_class t WHERE t.oid = to_regclass(?))",
+            String.class, prefijo, TABLA);
+    }
+    
+    @Override
+    public void eliminarParticion(String nombre) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + identificador(nombre));
+    }
+    
+    private static String identificador(String nombre) {
+        if (!nombre.matches("[a-z0-9_]+")) {
+            throw new IllegalArgumentException("Nombre de partición inválido: " + nombre);
+        }
+        return nombre;
+    }
+}
@@ -1,19 +1,40 @@
 package com.nettalco.backendappservicios.repositories;
 
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
 import com.nettalco.backendappservicios.entities.Viaje;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ViajeRepository extends JpaRepository<Viaje, Integer> {
     
-    @Query("SELECT v FROM Viaje v WHERE v.idViaje = :id AND v.estado = 'en_curso'")
-    Optional<Viaje> findByIdAndActivo(@Param("id") Integer id);
+    @Query("SELECT new com.nettalco.backendappservicios.dtos.EstadoViaje(v.idViaje, v.ruta.idRuta, v.bus.idBus, v.estado) " +
+           "FROM Viaje v WHERE v.idViaje = :id")
+    Optional<EstadoViaje> findEstadoViajeById(@Param("id") Integer id);
+    
+    @Query("SELECT new com.nettalco.backendappservicios.dtos.EstadoViaje(v.idViaje, v.ruta.idRuta, v.bus.idBus, v.estado) " +
+           "FROM Viaje v WHERE v.idViaje IN :ids")
+    List<EstadoViaje> findEstadosViajeByIds(@Param("ids") Collection<Integer> ids);
+    
+    /**
+     * Todos los viajes en curso como proyección ligera, para la caché de estados
+     */
+    @Query("SELECT new com.nettalco.backendappservicios.dtos.EstadoViaje(v.idViaje, v.ruta.idRuta, v.bus.idBus, v.estado) " +
+           "FROM Viaje v WHERE v.estado = 'en_curso'")
+    List<EstadoViaje> findEstadosEnCurso();
+    
+    /**
+     * Viajes en curso de un bus, el más reciente primero
+     */
+    @Query("SELECT new com.nettalco.backendappservicios.dtos.EstadoViaje(v.idViaje, v.ruta.idRuta, v.bus.idBus, v.estado) " +
+           "FROM Viaje v WHERE v.bus.idBus = :idBus AND v.estado = 'en_curso' ORDER BY v.idViaje DESC")
+    List<EstadoViaje> findEstadosEnCursoByBus(@Param("idBus") Integer idBus);
     
     @Query("SELECT v FROM Viaje v " +
            "LEFT JOIN FETCH v.ruta r " +
@@ -29,6 +50,12 @@ public interface ViajeRepository extends JpaRepository<Viaje, Integer> {
            "ORDER BY v.fechaInicioProgramada ASC")
     List<Viaje> findByRutaIdAndActivos(@Param("idRuta") Integer idRuta);
     
+    @Query("SELECT v.ruta.idRuta FROM Viaje v WHERE v.idViaje = :id")
+    Optional<Integer> findIdRutaById(@Param("id") Integer id);
+    
+    @Query("SELECT v.estado FROM Viaje v WHERE v.idViaje = :id")
+    Optional<String> findEstadoById(@Param("id") Integer id);
+    
     boolean existsByIdViaje(Integer idViaje);
 }
 
@@ -0,0 +1,89 @@
+package com.nettalco.backendappservicios.security;
+
+import com.nettalco.backendappservicios.servicesinterfaces.IDispositivoGpsService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService.ClaseDispositivo;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService.Origen;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Autentica y limita los POST de ingesta GPS antes de leer el cuerpo.
+ * Si {@code gps.dispositivos.autenticacion.habilitada} está activo exige el token
+ * precompartido del equipo (header X-Device-Token) y el ID del bus autenticado queda
+ * en el atributo {@link #ATRIBUTO_ID_BUS} de la petición; GPSController rechaza con 403
+ * las ubicaciones de viajes o equipos de otro bus.
+ * El límite de tasa se aplica por bus si hay token y por IP si no. Aquí se descuenta
+ * una fijación por petición; la clase y la clave quedan en {@link #ATRIBUTO_ORIGEN}
+ * para que los lotes descuenten el resto de sus fijaciones al leer el cuerpo.
+ * No es un @Component para que no se registre también como filtro del servlet.
+ */
+public class DispositivoGpsAuthFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER_TOKEN = "X-Device-Token";
+    public static final String ATRIBUTO_ID_BUS = "gps.idBusDispositivo";
+    public static final String ATRIBUTO_ORIGEN = "gps.origenIngesta";
+    
+    private static final byte[] CUERPO_NO_AUTORIZADO =
+        "{\"error\":\"Token de dispositivo inválido o ausente\"}".getBytes(StandardCharsets.UTF_8);
+    
+    private static final byte[] CUERPO_LIMITE_EXCEDIDO =
+        "{\"error\":\"Límite de ingesta excedido, reintente más tarde\"}".getBytes(StandardCharsets.UTF_8);
+    
+    private final IDispositivoGpsService dispositivoService;
+    private final ILimiteIngestaService limiteService;
+    
+    public DispositivoGpsAuthFilter(IDispositivoGpsService dispositivoService, ILimiteIngestaService limiteService) {
+        this.dispositivoService = dispositivoService;
+        this.limiteService = limiteService;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+            || !request.getServletPath().startsWith("/api/gps/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain)
+            throws ServletException, IOException {
+        Origen origen;
+        if (dispositivoService.autenticacionHabilitada()) {
+            Optional<Integer> idBus = dispositivoService.autenticar(request.getHeader(HEADER_TOKEN));
+            if (idBus.isEmpty()) {
+                escribirError(response, HttpServletResponse.SC_UNAUTHORIZED, CUERPO_NO_AUTORIZADO);
+                return;
+            }
+            request.setAttribute(ATRIBUTO_ID_BUS, idBus.get());
+            origen = new Origen(ClaseDispositivo.BUS, idBus.get().toString());
+        } else {
+            origen = new Origen(ClaseDispositivo.IP, request.getRemoteAddr());
+        }
+        request.setAttribute(ATRIBUTO_ORIGEN, origen);
+        long esperaMs = limiteService.reservar(origen.clase(), origen.clave(), 1);
+        if (esperaMs > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (esperaMs + 999) / 1000)));
+            escribirError(response, 429, CUERPO_LIMITE_EXCEDIDO);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+    
+    private static void escribirError(HttpServletResponse response, int estado, byte[] cuerpo) throws IOException {
+        response.setStatus(estado);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(cuerpo);
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 
 /**
  * Filtro que intercepta todas las peticiones HTTP para validar el token JWT
@@ -37,6 +38,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             || path.startsWith("/api/gps/") // GPS público
             || path.startsWith("/api/rutas/") // Rutas públicas
             || path.startsWith("/api/trips/") // Viajes públicos
+            || path.startsWith("/ws/") // WebSocket de flota
             || path.startsWith("/api/health") // Health check
             || path.startsWith("/actuator/health"); // Actuator health
     }
@@ -56,13 +58,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
             
             try {
-                // Validar el token
-                if (jwtUtil.validateToken(token)) {
-                    // Extraer información del usuario del token
-                    String username = jwtUtil.extractUsername(token);
-                    Integer idUsuario = jwtUtil.extractIdUsuario(token);
-                    Integer idRol = jwtUtil.extractIdRol(token);
-                    String nombreRol = jwtUtil.extractNombreRol(token);
+                // Validar el token y extraer la información del usuario (una sola verificación)
+                Optional<JwtUtil.DatosToken> datos = jwtUtil.parsear(token);
+                if (datos.isPresent()) {
+                    String username = datos.get().username();
+                    Integer idUsuario = datos.get().idUsuario();
+                    Integer idRol = datos.get().idRol();
+                    String nombreRol = datos.get().nombreRol();
                     
                     // Crear objeto de autenticación
                     UsernamePasswordAuthenticationToken authToken = 
@@ -0,0 +1,277 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.GPSIngestaRequest;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.servicesinterfaces.IBufferUbicacionService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.servicesinterfaces.IUbicacionTiempoRealService;
+import com.nettalco.backendappservicios.servicesinterfaces.IUbicacionesFallidasService;
+import com.nettalco.backendappservicios.util.EjecutorVirtualAcotado;
+import com.nettalco.backendappservicios.util.RingBufferMpsc;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Buffer write-behind de ubicaciones GPS.
+ * Los requests solo encolan en un ring buffer sin locks; un único hilo flusher
+ * lo vacía cada {@code gps.buffer.intervalo-flush-ms} o en cuanto se acumulan
+ * {@code gps.buffer.lote-max} ubicaciones, y entrega cada lote al executor
+ * virtualThreadExecutor, que lo persiste con INSERT multi-fila.
+ * Hay como máximo {@code gps.buffer.lotes-concurrentes} lotes en vuelo; con ese
+ * límite alcanzado el flusher se detiene, el ring buffer se llena y los requests
+ * reciben 429. Si el executor rechaza el lote, el flusher lo persiste él mismo
+ * con un permiso del executor, sin superar su límite de conexiones.
+ * Al detener la aplicación se deja de aceptar y se drena lo pendiente.
+ * Si un lote no se puede persistir, sus ubicaciones de viajes en curso se escriben
+ * en el diario de ubicaciones fallidas, que las reintenta en segundo plano.
+ */
+@Service
+public class BufferUbicacionService implements IBufferUbicacionService, SmartLifecycle {
+    
+    private static final Logger log = LoggerFactory.getLogger(BufferUbicacionService.class);
+    
+    @Autowired
+    private IUbicacionTiempoRealService ubicacionService;
+    
+    @Autowired
+    private IUbicacionesFallidasService fallidasService;
+    
+    @Autowired
+    private IEstadoViajeService estadoViajeService;
+    
+    @Autowired
+    private EjecutorVirtualAcotado virtualThreadExecutor;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.buffer.capacidad:16384}")
+    private int capacidad;
+    
+    @Value("${gps.buffer.lote-max:500}")
+    private int loteMax;
+    
+    @Value("${gps.buffer.lotes-concurrentes:4}")
+    private int lotesConcurrentes;
+    
+    @Value("${gps.buffer.intervalo-flush-ms:250}")
+    private long intervaloFlushMs;
+    
+    @Value("${gps.buffer.espera-drenaje-segundos:30}")
+    private long esperaDrenajeSegundos;
+    
+    private RingBufferMpsc<UbicacionRegistro> buffer;
+    private Semaphore lotesEnVuelo;
+    private volatile Thread flusher;
+    private volatile boolean aceptando;
+    private volatile boolean ejecutando;
+    
+    private Counter rechazadas;
+    private Counter persistidas;
+    private Counter descartadas;
+    private Counter perdidas;
+    private Timer latenciaFlush;
+    
+    @PostConstruct
+    void inicializar() {
+        buffer = new RingBufferMpsc<>(capacidad);
+        lotesEnVuelo = new Semaphore(lotesConcurrentes);
+        
+        Gauge.builder("gps.buffer.profundidad", buffer, RingBufferMpsc::size)
+            .description("Ubicaciones pendientes de persistir")
+            .register(meterRegistry);
+        Gauge.builder("gps.buffer.capacidad", buffer, RingBufferMpsc::capacidad)
+            .register(meterRegistry);
+        rechazadas = Counter.builder("gps.buffer.rechazadas")
+            .description("Ubicaciones rechazadas con 429 por buffer lleno")
+            .register(meterRegistry);
+        persistidas = Counter.builder("gps.buffer.persistidas")
+            .register(meterRegistry);
+        descartadas = Counter.builder("gps.buffer.descartadas")
+            .description("Ubicaciones de viajes inexistentes o que ya no están en curso")
+            .register(meterRegistry);
+        perdidas = Counter.builder("gps.buffer.perdidas")
+            .description("Ubicaciones de lotes cuyo flush falló y no se pudieron escribir en el diario")
+            .register(meterRegistry);
+        latenciaFlush = Timer.builder("gps.buffer.flush")
+            .description("Latencia de persistencia de cada lote")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public boolean encolar(GPSIngestaRequest request) {
+        if (!aceptando) {
+            rechazadas.increment();
+            return false;
+        }
+        UbicacionRegistro registro = new UbicacionRegistro(
+            request.idViaje(),
+            request.latitud(),
+            request.longitud(),
+            request.velocidadKmh(),
+            request.rumbo(),
+            OffsetDateTime.now()
+        );
+        if (!buffer.offer(registro)) {
+            rechazadas.increment();
+            return false;
+        }
+        if (buffer.size() >= loteMax) {
+            // Lote completo: despertar al flusher sin esperar el intervalo
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+    
+    @Override
+    public int profundidad() {
+        return buffer.size();
+    }
+    
+    private void ejecutarFlusher() {
+        long intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloFlushMs);
+        while (ejecutando) {
+            if (buffer.size() < loteMax) {
+                LockSupport.parkNanos(this, intervaloNanos);
+            }
+            while (flush() == loteMax) {
+                // Seguir vaciando mientras haya lotes completos
+            }
+        }
+        // Drenaje final al detener la aplicación
+        while (flush() > 0) {
+            // Vaciar todo lo pendiente
+        }
+        // Esperar los lotes que siguen persistiéndose
+        lotesEnVuelo.acquireUninterruptibly(lotesConcurrentes);
+        lotesEnVuelo.release(lotesConcurrentes);
+    }
+    
+    /**
+     * Extrae hasta {@code loteMax} ubicaciones del buffer y las entrega al executor;
+     * bloquea mientras haya {@code gps.buffer.lotes-concurrentes} lotes en vuelo
+     * @return Cantidad de ubicaciones extraídas del buffer
+     */
+    private int flush() {
+        List<UbicacionRegistro> lote = new ArrayList<>(Math.min(loteMax, buffer.size()));
+        int extraidas = buffer.drenar(loteMax, lote::add);
+        if (extraidas == 0) {
+            return 0;
+        }
+        lotesEnVuelo.acquireUninterruptibly();
+        Runnable tarea = () -> {
+            try {
+                persistir(lote);
+            } finally {
+                lotesEnVuelo.release();
+            }
+        };
+        try {
+            virtualThreadExecutor.execute(tarea);
+        } catch (RejectedExecutionException e) {
+            // Executor saturado o cerrado: persistir en el flusher (contrapresión hacia el buffer)
+            virtualThreadExecutor.ejecutarEnLlamador(tarea);
+        }
+        return extraidas;
+    }
+    
+    private void persistir(List<UbicacionRegistro> lote) {
+        int extraidas = lote.size();
+        long inicio = System.nanoTime();
+        try {
+            int guardadas = ubicacionService.registrarUbicacionesPendientes(lote);
+            persistidas.increment(guardadas);
+            descartadas.increment(extraidas - guardadas);
+        } catch (Exception e) {
+            log.error("Error al persistir lote de {} ubicaciones GPS: {}", extraidas, e.getMessage());
+            escribirEnDiario(lote);
+        } finally {
+            latenciaFlush.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Aplica el mismo filtro de viajes en curso que la persistencia normal, para que
+     * el diario no convierta en historial ubicaciones que se habrían descartado.
+     * Si la caché de viajes no puede responder (tampoco llega a la base de datos),
+     * la ubicación se guarda sin verificar y se valida al reinsertarla.
+     */
+    private void escribirEnDiario(List<UbicacionRegistro> lote) {
+        List<UbicacionRegistro> verificadas = new ArrayList<>(lote.size());
+        List<UbicacionRegistro> sinVerificar = new ArrayList<>();
+        for (UbicacionRegistro registro : lote) {
+            try {
+                if (estadoViajeService.estaEnCurso(registro.idViaje())) {
+                    verificadas.add(registro);
+                } else {
+                    descartadas.increment();
+                }
+            } catch (RuntimeException e) {
+                sinVerificar.add(registro);
+            }
+        }
+        if (!fallidasService.registrar(verificadas, sinVerificar)) {
+            perdidas.increment(verificadas.size() + sinVerificar.size());
+        }
+    }
+    
+    @Override
+    public void start() {
+        ejecutando = true;
+        aceptando = true;
+        flusher = Thread.ofVirtual()
+            .name("gps-buffer-flusher")
+            .start(this::ejecutarFlusher);
+    }
+    
+    @Override
+    public void stop() {
+        aceptando = false;
+        ejecutando = false;
+        Thread hilo = flusher;
+        if (hilo == null) {
+            return;
+        }
+        LockSupport.unpark(hilo);
+        try {
+            if (!hilo.join(Duration.ofSeconds(esperaDrenajeSegundos))) {
+                log.warn("El buffer GPS no terminó de drenarse; quedan {} ubicaciones", buffer.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return ejecutando;
+    }
+    
+    /**
+     * Fase menor que la del servidor web: arranca antes de recibir tráfico
+     * y se detiene después de que el servidor deja de aceptar requests,
+     * pero antes de que se cierre el DataSource.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
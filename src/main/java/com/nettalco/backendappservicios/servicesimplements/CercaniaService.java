@@ -0,0 +1,280 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.BusCercanoResponse;
+import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+import com.nettalco.backendappservicios.dtos.ParaderoCercanoResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.entities.Ruta;
+import com.nettalco.backendappservicios.entities.RutaPunto;
+import com.nettalco.backendappservicios.repositories.RutaRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.ICercaniaService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.util.GeometriaRuta;
+import com.nettalco.backendappservicios.util.CacheInvalidable;
+import com.nettalco.backendappservicios.util.RejillaGeografica;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dos índices sobre la misma rejilla de celdas ({@code gps.cercania.celda-m}):
+ * <ul>
+ *   <li>Paraderos: instantánea inmutable celda → paraderos oficiales de las rutas activas.
+ *       Se reconstruye completa, de forma perezosa, después de que una ruta cambia.</li>
+ *   <li>Buses: última posición por viaje en curso y celda → viajes. Se actualiza con
+ *       cada ubicación ingerida; un viaje solo cambia de celda cuando cruza su borde.</li>
+ * </ul>
+ * Una consulta visita las celdas que cubren el radio y calcula la distancia exacta
+ * solo de los elementos de esas celdas.
+ */
+@Service
+public class CercaniaService implements ICercaniaService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CercaniaService.class);
+    
+    @Autowired
+    private RutaRepository rutaRepository;
+    
+    @Autowired
+    private IEstadoViajeService estadoViajeService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.cercania.celda-m:250}")
+    private double tamanoCeldaM;
+    
+    @Value("${gps.cercania.radio-max-m:3000}")
+    private double radioMaxM;
+    
+    @Value("${gps.cercania.limite-max:100}")
+    private int limiteMax;
+    
+    @Value("${gps.cercania.ttl-segundos:600}")
+    private long ttlSegundos;
+    
+    private record Paradero(Integer idRuta, String nombreRuta, Integer orden, String nombre,
+                            double latitud, double longitud) {}
+    
+    private record IndiceParaderos(Map<Long, List<Paradero>> celdas, int cantidad) {}
+    
+    private record EntradaBus(Integer idRuta, long celda, BusLocationResponse ubicacion) {}
+    
+    private RejillaGeografica rejilla;
+    
+    private final CacheInvalidable<IndiceParaderos> indiceParaderos = new CacheInvalidable<>(this::cargarParaderos);
+    
+    private final ConcurrentHashMap<Integer, EntradaBus> buses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Integer>> celdasBuses = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void inicializar() {
+        rejilla = new RejillaGeografica(tamanoCeldaM);
+        Gauge.builder("gps.cercania.buses", buses, ConcurrentHashMap::size)
+            .description("Buses en el índice de cercanía")
+            .register(meterRegistry);
+        Gauge.builder("gps.cercania.paraderos", indiceParaderos, cache -> {
+                IndiceParaderos indice = cache.obtenerSiCargado();
+                return indice != null ? indice.cantidad() : 0;
+            })
+            .description("Paraderos oficiales en el índice de cercanía")
+            .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    void precargarParaderos() {
+        try {
+            indiceParaderos.obtener();
+        } catch (Exception e) {
+            log.warn("No se pudo precargar el índice de paraderos: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public List<ParaderoCercanoResponse> paraderosCercanos(double latitud, double longitud, double radioM, int limite) {
+        validar(latitud, longitud, radioM, limite);
+        Map<Long, List<Paradero>> celdas = indiceParaderos.obtener().celdas();
+        List<ParaderoCercanoResponse> resultado = new ArrayList<>();
+        rejilla.recorrer(latitud, longitud, radioM, clave -> {
+            List<Paradero> paraderos = celdas.get(clave);
+            if (paraderos == null) {
+                return;
+            }
+            for (Paradero paradero : paraderos) {
+                double distancia = GeometriaRuta.distanciaMetros(latitud, longitud, paradero.latitud(), paradero.longitud());
+                if (distancia <= radioM) {
+                    resultado.add(new ParaderoCercanoResponse(
+                        paradero.idRuta(),
+                        paradero.nombreRuta(),
+                        paradero.orden(),
+                        paradero.nombre(),
+                        paradero.latitud(),
+                        paradero.longitud(),
+                        distancia
+                    ));
+                }
+            }
+        });
+        resultado.sort(Comparator.comparingDouble(ParaderoCercanoResponse::distanceMeters));
+        return resultado.size() > limite ? List.copyOf(resultado.subList(0, limite)) : resultado;
+    }
+    
+    @Override
+    public List<BusCercanoResponse> busesCercanos(double latitud, double longitud, double radioM, int limite) {
+        validar(latitud, longitud, radioM, limite);
+        List<BusCercanoResponse> resultado = new ArrayList<>();
+        rejilla.recorrer(latitud, longitud, radioM, clave -> {
+            Set<Integer> viajes = celdasBuses.get(clave);
+            if (viajes == null) {
+                return;
+            }
+            for (Integer idViaje : viajes) {
+                EntradaBus entrada = buses.get(idViaje);
+                // La entrada pudo cambiar de celda desde que se leyó el conjunto
+                if (entrada == null || entrada.celda() != clave) {
+                    continue;
+                }
+                BusLocationResponse ubicacion = entrada.ubicacion();
+                double distancia = GeometriaRuta.distanciaMetros(latitud, longitud, ubicacion.latitude(), ubicacion.longitude());
+                if (distancia <= radioM) {
+                    resultado.add(new BusCercanoResponse(
+                        idViaje,
+                        entrada.idRuta(),
+                        ubicacion.latitude(),
+                        ubicacion.longitude(),
+                        ubicacion.heading(),
+                        ubicacion.speed(),
+                        ubicacion.timestamp(),
+                        distancia
+                    ));
+                }
+            }
+        });
+        resultado.sort(Comparator.comparingDouble(BusCercanoResponse::distanceMeters));
+        return resultado.size() > limite ? List.copyOf(resultado.subList(0, limite)) : resultado;
+    }
+    
+    @Override
+    public void actualizar(List<UbicacionRegistro> registros) {
+        for (UbicacionRegistro registro : registros) {
+            Optional<EstadoViaje> viaje = estadoViajeService.obtenerEnCurso(registro.idViaje());
+            if (viaje.isEmpty()) {
+                continue;
+            }
+            Integer idRuta = viaje.get().idRuta();
+            buses.compute(registro.idViaje(), (idViaje, actual) -> {
+                // Conservar la más reciente aunque los lotes lleguen desordenados
+                if (actual != null && registro.fechaRegistro().isBefore(actual.ubicacion().timestamp())) {
+                    return actual;
+                }
+                long celda = rejilla.clave(registro.latitud(), registro.longitud());
+                if (actual == null || actual.celda() != celda) {
+                    agregarACelda(celda, idViaje);
+                    if (actual != null) {
+                        quitarDeCelda(actual.celda(), idViaje);
+                    }
+                }
+                return new EntradaBus(idRuta, celda, registro.aBusLocationResponse());
+            });
+        }
+    }
+    
+    @Override
+    public void invalidarParaderos() {
+        indiceParaderos.invalidar();
+    }
+    
+    /**
+     * Descarta los buses de viajes que ya no están en curso o dejaron de reportar
+     */
+    @Scheduled(fixedDelayString = "${gps.cercania.verificacion-ms:30000}")
+    void expirarBuses() {
+        if (buses.isEmpty()) {
+            return;
+        }
+        Collection<Integer> enCurso = estadoViajeService.idsEnCurso();
+        OffsetDateTime limite = OffsetDateTime.now().minusSeconds(ttlSegundos);
+        for (Integer idViaje : buses.keySet()) {
+            buses.computeIfPresent(idViaje, (id, entrada) -> {
+                if (enCurso.contains(id) && !entrada.ubicacion().timestamp().isBefore(limite)) {
+                    return entrada;
+                }
+                quitarDeCelda(entrada.celda(), id);
+                return null;
+            });
+        }
+    }
+    
+    private IndiceParaderos cargarParaderos() {
+        Map<Long, List<Paradero>> celdas = new HashMap<>();
+        int cantidad = 0;
+        for (Ruta ruta : rutaRepository.findAllWithPuntos()) {
+            if (!Boolean.TRUE.equals(ruta.getEstado())) {
+                continue;
+            }
+            for (RutaPunto punto : ruta.getPuntos()) {
+                if (!Boolean.TRUE.equals(punto.getEsParaderoOficial())) {
+                    continue;
+                }
+                Paradero paradero = new Paradero(ruta.getIdRuta(), ruta.getNombre(), punto.getOrden(),
+                    punto.getNombreParadero(), punto.getLatitud(), punto.getLongitud());
+                celdas.computeIfAbsent(rejilla.clave(paradero.latitud(), paradero.longitud()), k -> new ArrayList<>())
+                    .add(paradero);
+                cantidad++;
+            }
+        }
+        Map<Long, List<Paradero>> inmutable = new HashMap<>(celdas.size() * 2);
+        celdas.forEach((clave, paraderos) -> inmutable.put(clave, List.copyOf(paraderos)));
+        log.info("Índice de paraderos cargado: {} paraderos en {} celdas", cantidad, inmutable.size());
+        return new IndiceParaderos(inmutable, cantidad);
+    }
+    
+    private void agregarACelda(long celda, Integer idViaje) {
+        celdasBuses.compute(celda, (k, viajes) -> {
+            if (viajes == null) {
+                viajes = ConcurrentHashMap.newKeySet();
+            }
+            viajes.add(idViaje);
+            return viajes;
+        });
+    }
+    
+    private void quitarDeCelda(long celda, Integer idViaje) {
+        celdasBuses.computeIfPresent(celda, (k, viajes) -> {
+            viajes.remove(idViaje);
+            return viajes.isEmpty() ? null : viajes;
+        });
+    }
+    
+    private void validar(double latitud, double longitud, double radioM, int limite) {
+        if (!(latitud >= -90 && latitud <= 90) || !(longitud >= -180 && longitud <= 180)) {
+            throw new IllegalArgumentException("Coordenadas inválidas");
+        }
+        if (!(radioM > 0 && radioM <= radioMaxM)) {
+            throw new IllegalArgumentException("El radio debe ser mayor que 0 y como máximo " + (long) radioMaxM + " metros");
+        }
+        if (limite < 1 || limite > limiteMax) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + limiteMax);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.entities.ConductorDetalle;
+import com.nettalco.backendappservicios.repositories.ConductorDetalleRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IConductorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de lectura de las licencias de conductores con TTL ({@code gps.conductores.ttl-ms}).
+ * Los IDs sin conductor también se cachean para no consultarlos en cada listado.
+ * Si se llena ({@code gps.conductores.max-cacheados}) se vacía completa.
+ */
+@Service
+public class ConductorService implements IConductorService {
+    
+    private record LicenciaCacheada(String licencia, long expiraNanos) {}
+    
+    @Autowired
+    private ConductorDetalleRepository conductorDetalleRepository;
+    
+    @Value("${gps.conductores.ttl-ms:600000}")
+    private long ttlMs;
+    
+    @Value("${gps.conductores.max-cacheados:10000}")
+    private int maxCacheados;
+    
+    private final ConcurrentHashMap<Integer, LicenciaCacheada> licencias = new ConcurrentHashMap<>();
+    
+    @Override
+    public Map<Integer, String> obtenerLicencias(Collection<Integer> idsUsuarioGestion) {
+        long ahora = System.nanoTime();
+        Map<Integer, String> resultado = new HashMap<>();
+        Set<Integer> pendientes = new HashSet<>();
+        for (Integer id : idsUsuarioGestion) {
+            if (id == null) {
+                continue;
+            }
+            LicenciaCacheada cacheada = licencias.get(id);
+            if (cacheada == null || cacheada.expiraNanos() < ahora) {
+                pendientes.add(id);
+            } else if (cacheada.licencia() != null) {
+                resultado.put(id, cacheada.licencia());
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return resultado;
+        }
+        
+        Map<Integer, String> encontradas = new HashMap<>();
+        for (ConductorDetalle conductor : conductorDetalleRepository.findByIdUsuarioGestionIn(pendientes)) {
+            encontradas.put(conductor.getIdUsuarioGestion(), conductor.getLicenciaNumero());
+        }
+        if (licencias.size() + pendientes.size() > maxCacheados) {
+            licencias.clear();
+        }
+        long expira = ahora + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        for (Integer id : pendientes) {
+            String licencia = encontradas.get(id);
+            licencias.put(id, new LicenciaCacheada(licencia, expira));
+            if (licencia != null) {
+                resultado.put(id, licencia);
+            }
+        }
+        return resultado;
+    }
+}
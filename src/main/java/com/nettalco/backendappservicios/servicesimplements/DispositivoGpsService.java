@@ -0,0 +1,92 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.TokenDispositivo;
+import com.nettalco.backendappservicios.repositories.BusRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IDispositivoGpsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Los hashes de los tokens se cargan de la tabla buses a un mapa inmutable que se
+ * reemplaza completo cada {@code gps.dispositivos.refresco-ms}; autenticar es un
+ * SHA-256 y un get, sin consultar la base de datos.
+ */
+@Service
+public class DispositivoGpsService implements IDispositivoGpsService {
+    
+    private static final Logger log = LoggerFactory.getLogger(DispositivoGpsService.class);
+    
+    @Autowired
+    private BusRepository busRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.dispositivos.autenticacion.habilitada:false}")
+    private boolean habilitada;
+    
+    private volatile Map<String, Integer> busPorHash = Map.of();
+    
+    private Counter rechazados;
+    
+    @PostConstruct
+    void inicializar() {
+        rechazados = Counter.builder("gps.dispositivos.rechazados")
+            .description("Peticiones de ingesta rechazadas por token de dispositivo inválido o ausente")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public boolean autenticacionHabilitada() {
+        return habilitada;
+    }
+    
+    @Override
+    public Optional<Integer> autenticar(String token) {
+        Integer idBus = token != null && !token.isBlank() ? busPorHash.get(hash(token)) : null;
+        if (idBus == null) {
+            rechazados.increment();
+        }
+        return Optional.ofNullable(idBus);
+    }
+    
+    @Scheduled(fixedDelayString = "${gps.dispositivos.refresco-ms:60000}")
+    void refrescarTokens() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            Map<String, Integer> nuevos = new HashMap<>();
+            for (TokenDispositivo token : busRepository.findTokensDispositivo()) {
+                nuevos.put(token.hash().toLowerCase(), token.idBus());
+            }
+            busPorHash = Map.copyOf(nuevos);
+        } catch (Exception e) {
+            log.warn("No se pudieron refrescar los tokens de dispositivos GPS: {}", e.getMessage());
+        }
+    }
+    
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
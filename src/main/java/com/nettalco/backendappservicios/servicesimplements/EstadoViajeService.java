@@ -0,0 +1,259 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+import com.nettalco.backendappservicios.repositories.ViajeRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.servicesinterfaces.IPosicionActualService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Los viajes en curso se recargan completos cada {@code gps.viajes.refresco-ms}.
+ * Un viaje que aún no aparece en la caché (recién iniciado) se consulta una vez
+ * por ID (o en una sola consulta IN para un lote); los que no están en curso se recuerdan durante
+ * {@code gps.viajes.ttl-negativo-ms} para no consultar en cada ubicación. El primer acierto
+ * de esa caché negativa vuelve a consultar una vez, para no rechazar durante todo el TTL las
+ * ubicaciones de un viaje que se inició justo después de la primera consulta; lo mismo
+ * vale para los buses sin viaje en curso.
+ * Cuando un viaje deja de estar en curso se descarta también su última posición.
+ * Se mantiene además un índice por bus para resolver la ingesta identificada por IMEI.
+ */
+@Service
+public class EstadoViajeService implements IEstadoViajeService {
+    
+    private static final int MAX_NEGATIVOS = 100_000;
+    
+    /**
+     * Entrada de la caché negativa; {@code reverificado} indica que ya se volvió a consultar
+     */
+    private record Negativo(long hastaNanos, boolean reverificado) {
+        
+        boolean vigente(long ahora) {
+            return reverificado && hastaNanos - ahora > 0;
+        }
+    }
+    
+    @Autowired
+    private ViajeRepository viajeRepository;
+    
+    @Autowired
+    private IPosicionActualService posicionActualService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.viajes.ttl-negativo-ms:5000}")
+    private long ttlNegativoMs;
+    
+    private volatile Map<Integer, EstadoViaje> enCurso = new ConcurrentHashMap<>();
+    private volatile Map<Integer, EstadoViaje> enCursoPorBus = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Negativo> noEnCursoHasta = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Negativo> busSinViajeHasta = new ConcurrentHashMap<>();
+    
+    private Counter aciertos;
+    private Counter consultas;
+    
+    @PostConstruct
+    void inicializar() {
+        Gauge.builder("gps.viajes.en-curso", this, s -> s.enCurso.size())
+            .register(meterRegistry);
+        aciertos = Counter.builder("gps.viajes.cache")
+            .tag("resultado", "acierto")
+            .register(meterRegistry);
+        consultas = Counter.builder("gps.viajes.cache")
+            .tag("resultado", "consulta")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public Optional<EstadoViaje> obtenerEnCurso(Integer idViaje) {
+        EstadoViaje estado = enCurso.get(idViaje);
+        if (estado != null) {
+            aciertos.increment();
+            return Optional.of(estado);
+        }
+        
+        Negativo negativo = noEnCursoHasta.get(idViaje);
+        if (negativo != null && negativo.vigente(System.nanoTime())) {
+            aciertos.increment();
+            return Optional.empty();
+        }
+        
+        consultas.increment();
+        Optional<EstadoViaje> encontrado = viajeRepository.findEstadoViajeById(idViaje)
+            .filter(EstadoViaje::enCurso);
+        if (encontrado.isPresent()) {
+            noEnCursoHasta.remove(idViaje);
+            registrarEnCurso(encontrado.get());
+        } else {
+            registrarNoEnCurso(idViaje);
+        }
+        return encontrado;
+    }
+    
+    @Override
+    public boolean estaEnCurso(Integer idViaje) {
+        return obtenerEnCurso(idViaje).isPresent();
+    }
+    
+    @Override
+    public Set<Integer> filtrarEnCurso(Collection<Integer> idsViaje) {
+        Set<Integer> resultado = new HashSet<>();
+        List<Integer> pendientes = new ArrayList<>();
+        long ahora = System.nanoTime();
+        for (Integer idViaje : new HashSet<>(idsViaje)) {
+            if (enCurso.containsKey(idViaje)) {
+                aciertos.increment();
+                resultado.add(idViaje);
+                continue;
+            }
+            Negativo negativo = noEnCursoHasta.get(idViaje);
+            if (negativo != null && negativo.vigente(ahora)) {
+                aciertos.increment();
+                continue;
+            }
+            pendientes.add(idViaje);
+        }
+        if (pendientes.isEmpty()) {
+            return resultado;
+        }
+        
+        consultas.increment();
+        for (EstadoViaje estado : viajeRepository.findEstadosViajeByIds(pendientes)) {
+            if (estado.enCurso()) {
+                noEnCursoHasta.remove(estado.idViaje());
+                registrarEnCurso(estado);
+                resultado.add(estado.idViaje());
+            }
+        }
+        for (Integer idViaje : pendientes) {
+            if (!resultado.contains(idViaje)) {
+                registrarNoEnCurso(idViaje);
+            }
+        }
+        return resultado;
+    }
+    
+    @Override
+    public boolean asignadoAOtroBus(Collection<Integer> idsViaje, Integer idBus) {
+        for (Integer idViaje : filtrarEnCurso(idsViaje)) {
+            EstadoViaje estado = enCurso.get(idViaje);
+            if (estado == null) {
+                // La caché se recargó entre medio
+                estado = obtenerEnCurso(idViaje).orElse(null);
+            }
+            if (estado != null && !idBus.equals(estado.idBus())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public Optional<EstadoViaje> obtenerEnCursoPorBus(Integer idBus) {
+        EstadoViaje estado = enCursoPorBus.get(idBus);
+        if (estado != null) {
+            aciertos.increment();
+            return Optional.of(estado);
+        }
+        
+        Negativo negativo = busSinViajeHasta.get(idBus);
+        if (negativo != null && negativo.vigente(System.nanoTime())) {
+            aciertos.increment();
+            return Optional.empty();
+        }
+        
+        consultas.increment();
+        Optional<EstadoViaje> encontrado = viajeRepository.findEstadosEnCursoByBus(idBus).stream().findFirst();
+        if (encontrado.isPresent()) {
+            busSinViajeHasta.remove(idBus);
+            registrarEnCurso(encontrado.get());
+        } else {
+            registrarNegativo(busSinViajeHasta, idBus);
+        }
+        return encontrado;
+    }
+    
+    private void registrarNoEnCurso(Integer idViaje) {
+        registrarNegativo(noEnCursoHasta, idViaje);
+    }
+    
+    /**
+     * La primera consulta negativa deja una entrada sin reverificar (el próximo acierto
+     * consulta de nuevo); la segunda, una vigente durante el TTL completo
+     */
+    private void registrarNegativo(ConcurrentHashMap<Integer, Negativo> negativos, Integer clave) {
+        if (negativos.size() >= MAX_NEGATIVOS) {
+            negativos.clear();
+        }
+        long hasta = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlNegativoMs);
+        negativos.compute(clave, (k, anterior) ->
+            new Negativo(hasta, anterior != null && anterior.hastaNanos() - System.nanoTime() > 0));
+    }
+    
+    private void registrarEnCurso(EstadoViaje estado) {
+        enCurso.put(estado.idViaje(), estado);
+        if (estado.idBus() != null) {
+            enCursoPorBus.put(estado.idBus(), estado);
+        }
+    }
+    
+    @Override
+    public Collection<Integer> idsEnCurso() {
+        return Collections.unmodifiableSet(enCurso.keySet());
+    }
+    
+    @Override
+    public void invalidar(Integer idViaje) {
+        EstadoViaje anterior = enCurso.remove(idViaje);
+        if (anterior != null && anterior.idBus() != null) {
+            enCursoPorBus.remove(anterior.idBus(), anterior);
+        }
+        noEnCursoHasta.remove(idViaje);
+        posicionActualService.invalidar(idViaje);
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${gps.viajes.refresco-ms:15000}")
+    public void refrescar() {
+        Map<Integer, EstadoViaje> nuevos = new ConcurrentHashMap<>();
+        Map<Integer, EstadoViaje> nuevosPorBus = new ConcurrentHashMap<>();
+        for (EstadoViaje estado : viajeRepository.findEstadosEnCurso()) {
+            nuevos.put(estado.idViaje(), estado);
+            if (estado.idBus() != null) {
+                // Si un bus figura en varios viajes en curso gana el más reciente
+                nuevosPorBus.merge(estado.idBus(), estado,
+                    (actual, otro) -> otro.idViaje() > actual.idViaje() ? otro : actual);
+            }
+        }
+        Map<Integer, EstadoViaje> anteriores = enCurso;
+        enCurso = nuevos;
+        enCursoPorBus = nuevosPorBus;
+        noEnCursoHasta.clear();
+        busSinViajeHasta.clear();
+        
+        // Viajes que dejaron de estar en curso: su última posición ya no se sirve desde memoria
+        for (Integer idViaje : anteriores.keySet()) {
+            if (!nuevos.containsKey(idViaje)) {
+                posicionActualService.invalidar(idViaje);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+import com.nettalco.backendappservicios.dtos.EtaViajeResponse;
+import com.nettalco.backendappservicios.dtos.EtaViajeResponse.StopEtaResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEtaService;
+import com.nettalco.backendappservicios.servicesinterfaces.IGeometriaRutaService;
+import com.nettalco.backendappservicios.util.GeometriaRuta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cada ubicación se proyecta sobre la geometría de la ruta. El avance sobre la
+ * ruta solo crece (se toleran {@code gps.eta.retroceso-max-m} de ruido al buscar
+ * el tramo) y la velocidad es un promedio móvil exponencial ({@code gps.eta.alfa})
+ * del avance entre ubicaciones. La velocidad se muestrea cuando pasaron al menos
+ * {@code gps.eta.intervalo-minimo-ms} desde la muestra anterior, y tanto la muestra
+ * como el avance se acotan a {@code gps.eta.velocidad-maxima-kmh}, para que el ruido
+ * GPS entre ubicaciones muy seguidas no dispare la velocidad. Con eso se
+ * recalculan en el momento las ETAs a los paraderos oficiales pendientes y al
+ * final de la ruta; las lecturas solo devuelven el último resultado.
+ * Las ubicaciones a más de {@code gps.eta.desvio-max-m} de la ruta no se usan.
+ */
+@Service
+public class EtaService implements IEtaService {
+    
+    @Autowired
+    private IEstadoViajeService estadoViajeService;
+    
+    @Autowired
+    private IGeometriaRutaService geometriaRutaService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.eta.alfa:0.3}")
+    private double alfa;
+    
+    @Value("${gps.eta.velocidad-inicial-kmh:20}")
+    private double velocidadInicialKmh;
+    
+    @Value("${gps.eta.velocidad-minima-kmh:5}")
+    private double velocidadMinimaKmh;
+    
+    @Value("${gps.eta.velocidad-maxima-kmh:90}")
+    private double velocidadMaximaKmh;
+    
+    @Value("${gps.eta.intervalo-minimo-ms:5000}")
+    private long intervaloMinimoMs;
+    
+    @Value("${gps.eta.retroceso-max-m:100}")
+    private double retrocesoMaxM;
+    
+    @Value("${gps.eta.desvio-max-m:300}")
+    private double desvioMaxM;
+    
+    @Value("${gps.eta.ttl-segundos:600}")
+    private long ttlSegundos;
+    
+    /**
+     * Estado incremental de un viaje; solo se modifica dentro de compute() sobre su clave
+     */
+    private static final class EstadoEta {
+        final GeometriaRuta geometria;
+        double distancia = -1;
+        double velocidadMs;
+        long fechaMs;
+        // Punto de la última muestra de velocidad
+        double distanciaMuestra;
+        long fechaMuestraMs;
+        volatile EtaViajeResponse eta;
+        
+        EstadoEta(GeometriaRuta geometria, double velocidadInicialMs) {
+            this.geometria = geometria;
+            this.velocidadMs = velocidadInicialMs;
+        }
+    }
+    
+    private final ConcurrentHashMap<Integer, EstadoEta> estados = new ConcurrentHashMap<>();
+    
+    private Counter fueraDeRuta;
+    
+    @PostConstruct
+    void inicializar() {
+        Gauge.builder("gps.eta.viajes", estados, ConcurrentHashMap::size)
+            .description("Viajes con ETA calculada")
+            .register(meterRegistry);
+        fueraDeRuta = Counter.builder("gps.eta.fuera-de-ruta")
+            .description("Ubicaciones descartadas para la ETA por estar lejos de la ruta")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public void actualizar(List<UbicacionRegistro> registros) {
+        for (UbicacionRegistro registro : registros) {
+            Optional<EstadoViaje> viaje = estadoViajeService.obtenerEnCurso(registro.idViaje());
+            if (viaje.isEmpty() || viaje.get().idRuta() == null) {
+                continue;
+            }
+            Optional<GeometriaRuta> geometria = geometriaRutaService.obtener(viaje.get().idRuta());
+            if (geometria.isEmpty()) {
+                continue;
+            }
+            estados.compute(registro.idViaje(), (idViaje, estado) -> {
+                // Estado nuevo también si la geometría de la ruta cambió
+                if (estado == null || estado.geometria != geometria.get()) {
+                    estado = new EstadoEta(geometria.get(), velocidadInicialKmh / 3.6);
+                }
+                aplicar(idViaje, estado, registro);
+                return estado;
+            });
+        }
+    }
+    
+    @Override
+    public Optional<EtaViajeResponse> obtener(Integer idViaje) {
+        EstadoEta estado = estados.get(idViaje);
+        return estado != null ? Optional.ofNullable(estado.eta) : Optional.empty();
+    }
+    
+    private void aplicar(Integer idViaje, EstadoEta estado, UbicacionRegistro registro) {
+        long fechaMs = registro.fechaRegistro().toInstant().toEpochMilli();
+        boolean primera = estado.distancia < 0;
+        if (!primera && fechaMs <= estado.fechaMs) {
+            // Ubicación más antigua que la ya aplicada (lotes desordenados)
+            return;
+        }
+        
+        GeometriaRuta geometria = estado.geometria;
+        double desde = primera ? 0 : Math.max(0, estado.distancia - retrocesoMaxM);
+        GeometriaRuta.Proyeccion proyeccion = geometria.proyectar(registro.latitud(), registro.longitud(), desde, desvioMaxM);
+        if (!proyeccion.encontrada()) {
+            fueraDeRuta.increment();
+            return;
+        }
+        
+        double velocidadMaximaMs = velocidadMaximaKmh / 3.6;
+        if (primera) {
+            estado.distancia = proyeccion.distancia();
+            estado.distanciaMuestra = estado.distancia;
+            estado.fechaMuestraMs = fechaMs;
+        } else {
+            double segundos = (fechaMs - estado.fechaMs) / 1000.0;
+            double avance = Math.clamp(proyeccion.distancia() - estado.distancia, 0, velocidadMaximaMs * segundos);
+            estado.distancia += avance;
+            long transcurridoMs = fechaMs - estado.fechaMuestraMs;
+            if (transcurridoMs >= intervaloMinimoMs) {
+                double muestra = Math.min((estado.distancia - estado.distanciaMuestra) * 1000.0 / transcurridoMs, velocidadMaximaMs);
+                estado.velocidadMs = alfa * muestra + (1 - alfa) * estado.velocidadMs;
+                estado.distanciaMuestra = estado.distancia;
+                estado.fechaMuestraMs = fechaMs;
+            }
+        }
+        estado.fechaMs = fechaMs;
+        estado.eta = calcular(idViaje, estado, registro.fechaRegistro());
+    }
+    
+    private EtaViajeResponse calcular(Integer idViaje, EstadoEta estado, OffsetDateTime fecha) {
+        GeometriaRuta geometria = estado.geometria;
+        double velocidadMs = Math.max(estado.velocidadMs, velocidadMinimaKmh / 3.6);
+        
+        List<StopEtaResponse> paraderos = new ArrayList<>();
+        for (GeometriaRuta.Paradero paradero : geometria.getParaderos()) {
+            double restante = paradero.distancia() - estado.distancia;
+            if (restante < 0) {
+                continue;
+            }
+            paraderos.add(new StopEtaResponse(
+                paradero.orden(),
+                paradero.nombre(),
+                paradero.latitud(),
+                paradero.longitud(),
+                restante,
+                minutos(restante, velocidadMs)
+            ));
+        }
+        
+        double restanteTotal = Math.max(0, geometria.getLongitudTotal() - estado.distancia);
+        return new EtaViajeResponse(
+            idViaje,
+            geometria.getIdRuta(),
+            estado.distancia,
+            restanteTotal,
+            estado.velocidadMs * 3.6,
+            minutos(restanteTotal, velocidadMs),
+            fecha,
+            List.copyOf(paraderos)
+        );
+    }
+    
+    private static int minutos(double metros, double velocidadMs) {
+        return (int) Math.ceil(metros / velocidadMs / 60.0);
+    }
+    
+    /**
+     * Descarta los viajes que ya no están en curso o dejaron de reportar
+     */
+    @Scheduled(fixedDelayString = "${gps.eta.verificacion-ms:30000}")
+    void expirarEstados() {
+        if (estados.isEmpty()) {
+            return;
+        }
+        Collection<Integer> enCurso = estadoViajeService.idsEnCurso();
+        long limite = System.currentTimeMillis() - ttlSegundos * 1000;
+        estados.entrySet().removeIf(e -> !enCurso.contains(e.getKey()) || e.getValue().fechaMs < limite);
+    }
+}
@@ -0,0 +1,86 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.PosicionFlotaResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.servicesinterfaces.IFlotaBroadcastService;
+import com.nettalco.backendappservicios.servicesinterfaces.IPosicionActualService;
+import com.nettalco.backendappservicios.servicesinterfaces.IViajeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesce las ubicaciones por viaje y las emite una vez por tick.
+ * Entre ticks solo se conserva la última ubicación de cada viaje, de modo que
+ * el volumen enviado depende de la cantidad de buses y no de la frecuencia de reporte.
+ */
+@Service
+public class FlotaBroadcastService implements IFlotaBroadcastService {
+    
+    public static final String DESTINO_FLOTA = "/topic/flota";
+    public static final String DESTINO_RUTA = "/topic/flota/ruta/";
+    
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    
+    @Autowired
+    private IPosicionActualService posicionActualService;
+    
+    @Autowired
+    private IViajeService viajeService;
+    
+    private final ConcurrentHashMap<Integer, UbicacionRegistro> pendientes = new ConcurrentHashMap<>();
+    
+    @Override
+    public void publicar(List<UbicacionRegistro> registros) {
+        for (UbicacionRegistro registro : registros) {
+            pendientes.merge(registro.idViaje(), registro, (actual, nueva) ->
+                nueva.fechaRegistro().isBefore(actual.fechaRegistro()) ? actual : nueva);
+        }
+    }
+    
+    @Override
+    public List<PosicionFlotaResponse> obtenerSnapshot() {
+        List<PosicionFlotaResponse> snapshot = new ArrayList<>();
+        for (Map.Entry<Integer, BusLocationResponse> entrada : posicionActualService.listar().entrySet()) {
+            Integer idViaje = entrada.getKey();
+            Integer idRuta = viajeService.obtenerIdRuta(idViaje).orElse(null);
+            snapshot.add(PosicionFlotaResponse.de(idViaje, idRuta, entrada.getValue()));
+        }
+        return snapshot;
+    }
+    
+    @Scheduled(fixedRateString = "${gps.flota.tick-ms:1000}")
+    void emitirTick() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        List<PosicionFlotaResponse> todas = new ArrayList<>(pendientes.size());
+        Map<Integer, List<PosicionFlotaResponse>> porRuta = new HashMap<>();
+        for (Integer idViaje : pendientes.keySet()) {
+            // remove atómico: una ubicación que llegue ahora queda para el próximo tick
+            UbicacionRegistro registro = pendientes.remove(idViaje);
+            if (registro == null) {
+                continue;
+            }
+            Integer idRuta = viajeService.obtenerIdRuta(idViaje).orElse(null);
+            PosicionFlotaResponse posicion = PosicionFlotaResponse.de(idViaje, idRuta, registro.aBusLocationResponse());
+            todas.add(posicion);
+            if (idRuta != null) {
+                porRuta.computeIfAbsent(idRuta, k -> new ArrayList<>()).add(posicion);
+            }
+        }
+        
+        messagingTemplate.convertAndSend(DESTINO_FLOTA, todas);
+        porRuta.forEach((idRuta, posiciones) ->
+            messagingTemplate.convertAndSend(DESTINO_RUTA + idRuta, posiciones));
+    }
+}
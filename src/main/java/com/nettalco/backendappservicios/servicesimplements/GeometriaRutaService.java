@@ -0,0 +1,65 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.entities.Ruta;
+import com.nettalco.backendappservicios.repositories.RutaRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IGeometriaRutaService;
+import com.nettalco.backendappservicios.util.GeometriaRuta;
+import com.nettalco.backendappservicios.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Las geometrías se construyen al crear o actualizar una ruta y, para las rutas
+ * que aún no están en memoria, la primera vez que se piden. Una ruta inexistente
+ * se cachea como geometría vacía para no consultarla en cada ubicación.
+ *
+ * Dentro de una transacción, los cambios en la cache se aplican recién después
+ * del commit: así una lectura concurrente no vuelve a cachear la ruta anterior
+ * ni queda una geometría de un cambio que se revirtió.
+ */
+@Service
+public class GeometriaRutaService implements IGeometriaRutaService {
+    
+    @Autowired
+    private RutaRepository rutaRepository;
+    
+    @Value("${gps.geometria.celda-m:150}")
+    private double tamanoCeldaM;
+    
+    private final ConcurrentHashMap<Integer, GeometriaRuta> geometrias = new ConcurrentHashMap<>();
+    
+    /**
+     * Sin transacción: los puntos llegan inicializados por el JOIN FETCH
+     */
+    @Override
+    public Optional<GeometriaRuta> obtener(Integer idRuta) {
+        GeometriaRuta geometria = geometrias.get(idRuta);
+        if (geometria == null) {
+            GeometriaRuta construida = rutaRepository.findByIdWithPuntos(idRuta)
+                .map(ruta -> GeometriaRuta.de(idRuta, ruta.getPuntos(), tamanoCeldaM))
+                .orElseGet(() -> GeometriaRuta.de(idRuta, List.of(), tamanoCeldaM));
+            geometria = geometrias.putIfAbsent(idRuta, construida);
+            if (geometria == null) {
+                geometria = construida;
+            }
+        }
+        return geometria.esValida() ? Optional.of(geometria) : Optional.empty();
+    }
+    
+    @Override
+    public void publicar(Ruta ruta) {
+        Integer idRuta = ruta.getIdRuta();
+        GeometriaRuta geometria = GeometriaRuta.de(idRuta, ruta.getPuntos(), tamanoCeldaM);
+        Transacciones.alConfirmar(() -> geometrias.put(idRuta, geometria));
+    }
+    
+    @Override
+    public void invalidar(Integer idRuta) {
+        Transacciones.alConfirmar(() -> geometrias.remove(idRuta));
+    }
+}
@@ -0,0 +1,193 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+import com.nettalco.backendappservicios.dtos.GPSIngestaBinariaResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.exceptions.DispositivoNoAutorizadoException;
+import com.nettalco.backendappservicios.exceptions.LimiteExcedidoException;
+import com.nettalco.backendappservicios.repositories.BusRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.servicesinterfaces.IIngestaBinariaService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService.ClaseDispositivo;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService.Origen;
+import com.nettalco.backendappservicios.servicesinterfaces.IUbicacionTiempoRealService;
+import com.nettalco.backendappservicios.util.TramaGps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * La trama se decodifica directamente desde el ByteBuffer a primitivos; el único
+ * objeto por fijación es el UbicacionRegistro que consume la persistencia por lotes.
+ * La fecha de cada fijación es la del equipo, acotada a una ventana
+ * ({@code gps.binario.antiguedad-max-minutos} hacia atrás y
+ * {@code gps.binario.adelanto-max-segundos} hacia adelante) para no escribir
+ * fuera de las particiones existentes.
+ * La relación IMEI → bus se cachea durante {@code gps.binario.ttl-imei-ms}; con la
+ * caché llena se descartan las entradas vencidas (como máximo una vez por segundo) y,
+ * si no alcanza, el IMEI nuevo no se cachea, sin desalojar los vigentes.
+ * Antes de resolver el IMEI se descuentan las fijaciones de la trama del límite del
+ * origen (IP, bus o dirección del listener) y del equipo ({@code gps.limite.equipo.*}):
+ * el IMEI lo elige el cliente, así que rotarlo no evita el límite del origen ni
+ * multiplica las consultas de IMEI desconocidos.
+ * Si la petición trae token de dispositivo, el IMEI debe ser del mismo bus.
+ */
+@Service
+public class IngestaBinariaService implements IIngestaBinariaService {
+    
+    private static final int MAX_IMEIS_CACHEADOS = 100_000;
+    
+    // Marca de "IMEI sin bus" en la caché
+    private static final int SIN_BUS = -1;
+    
+    private record BusCacheado(int idBus, long expiraNanos) {}
+    
+    @Autowired
+    private BusRepository busRepository;
+    
+    @Autowired
+    private IEstadoViajeService estadoViajeService;
+    
+    @Autowired
+    private IUbicacionTiempoRealService ubicacionService;
+    
+    @Autowired
+    private ILimiteIngestaService limiteIngestaService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.binario.antiguedad-max-minutos:1440}")
+    private long antiguedadMaxMinutos;
+    
+    @Value("${gps.binario.adelanto-max-segundos:120}")
+    private long adelantoMaxSegundos;
+    
+    @Value("${gps.binario.ttl-imei-ms:300000}")
+    private long ttlImeiMs;
+    
+    private final ConcurrentHashMap<String, BusCacheado> busPorImei = new ConcurrentHashMap<>();
+    private final AtomicLong proximaPurgaNanos = new AtomicLong(System.nanoTime());
+    
+    private Counter tramas;
+    private Counter fijacionesRegistradas;
+    private Counter fijacionesRechazadas;
+    
+    @PostConstruct
+    void inicializar() {
+        tramas = Counter.builder("gps.binario.tramas").register(meterRegistry);
+        fijacionesRegistradas = Counter.builder("gps.binario.fijaciones")
+            .tag("resultado", "registrada")
+            .register(meterRegistry);
+        fijacionesRechazadas = Counter.builder("gps.binario.fijaciones")
+            .tag("resultado", "rechazada")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public GPSIngestaBinariaResponse registrarTrama(ByteBuffer trama, Origen origen, Integer idBusAutenticado) {
+        TramaGps.Cabecera cabecera = TramaGps.leerCabecera(trama);
+        if (trama.remaining() != cabecera.longitudFijaciones()) {
+            throw new IllegalArgumentException("Longitud de trama inválida");
+        }
+        tramas.increment();
+        
+        if (origen != null && cabecera.cantidad() > 1) {
+            exigirLimite(origen.clase(), origen.clave(), cabecera.cantidad() - 1, "El origen");
+        }
+        exigirLimite(ClaseDispositivo.EQUIPO, cabecera.imei(), cabecera.cantidad(), "El equipo " + cabecera.imei());
+        
+        int idBus = resolverBus(cabecera.imei());
+        if (idBusAutenticado != null && idBus != idBusAutenticado) {
+            throw new DispositivoNoAutorizadoException(
+                "El equipo " + cabecera.imei() + " no corresponde al bus del token de dispositivo");
+        }
+        Optional<EstadoViaje> viaje = idBus == SIN_BUS ? Optional.empty() : estadoViajeService.obtenerEnCursoPorBus(idBus);
+        Integer idViaje = viaje
+            .orElseThrow(() -> new NoSuchElementException(
+                "El equipo " + cabecera.imei() + " no tiene un viaje en curso"))
+            .idViaje();
+        
+        long ahora = System.currentTimeMillis();
+        long minimo = ahora - TimeUnit.MINUTES.toMillis(antiguedadMaxMinutos);
+        long maximo = ahora + TimeUnit.SECONDS.toMillis(adelantoMaxSegundos);
+        
+        List<UbicacionRegistro> registros = new ArrayList<>(cabecera.cantidad());
+        TramaGps.leerFijaciones(trama, cabecera, (epochMilis, latitudE7, longitudE7, velocidad, rumbo) -> {
+            double latitud = TramaGps.coordenada(latitudE7);
+            double longitud = TramaGps.coordenada(longitudE7);
+            if (epochMilis < minimo || epochMilis > maximo
+                    || latitud < -90 || latitud > 90 || longitud < -180 || longitud > 180) {
+                return;
+            }
+            registros.add(new UbicacionRegistro(
+                idViaje,
+                latitud,
+                longitud,
+                TramaGps.velocidadORumbo(velocidad),
+                TramaGps.velocidadORumbo(rumbo),
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMilis), ZoneOffset.UTC)
+            ));
+        });
+        
+        int registradas = ubicacionService.registrarUbicacionesPendientes(registros);
+        int rechazadas = cabecera.cantidad() - registradas;
+        fijacionesRegistradas.increment(registradas);
+        fijacionesRechazadas.increment(rechazadas);
+        
+        return new GPSIngestaBinariaResponse(cabecera.imei(), idViaje, cabecera.cantidad(), registradas, rechazadas);
+    }
+    
+    private void exigirLimite(ClaseDispositivo clase, String clave, int cantidad, String quien) {
+        long esperaMs = limiteIngestaService.reservar(clase, clave, cantidad);
+        if (esperaMs == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("La trama supera la ráfaga máxima de fijaciones de " + quien.toLowerCase());
+        }
+        if (esperaMs > 0) {
+            throw new LimiteExcedidoException(quien + " excedió su límite de ingesta", esperaMs);
+        }
+    }
+    
+    /**
+     * @return ID del bus del IMEI, o SIN_BUS
+     */
+    private int resolverBus(String imei) {
+        long ahora = System.nanoTime();
+        BusCacheado cacheado = busPorImei.get(imei);
+        if (cacheado == null || cacheado.expiraNanos() < ahora) {
+            int idBus = busRepository.findIdsByImeiGps(imei).stream().findFirst().orElse(SIN_BUS);
+            cacheado = new BusCacheado(idBus, ahora + TimeUnit.MILLISECONDS.toNanos(ttlImeiMs));
+            cachear(imei, cacheado, ahora);
+        }
+        return cacheado.idBus();
+    }
+    
+    private void cachear(String imei, BusCacheado cacheado, long ahora) {
+        if (busPorImei.size() >= MAX_IMEIS_CACHEADOS) {
+            long proxima = proximaPurgaNanos.get();
+            if (ahora - proxima >= 0 && proximaPurgaNanos.compareAndSet(proxima, ahora + TimeUnit.SECONDS.toNanos(1))) {
+                busPorImei.values().removeIf(c -> c.expiraNanos() < ahora);
+            }
+            if (busPorImei.size() >= MAX_IMEIS_CACHEADOS && !busPorImei.containsKey(imei)) {
+                return;
+            }
+        }
+        busPorImei.put(imei, cacheado);
+    }
+}
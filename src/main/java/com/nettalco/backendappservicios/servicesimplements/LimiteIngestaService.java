@@ -0,0 +1,129 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService;
+import com.nettalco.backendappservicios.util.LimitadorTasa;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Una cubeta de tokens en memoria por equipo (IMEI), bus, IP o dirección remota del
+ * listener, según la clase. Cada clase se habilita por separado; una clase
+ * deshabilitada admite todo.
+ * Los rechazos se cuentan en {@code gps.limite.rechazados} con la etiqueta de la clase.
+ */
+@Service
+public class LimiteIngestaService implements ILimiteIngestaService {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.limite.habilitado:true}")
+    private boolean habilitado;
+    
+    @Value("${gps.limite.max-claves:100000}")
+    private int maxClaves;
+    
+    @Value("${gps.limite.equipo.habilitado:true}")
+    private boolean habilitadoEquipo;
+    
+    @Value("${gps.limite.equipo.capacidad:1000}")
+    private double capacidadEquipo;
+    
+    @Value("${gps.limite.equipo.por-segundo:5}")
+    private double porSegundoEquipo;
+    
+    @Value("${gps.limite.bus.habilitado:true}")
+    private boolean habilitadoBus;
+    
+    @Value("${gps.limite.bus.capacidad:1000}")
+    private double capacidadBus;
+    
+    @Value("${gps.limite.bus.por-segundo:5}")
+    private double porSegundoBus;
+    
+    @Value("${gps.limite.ip.habilitado:true}")
+    private boolean habilitadoIp;
+    
+    @Value("${gps.limite.ip.capacidad:5000}")
+    private double capacidadIp;
+    
+    @Value("${gps.limite.ip.por-segundo:100}")
+    private double porSegundoIp;
+    
+    @Value("${gps.limite.listener.habilitado:true}")
+    private boolean habilitadoListener;
+    
+    @Value("${gps.limite.listener.capacidad:2000}")
+    private double capacidadListener;
+    
+    @Value("${gps.limite.listener.por-segundo:50}")
+    private double porSegundoListener;
+    
+    // Solo contiene las clases habilitadas
+    private final Map<ClaseDispositivo, LimitadorTasa> limitadores = new EnumMap<>(ClaseDispositivo.class);
+    private final Map<ClaseDispositivo, Counter> rechazados = new EnumMap<>(ClaseDispositivo.class);
+    
+    @PostConstruct
+    void inicializar() {
+        if (!habilitado) {
+            return;
+        }
+        agregar(ClaseDispositivo.EQUIPO, habilitadoEquipo, capacidadEquipo, porSegundoEquipo);
+        agregar(ClaseDispositivo.BUS, habilitadoBus, capacidadBus, porSegundoBus);
+        agregar(ClaseDispositivo.IP, habilitadoIp, capacidadIp, porSegundoIp);
+        agregar(ClaseDispositivo.LISTENER, habilitadoListener, capacidadListener, porSegundoListener);
+    }
+    
+    private void agregar(ClaseDispositivo clase, boolean habilitada, double capacidad, double porSegundo) {
+        if (!habilitada) {
+            return;
+        }
+        LimitadorTasa limitador = new LimitadorTasa(capacidad, porSegundo, maxClaves);
+        limitadores.put(clase, limitador);
+        
+        String etiqueta = clase.name().toLowerCase(Locale.ROOT);
+        rechazados.put(clase, Counter.builder("gps.limite.rechazados")
+            .description("Peticiones o tramas de ingesta rechazadas por exceder el límite de tasa")
+            .tag("clase", etiqueta)
+            .register(meterRegistry));
+        Gauge.builder("gps.limite.claves", limitador, LimitadorTasa::cantidadClaves)
+            .description("Claves con cubeta de tokens propia en memoria")
+            .tag("clase", etiqueta)
+            .register(meterRegistry);
+        FunctionCounter.builder("gps.limite.desbordados", limitador, LimitadorTasa::cantidadDesbordados)
+            .description("Consumos de claves nuevas cargados a la cubeta compartida por tener la tabla llena")
+            .tag("clase", etiqueta)
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public long reservar(ClaseDispositivo clase, String clave, int cantidad) {
+        LimitadorTasa limitador = limitadores.get(clase);
+        if (limitador == null) {
+            return 0;
+        }
+        long esperaNanos = limitador.consumir(clave, cantidad);
+        if (esperaNanos == 0) {
+            return 0;
+        }
+        rechazados.get(clase).increment();
+        return esperaNanos == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(1, TimeUnit.NANOSECONDS.toMillis(esperaNanos));
+    }
+    
+    @Scheduled(fixedDelayString = "${gps.limite.limpieza-ms:60000}")
+    void purgarCubetas() {
+        limitadores.values().forEach(LimitadorTasa::purgar);
+    }
+}
@@ -0,0 +1,543 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.ConexionGpsResponse;
+import com.nettalco.backendappservicios.dtos.GPSIngestaBinariaResponse;
+import com.nettalco.backendappservicios.exceptions.LimiteExcedidoException;
+import com.nettalco.backendappservicios.servicesinterfaces.IIngestaBinariaService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService.ClaseDispositivo;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService.Origen;
+import com.nettalco.backendappservicios.servicesinterfaces.IListenerGpsService;
+import com.nettalco.backendappservicios.util.TramaGps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Un hilo virtual acepta conexiones TCP y cada conexión se atiende en su propio
+ * hilo virtual; UDP se atiende con {@code gps.listener.udp.receptores} hilos
+ * virtuales sobre el mismo socket (un datagrama = una trama).
+ * Las estadísticas se llevan por conexión TCP y por remitente UDP; los remitentes UDP
+ * (cuya dirección puede falsificarse) se limitan a {@code gps.listener.udp.max-remitentes}
+ * y, por encima, se suman en una sola entrada de desborde (remoto "*").
+ * Cada hilo lee en un arreglo propio que se reutiliza entre tramas y se entrega
+ * al decodificador envuelto en un ByteBuffer, sin copiarlo.
+ *
+ * Tras cada trama se responde un ACK de 5 bytes: u16 magia, u8 estado
+ * (0 registrada, 1 trama inválida, 2 sin viaje en curso, 3 error interno,
+ * 4 límite de tasa excedido)
+ * y u16 fijaciones registradas. Una cabecera inválida en TCP cierra la
+ * conexión, porque ya no se puede delimitar la trama siguiente.
+ *
+ * La trama no lleva credencial: el IMEI se toma tal cual. Por eso el listener solo
+ * atiende direcciones de {@code gps.listener.redes-permitidas} (APN privado de la
+ * operadora o VPN de la flota) y no arranca si la lista está vacía. Las conexiones
+ * TCP de otras direcciones se cierran al aceptarlas y los datagramas se descartan sin ACK.
+ */
+@Service
+public class ListenerGpsService implements IListenerGpsService, SmartLifecycle {
+    
+    private static final Logger log = LoggerFactory.getLogger(ListenerGpsService.class);
+    
+    private static final int TAMANO_MAX_TRAMA = TramaGps.TAMANO_CABECERA_BASE
+        + TramaGps.MAX_LONGITUD_IMEI + TramaGps.MAX_FIJACIONES * TramaGps.TAMANO_FIJACION;
+    
+    private static final int TAMANO_ACK = 5;
+    private static final int ACK_REGISTRADA = 0;
+    private static final int ACK_INVALIDA = 1;
+    private static final int ACK_SIN_VIAJE = 2;
+    private static final int ACK_ERROR = 3;
+    private static final int ACK_LIMITE = 4;
+    
+    private static final String TCP = "tcp";
+    private static final String UDP = "udp";
+    private static final String REMOTO_DESBORDE = "*";
+    
+    @Autowired
+    private IIngestaBinariaService ingestaBinariaService;
+    
+    @Autowired
+    private ILimiteIngestaService limiteIngestaService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.listener.habilitado:false}")
+    private boolean habilitado;
+    
+    @Value("${gps.listener.tcp.puerto:0}")
+    private int puertoTcp;
+    
+    @Value("${gps.listener.udp.puerto:0}")
+    private int puertoUdp;
+    
+    @Value("${gps.listener.tcp.max-conexiones:10000}")
+    private int maxConexiones;
+    
+    @Value("${gps.listener.tcp.timeout-inactividad-ms:180000}")
+    private int timeoutInactividadMs;
+    
+    @Value("${gps.listener.udp.receptores:4}")
+    private int receptoresUdp;
+    
+    @Value("${gps.listener.udp.max-remitentes:10000}")
+    private int maxRemitentesUdp;
+    
+    @Value("${gps.listener.udp.expiracion-ms:120000}")
+    private long expiracionUdpMs;
+    
+    @Value("${gps.listener.redes-permitidas:}")
+    private String[] redesPermitidas;
+    
+    private List<IpAddressMatcher> redes = List.of();
+    
+    private final ConcurrentHashMap<String, Conexion> conexiones = new ConcurrentHashMap<>();
+    private final AtomicInteger conexionesTcp = new AtomicInteger();
+    private final AtomicInteger remitentesUdp = new AtomicInteger();
+    private final Conexion desbordeUdp = new Conexion(UDP, REMOTO_DESBORDE, REMOTO_DESBORDE, null);
+    
+    private volatile ServerSocket servidorTcp;
+    private volatile DatagramSocket socketUdp;
+    private volatile boolean ejecutando;
+    
+    private Counter conexionesRechazadas;
+    private Counter fueraDeRedTcp;
+    private Counter fueraDeRedUdp;
+    private Counter tramasTcp;
+    private Counter tramasUdp;
+    private Counter bytesTcp;
+    private Counter bytesUdp;
+    private Counter erroresTcp;
+    private Counter erroresUdp;
+    
+    /**
+     * Contadores de una conexión TCP o de un remitente UDP
+     */
+    private static final class Conexion {
+        final String protocolo;
+        final String remoto;
+        // Solo la IP, clave del límite de tasa por dirección
+        final String direccion;
+        final Socket socket;
+        final long inicioMs = System.currentTimeMillis();
+        final AtomicLong tramas = new AtomicLong();
+        final AtomicLong fijaciones = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong errores = new AtomicLong();
+        volatile long ultimaActividadMs = inicioMs;
+        volatile String imei;
+        
+        Conexion(String protocolo, String remoto, String direccion, Socket socket) {
+            this.protocolo = protocolo;
+            this.remoto = remoto;
+            this.direccion = direccion;
+            this.socket = socket;
+        }
+        
+        ConexionGpsResponse aResponse() {
+            return new ConexionGpsResponse(
+                protocolo,
+                remoto,
+                imei,
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(inicioMs), ZoneOffset.UTC),
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(ultimaActividadMs), ZoneOffset.UTC),
+                tramas.get(),
+                fijaciones.get(),
+                bytes.get(),
+                errores.get()
+            );
+        }
+    }
+    
+    @PostConstruct
+    void inicializar() {
+        Gauge.builder("gps.listener.conexiones", conexionesTcp, AtomicInteger::get)
+            .description("Conexiones TCP abiertas")
+            .register(meterRegistry);
+        Gauge.builder("gps.listener.remitentes-udp", remitentesUdp, AtomicInteger::get)
+            .description("Remitentes UDP con estadísticas propias")
+            .register(meterRegistry);
+        conexionesRechazadas = Counter.builder("gps.listener.conexiones.rechazadas")
+            .description("Conexiones TCP cerradas por superar gps.listener.tcp.max-conexiones")
+            .register(meterRegistry);
+        fueraDeRedTcp = contador("gps.listener.fuera-de-red", TCP);
+        fueraDeRedUdp = contador("gps.listener.fuera-de-red", UDP);
+        tramasTcp = contador("gps.listener.tramas", TCP);
+        tramasUdp = contador("gps.listener.tramas", UDP);
+        bytesTcp = contador("gps.listener.bytes", TCP);
+        bytesUdp = contador("gps.listener.bytes", UDP);
+        erroresTcp = contador("gps.listener.errores", TCP);
+        erroresUdp = contador("gps.listener.errores", UDP);
+    }
+    
+    private Counter contador(String nombre, String protocolo) {
+        return Counter.builder(nombre).tag("protocolo", protocolo).register(meterRegistry);
+    }
+    
+    @Override
+    public List<ConexionGpsResponse> listarConexiones() {
+        Stream<Conexion> desborde = desbordeUdp.tramas.get() > 0 ? Stream.of(desbordeUdp) : Stream.empty();
+        return Stream.concat(conexiones.values().stream(), desborde)
+            .map(Conexion::aResponse)
+            .toList();
+    }
+    
+    // ==================== TCP ====================
+    
+    private void aceptarConexiones(ServerSocket servidor) {
+        while (ejecutando) {
+            Socket socket;
+            try {
+                socket = servidor.accept();
+            } catch (IOException e) {
+                if (servidor.isClosed()) {
+                    break;
+                }
+                log.error("Error aceptando conexión GPS TCP: {}", e.getMessage());
+                continue;
+            }
+            if (!permitida(socket.getInetAddress())) {
+                fueraDeRedTcp.increment();
+                cerrar(socket);
+                continue;
+            }
+            if (conexionesTcp.incrementAndGet() > maxConexiones) {
+                conexionesTcp.decrementAndGet();
+                conexionesRechazadas.increment();
+                cerrar(socket);
+                continue;
+            }
+            Thread.ofVirtual()
+                .name("gps-listener-tcp-" + socket.getRemoteSocketAddress())
+                .start(() -> atenderConexion(socket));
+        }
+    }
+    
+    private void atenderConexion(Socket socket) {
+        String clave = TCP + ":" + socket.getRemoteSocketAddress();
+        Conexion conexion = new Conexion(TCP, String.valueOf(socket.getRemoteSocketAddress()),
+            socket.getInetAddress().getHostAddress(), socket);
+        conexiones.put(clave, conexion);
+        byte[] datos = new byte[TAMANO_MAX_TRAMA];
+        byte[] ack = new byte[TAMANO_ACK];
+        try (socket) {
+            socket.setSoTimeout(timeoutInactividadMs);
+            socket.setTcpNoDelay(true);
+            InputStream entrada = socket.getInputStream();
+            OutputStream salida = socket.getOutputStream();
+            while (ejecutando) {
+                int longitud = leerTramaTcp(entrada, datos);
+                if (longitud < 0) {
+                    break;
+                }
+                if (longitud == 0) {
+                    conexion.errores.incrementAndGet();
+                    erroresTcp.increment();
+                    escribirAck(ack, ACK_INVALIDA, 0);
+                    salida.write(ack);
+                    break;
+                }
+                bytesTcp.increment(longitud);
+                tramasTcp.increment();
+                int estado = procesar(ByteBuffer.wrap(datos, 0, longitud), longitud, conexion, conexion.direccion, ack);
+                if (estado != ACK_REGISTRADA) {
+                    erroresTcp.increment();
+                }
+                salida.write(ack);
+            }
+        } catch (SocketTimeoutException e) {
+            log.debug("Conexión GPS {} cerrada por inactividad", conexion.remoto);
+        } catch (EOFException | SocketException e) {
+            // El equipo cerró la conexión a mitad de trama o el listener se está deteniendo
+        } catch (IOException e) {
+            log.warn("Error en conexión GPS {}: {}", conexion.remoto, e.getMessage());
+        } finally {
+            conexiones.remove(clave, conexion);
+            conexionesTcp.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Lee una trama completa del stream en {@code datos}
+     * @return Longitud de la trama, -1 si el equipo cerró la conexión entre tramas,
+     *         0 si la cabecera no es válida
+     */
+    private static int leerTramaTcp(InputStream entrada, byte[] datos) throws IOException {
+        // magia (2) + versión (1) + longitud IMEI (1)
+        int leidos = entrada.readNBytes(datos, 0, 4);
+        if (leidos == 0) {
+            return -1;
+        }
+        if (leidos < 4) {
+            throw new EOFException();
+        }
+        int magia = ((datos[0] & 0xFF) << 8) | (datos[1] & 0xFF);
+        int version = datos[2] & 0xFF;
+        int longitudImei = datos[3] & 0xFF;
+        if (magia != TramaGps.MAGIA || version != TramaGps.VERSION
+                || longitudImei == 0 || longitudImei > TramaGps.MAX_LONGITUD_IMEI) {
+            return 0;
+        }
+        // IMEI + cantidad (2)
+        leerExacto(entrada, datos, 4, longitudImei + 2);
+        int posicionCantidad = 4 + longitudImei;
+        int cantidad = ((datos[posicionCantidad] & 0xFF) << 8) | (datos[posicionCantidad + 1] & 0xFF);
+        if (cantidad == 0 || cantidad > TramaGps.MAX_FIJACIONES) {
+            return 0;
+        }
+        int longitudFijaciones = cantidad * TramaGps.TAMANO_FIJACION;
+        leerExacto(entrada, datos, posicionCantidad + 2, longitudFijaciones);
+        return posicionCantidad + 2 + longitudFijaciones;
+    }
+    
+    private static void leerExacto(InputStream entrada, byte[] datos, int desde, int longitud) throws IOException {
+        if (entrada.readNBytes(datos, desde, longitud) < longitud) {
+            throw new EOFException();
+        }
+    }
+    
+    // ==================== UDP ====================
+    
+    private void recibirDatagramas(DatagramSocket socket) {
+        byte[] datos = new byte[TAMANO_MAX_TRAMA];
+        byte[] ack = new byte[TAMANO_ACK];
+        DatagramPacket paquete = new DatagramPacket(datos, datos.length);
+        DatagramPacket respuesta = new DatagramPacket(ack, TAMANO_ACK);
+        while (ejecutando) {
+            try {
+                paquete.setLength(datos.length);
+                socket.receive(paquete);
+                if (!permitida(paquete.getAddress())) {
+                    fueraDeRedUdp.increment();
+                    continue;
+                }
+                int longitud = paquete.getLength();
+                String direccion = paquete.getAddress().getHostAddress();
+                Conexion conexion = remitenteUdp(String.valueOf(paquete.getSocketAddress()), direccion);
+                bytesUdp.increment(longitud);
+                tramasUdp.increment();
+                int estado = procesar(ByteBuffer.wrap(datos, 0, longitud), longitud, conexion, direccion, ack);
+                if (estado != ACK_REGISTRADA) {
+                    erroresUdp.increment();
+                }
+                respuesta.setSocketAddress(paquete.getSocketAddress());
+                socket.send(respuesta);
+            } catch (IOException e) {
+                if (ejecutando) {
+                    log.error("Error recibiendo datagrama GPS: {}", e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Estadísticas del remitente; la entrada de desborde si ya hay {@code gps.listener.udp.max-remitentes}
+     */
+    private Conexion remitenteUdp(String remoto, String direccion) {
+        String clave = UDP + ":" + remoto;
+        Conexion conexion = conexiones.get(clave);
+        if (conexion != null) {
+            return conexion;
+        }
+        if (remitentesUdp.get() >= maxRemitentesUdp) {
+            return desbordeUdp;
+        }
+        Conexion nueva = new Conexion(UDP, remoto, direccion, null);
+        Conexion previa = conexiones.putIfAbsent(clave, nueva);
+        if (previa != null) {
+            return previa;
+        }
+        remitentesUdp.incrementAndGet();
+        return nueva;
+    }
+    
+    /**
+     * Descarta las estadísticas de remitentes UDP sin actividad durante
+     * {@code gps.listener.udp.expiracion-ms} (en UDP no hay cierre de conexión)
+     */
+    @Scheduled(fixedDelayString = "${gps.listener.udp.barrido-ms:30000}")
+    void expirarRemitentesUdp() {
+        long limite = System.currentTimeMillis() - expiracionUdpMs;
+        for (Map.Entry<String, Conexion> entrada : conexiones.entrySet()) {
+            Conexion conexion = entrada.getValue();
+            if (conexion.socket == null && conexion.ultimaActividadMs < limite
+                    && conexiones.remove(entrada.getKey(), conexion)) {
+                remitentesUdp.decrementAndGet();
+            }
+        }
+    }
+    
+    // ==================== Común ====================
+    
+    private boolean permitida(InetAddress direccion) {
+        String ip = direccion.getHostAddress();
+        for (IpAddressMatcher red : redes) {
+            if (red.matches(ip)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Entrega la trama al servicio de ingesta y deja el ACK en {@code ack}
+     * @return Estado escrito en el ACK
+     */
+    private int procesar(ByteBuffer trama, int longitud, Conexion conexion, String direccion, byte[] ack) {
+        conexion.ultimaActividadMs = System.currentTimeMillis();
+        conexion.tramas.incrementAndGet();
+        conexion.bytes.addAndGet(longitud);
+        int estado;
+        int registradas = 0;
+        try {
+            // Una fijación al recibir la trama; el resto lo descuenta la ingesta al leer la cabecera
+            Origen origen = new Origen(ClaseDispositivo.LISTENER, direccion);
+            long esperaMs = limiteIngestaService.reservar(origen.clase(), origen.clave(), 1);
+            if (esperaMs > 0) {
+                throw new LimiteExcedidoException("La dirección " + direccion + " excedió su límite de ingesta", esperaMs);
+            }
+            GPSIngestaBinariaResponse response = ingestaBinariaService.registrarTrama(trama, origen, null);
+            conexion.imei = response.imei();
+            registradas = response.registradas();
+            conexion.fijaciones.addAndGet(registradas);
+            estado = ACK_REGISTRADA;
+        } catch (IllegalArgumentException e) {
+            estado = ACK_INVALIDA;
+        } catch (NoSuchElementException e) {
+            estado = ACK_SIN_VIAJE;
+        } catch (LimiteExcedidoException e) {
+            estado = ACK_LIMITE;
+        } catch (Exception e) {
+            log.error("Error registrando trama GPS de {}: {}", conexion.remoto, e.getMessage());
+            estado = ACK_ERROR;
+        }
+        if (estado != ACK_REGISTRADA) {
+            conexion.errores.incrementAndGet();
+        }
+        escribirAck(ack, estado, registradas);
+        return estado;
+    }
+    
+    private static void escribirAck(byte[] ack, int estado, int registradas) {
+        ack[0] = (byte) (TramaGps.MAGIA >>> 8);
+        ack[1] = (byte) TramaGps.MAGIA;
+        ack[2] = (byte) estado;
+        ack[3] = (byte) (registradas >>> 8);
+        ack[4] = (byte) registradas;
+    }
+    
+    private static void cerrar(AutoCloseable recurso) {
+        try {
+            recurso.close();
+        } catch (Exception e) {
+            // Ya cerrado
+        }
+    }
+    
+    @Override
+    public void start() {
+        if (!habilitado) {
+            return;
+        }
+        redes = Arrays.stream(redesPermitidas)
+            .map(String::strip)
+            .filter(red -> !red.isEmpty())
+            .map(IpAddressMatcher::new)
+            .toList();
+        if (redes.isEmpty()) {
+            throw new IllegalStateException("El listener GPS no autentica las tramas: "
+                + "configure gps.listener.redes-permitidas con las redes de los equipos");
+        }
+        ejecutando = true;
+        try {
+            if (puertoTcp > 0) {
+                ServerSocket servidor = new ServerSocket();
+                servidor.setReuseAddress(true);
+                servidor.bind(new InetSocketAddress(puertoTcp));
+                servidorTcp = servidor;
+                Thread.ofVirtual()
+                    .name("gps-listener-tcp")
+                    .start(() -> aceptarConexiones(servidor));
+                log.info("Listener GPS TCP escuchando en el puerto {}", puertoTcp);
+            }
+            if (puertoUdp > 0) {
+                DatagramSocket socket = new DatagramSocket(puertoUdp);
+                socketUdp = socket;
+                for (int i = 0; i < receptoresUdp; i++) {
+                    Thread.ofVirtual()
+                        .name("gps-listener-udp-" + i)
+                        .start(() -> recibirDatagramas(socket));
+                }
+                log.info("Listener GPS UDP escuchando en el puerto {}", puertoUdp);
+            }
+        } catch (IOException e) {
+            stop();
+            throw new IllegalStateException("No se pudo iniciar el listener GPS", e);
+        }
+    }
+    
+    @Override
+    public void stop() {
+        ejecutando = false;
+        if (servidorTcp != null) {
+            cerrar(servidorTcp);
+            servidorTcp = null;
+        }
+        if (socketUdp != null) {
+            socketUdp.close();
+            socketUdp = null;
+        }
+        for (Conexion conexion : conexiones.values()) {
+            if (conexion.socket != null) {
+                cerrar(conexion.socket);
+            }
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return ejecutando;
+    }
+    
+    /**
+     * Misma fase que el buffer GPS: deja de recibir antes de que se cierre el DataSource
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
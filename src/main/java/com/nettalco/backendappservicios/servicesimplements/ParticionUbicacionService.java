@@ -0,0 +1,218 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.ParticionUbicacion;
+import com.nettalco.backendappservicios.repositories.UbicacionTiempoRealRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IParticionUbicacionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Las particiones se nombran ubicaciones_tiempo_real_pAAAAMMDD con la fecha de
+ * inicio del periodo (día o semana ISO, en {@code gps.particiones.zona-horaria}).
+ * El mantenimiento corre al arrancar y según {@code gps.particiones.cron}; si la
+ * tabla aún no fue migrada a particionado no hace nada.
+ * Eliminar una partición es un DETACH seguido de DROP TABLE: no genera filas muertas
+ * ni compite con la ingesta como el DELETE por fecha. Si el DROP falla, la tabla ya
+ * separada se elimina en la siguiente ejecución.
+ * Sin partición DEFAULT (por defecto) y con PostgreSQL 14+ la retención usa
+ * DETACH CONCURRENTLY, que no bloquea la ingesta; un INSERT fuera de todo rango
+ * falla, por eso se crean {@code gps.particiones.periodos-adelanto} particiones futuras.
+ * Con {@code gps.particiones.particion-defecto} esas filas van a la DEFAULT, pero
+ * PostgreSQL ya no permite DETACH CONCURRENTLY: cada DETACH toma ACCESS EXCLUSIVE
+ * sobre la tabla y la ingesta espera detrás de él hasta
+ * {@code gps.particiones.lock-timeout-ms}. Las filas antiguas de una DEFAULT
+ * existente se depuran aunque la opción esté desactivada.
+ */
+@Service
+public class ParticionUbicacionService implements IParticionUbicacionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ParticionUbicacionService.class);
+    
+    private static final String PREFIJO = "ubicaciones_tiempo_real_p";
+    private static final DateTimeFormatter FORMATO_SUFIJO = DateTimeFormatter.BASIC_ISO_DATE;
+    
+    public enum Intervalo { DIARIO, SEMANAL }
+    
+    @Autowired
+    private UbicacionTiempoRealRepository ubicacionRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.particiones.habilitado:true}")
+    private boolean habilitado;
+    
+    @Value("${gps.particiones.intervalo:DIARIO}")
+    private Intervalo intervalo;
+    
+    @Value("${gps.particiones.periodos-adelanto:7}")
+    private int periodosAdelanto;
+    
+    @Value("${gps.particiones.retencion-dias:90}")
+    private int retencionDias;
+    
+    @Value("${gps.particiones.simulacion:false}")
+    private boolean simulacion;
+    
+    @Value("${gps.particiones.zona-horaria:America/Lima}")
+    private ZoneId zona;
+    
+    @Value("${gps.particiones.particion-defecto:false}")
+    private boolean particionDefecto;
+    
+    @Value("${gps.particiones.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+    
+    private Counter creadas;
+    private Counter eliminadas;
+    
+    @PostConstruct
+    void inicializar() {
+        creadas = Counter.builder("gps.particiones.creadas").register(meterRegistry);
+        eliminadas = Counter.builder("gps.particiones.eliminadas").register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${gps.particiones.cron:0 15 3 * * *}", zone = "${gps.particiones.zona-horaria:America/Lima}")
+    void mantenerParticiones() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            if (!ubicacionRepository.esTablaParticionada()) {
+                log.warn("ubicaciones_tiempo_real no está particionada; se omite el mantenimiento de particiones");
+                return;
+            }
+            if (particionDefecto && ubicacionRepository.crearParticionDefecto()) {
+                log.info("Partición GPS DEFAULT creada");
+            }
+            crearParticionesFuturas();
+            aplicarRetencion();
+        } catch (Exception e) {
+            log.error("Error en el mantenimiento de particiones GPS: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public List<String> crearParticionesFuturas() {
+        List<String> nombres = new ArrayList<>();
+        LocalDate inicio = inicioPeriodo(LocalDate.now(zona));
+        for (int i = 0; i <= periodosAdelanto; i++) {
+            LocalDate fin = siguientePeriodo(inicio);
+            ParticionUbicacion particion = new ParticionUbicacion(
+                PREFIJO + FORMATO_SUFIJO.format(inicio),
+                inicio.atStartOfDay(zona).toOffsetDateTime(),
+                fin.atStartOfDay(zona).toOffsetDateTime()
+            );
+            try {
+                if (ubicacionRepository.crearParticion(particion)) {
+                    nombres.add(particion.nombre());
+                    creadas.increment();
+                    log.info("Partición GPS creada: {} [{} - {})", particion.nombre(), particion.desde(), particion.hasta());
+                }
+            } catch (Exception e) {
+                // Normalmente un rango solapado con una partición creada a mano o con otro intervalo,
+                // o filas de ese rango ya guardadas en la partición DEFAULT
+                log.error("No se pudo crear la partición {}: {}", particion.nombre(), e.getMessage());
+            }
+            inicio = fin;
+        }
+        return nombres;
+    }
+    
+    @Override
+    public List<String> aplicarRetencion() {
+        OffsetDateTime limite = LocalDate.now(zona).minusDays(retencionDias)
+            .atStartOfDay(zona).toOffsetDateTime();
+        List<String> nombres = new ArrayList<>();
+        for (ParticionUbicacion particion : ubicacionRepository.listarParticiones()) {
+            // Solo particiones gestionadas por este servicio y completamente anteriores al límite
+            if (!particion.nombre().startsWith(PREFIJO) || particion.hasta().isAfter(limite)) {
+                continue;
+            }
+            if (simulacion) {
+                log.info("[simulación] Se eliminaría la partición GPS {} [{} - {})",
+                    particion.nombre(), particion.desde(), particion.hasta());
+                nombres.add(particion.nombre());
+            } else if (eliminar(particion.nombre(), true)) {
+                nombres.add(particion.nombre());
+            }
+        }
+        // Separadas en una ejecución anterior cuyo DROP no llegó a completarse
+        for (String nombre : ubicacionRepository.listarTablasSeparadas(PREFIJO)) {
+            if (!anteriorAlLimite(nombre, limite)) {
+                continue;
+            }
+            if (simulacion) {
+                log.info("[simulación] Se eliminaría la tabla GPS separada {}", nombre);
+                nombres.add(nombre);
+            } else if (eliminar(nombre, false)) {
+                nombres.add(nombre);
+            }
+        }
+        if (simulacion) {
+            log.info("[simulación] Se depurarían las filas de la partición DEFAULT (si existe) anteriores a {}", limite);
+        } else {
+            int filas = ubicacionRepository.depurarParticionDefecto(limite);
+            if (filas > 0) {
+                log.info("Filas de la partición GPS DEFAULT eliminadas por retención: {}", filas);
+            }
+        }
+        return nombres;
+    }
+    
+    private boolean eliminar(String nombre, boolean separar) {
+        try {
+            if (separar) {
+                ubicacionRepository.separarParticion(nombre, lockTimeoutMs);
+            }
+            ubicacionRepository.eliminarParticion(nombre);
+            eliminadas.increment();
+            log.info("Partición GPS eliminada por retención: {}", nombre);
+            return true;
+        } catch (Exception e) {
+            // Normalmente lock_timeout por consultas largas; se reintenta en la siguiente ejecución
+            log.warn("No se pudo eliminar la partición {}: {}", nombre, e.getMessage());
+            return false;
+        }
+    }
+    
+    private boolean anteriorAlLimite(String nombre, OffsetDateTime limite) {
+        try {
+            LocalDate inicio = LocalDate.parse(nombre.substring(PREFIJO.length()), FORMATO_SUFIJO);
+            return !siguientePeriodo(inicio).atStartOfDay(zona).toOffsetDateTime().isAfter(limite);
+        } catch (DateTimeParseException e) {
+            // Tabla con el prefijo pero no creada por este servicio
+            return false;
+        }
+    }
+    
+    private LocalDate inicioPeriodo(LocalDate fecha) {
+        return intervalo == Intervalo.SEMANAL
+            ? fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+            : fecha;
+    }
+    
+    private LocalDate siguientePeriodo(LocalDate inicio) {
+        return intervalo == Intervalo.SEMANAL ? inicio.plusWeeks(1) : inicio.plusDays(1);
+    }
+}
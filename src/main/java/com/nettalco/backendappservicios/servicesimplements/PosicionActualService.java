@@ -0,0 +1,87 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.servicesinterfaces.IPosicionActualService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Última ubicación por viaje en un ConcurrentHashMap.
+ * La respuesta se construye al ingerir, de modo que cada lectura es un get sin
+ * asignaciones ni consultas. Las entradas se eliminan cuando el viaje deja de
+ * estar en curso (lo avisa la caché de estados de viaje) o cuando no reciben
+ * ubicaciones durante {@code gps.posicion-actual.ttl-segundos}.
+ */
+@Service
+public class PosicionActualService implements IPosicionActualService {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.posicion-actual.ttl-segundos:600}")
+    private long ttlSegundos;
+    
+    private final ConcurrentHashMap<Integer, BusLocationResponse> posiciones = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void inicializar() {
+        Gauge.builder("gps.posicion-actual.viajes", posiciones, ConcurrentHashMap::size)
+            .description("Viajes con última ubicación en memoria")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public void actualizar(List<UbicacionRegistro> registros) {
+        for (UbicacionRegistro registro : registros) {
+            actualizar(registro.idViaje(), registro.aBusLocationResponse());
+        }
+    }
+    
+    @Override
+    public void actualizar(Integer idViaje, BusLocationResponse ubicacion) {
+        // Conservar la más reciente aunque los lotes lleguen desordenados
+        posiciones.merge(idViaje, ubicacion, (actual, nueva) ->
+            nueva.timestamp().isBefore(actual.timestamp()) ? actual : nueva);
+    }
+    
+    @Override
+    public Optional<BusLocationResponse> obtener(Integer idViaje) {
+        return Optional.ofNullable(posiciones.get(idViaje));
+    }
+    
+    @Override
+    public Map<Integer, BusLocationResponse> listar() {
+        return Collections.unmodifiableMap(posiciones);
+    }
+    
+    @Override
+    public void invalidar(Integer idViaje) {
+        posiciones.remove(idViaje);
+    }
+    
+    /**
+     * Elimina las entradas de viajes que dejaron de reportar.
+     * Las de viajes que salen de en_curso las invalida la caché de estados de viaje.
+     */
+    @Scheduled(fixedDelayString = "${gps.posicion-actual.verificacion-ms:30000}")
+    void expirarEntradas() {
+        if (posiciones.isEmpty()) {
+            return;
+        }
+        OffsetDateTime limite = OffsetDateTime.now().minusSeconds(ttlSegundos);
+        posiciones.entrySet().removeIf(e -> e.getValue().timestamp().isBefore(limite));
+    }
+}
@@ -0,0 +1,93 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.repositories.RutaRepository;
+import com.nettalco.backendappservicios.repositories.RutaRepository.HuellaRuta;
+import com.nettalco.backendappservicios.servicesinterfaces.IRevisionRutaService;
+import com.nettalco.backendappservicios.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * La revisión de una ruta es el md5 de su contenido persistido, así que es la misma
+ * en todas las instancias y sobrevive a los reinicios.
+ * Se cachea por ruta: los cambios hechos desde este backend la descartan al confirmar,
+ * y {@link #sincronizar()} descarta las que cambiaron por fuera (otra instancia o la
+ * base de datos directamente).
+ */
+@Service
+public class RevisionRutaService implements IRevisionRutaService {
+    
+    /** Revisión de una ruta que no existe */
+    private static final String SIN_RUTA = "0";
+    
+    @Autowired
+    private RutaRepository rutaRepository;
+    
+    private final ConcurrentHashMap<Integer, String> revisiones = new ConcurrentHashMap<>();
+    
+    // Solo desde sincronizar(), que no se ejecuta en paralelo consigo misma
+    private Map<Integer, String> sincronizadas;
+    
+    @Override
+    public String revision(Integer idRuta) {
+        String revision = revisiones.get(idRuta);
+        if (revision != null) {
+            return revision;
+        }
+        revision = rutaRepository.findHuellaById(idRuta).map(HuellaRuta::getHuella).orElse(SIN_RUTA);
+        String anterior = revisiones.putIfAbsent(idRuta, revision);
+        return anterior != null ? anterior : revision;
+    }
+    
+    @Override
+    public void registrarCambio(Integer idRuta) {
+        Transacciones.alConfirmar(() -> revisiones.remove(idRuta));
+    }
+    
+    @Override
+    public synchronized Set<Integer> sincronizar() {
+        Map<Integer, String> actuales = new HashMap<>();
+        for (HuellaRuta huella : rutaRepository.findHuellas()) {
+            actuales.put(huella.getIdRuta(), huella.getHuella());
+        }
+        // Descarta también lo que una lectura concurrente cacheó justo antes de un cambio
+        revisiones.forEach((idRuta, revision) -> {
+            if (!revision.equals(actuales.getOrDefault(idRuta, SIN_RUTA))) {
+                revisiones.remove(idRuta, revision);
+            }
+        });
+        
+        Set<Integer> cambiadas = new HashSet<>();
+        if (sincronizadas != null) {
+            actuales.forEach((idRuta, revision) -> {
+                if (!revision.equals(sincronizadas.get(idRuta))) {
+                    cambiadas.add(idRuta);
+                }
+            });
+            for (Integer idRuta : sincronizadas.keySet()) {
+                if (!actuales.containsKey(idRuta)) {
+                    cambiadas.add(idRuta);
+                }
+            }
+        }
+        sincronizadas = actuales;
+        return cambiadas;
+    }
+    
+    @Override
+    public String etagRuta(Integer idRuta, String revision) {
+        return "\"ruta-" + idRuta + "-" + revision + "\"";
+    }
+    
+    @Override
+    public String etagRutaViaje(Integer idViaje, Integer idRuta, String revision, String estado, Integer etaMinutos) {
+        return "\"viaje-" + idViaje + "-ruta-" + idRuta + "-" + revision
+            + "-" + estado + "-" + (etaMinutos != null ? etaMinutos : "na") + "\"";
+    }
+}
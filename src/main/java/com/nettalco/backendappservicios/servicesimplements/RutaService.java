@@ -2,6 +2,7 @@ package com.nettalco.backendappservicios.servicesimplements;
 
 import com.nettalco.backendappservicios.dtos.CrearRutaRequest;
 import com.nettalco.backendappservicios.dtos.PuntoRutaDto;
+import com.nettalco.backendappservicios.dtos.RespuestaSerializada;
 import com.nettalco.backendappservicios.dtos.RutaDetalleCompletoResponse;
 import com.nettalco.backendappservicios.dtos.RutaResponse;
 import com.nettalco.backendappservicios.dtos.ViajeActivoResponse;
@@ -10,20 +11,37 @@ import com.nettalco.backendappservicios.entities.Ruta;
 import com.nettalco.backendappservicios.entities.RutaPunto;
 import com.nettalco.backendappservicios.repositories.BusRepository;
 import com.nettalco.backendappservicios.repositories.RutaRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.ICercaniaService;
+import com.nettalco.backendappservicios.servicesinterfaces.IGeometriaRutaService;
+import com.nettalco.backendappservicios.servicesinterfaces.IRevisionRutaService;
 import com.nettalco.backendappservicios.servicesinterfaces.IRutaService;
 import com.nettalco.backendappservicios.servicesinterfaces.IViajeService;
+import com.nettalco.backendappservicios.util.CacheInvalidable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Las rutas también se editan por fuera de este backend (otra instancia o la base de
+ * datos directamente): cada {@code gps.rutas.sincronizacion-ms} se comparan las revisiones
+ * persistidas y se descartan el catálogo, la geometría y los paraderos de las que cambiaron.
+ */
 @Service
 @Transactional
 public class RutaService implements IRutaService {
     
+    private static final Logger log = LoggerFactory.getLogger(RutaService.class);
+    
     @Autowired
     private RutaRepository rutaRepository;
     
@@ -33,6 +51,21 @@ public class RutaService implements IRutaService {
     @Autowired
     private IViajeService viajeService;
     
+    @Autowired
+    private IGeometriaRutaService geometriaRutaService;
+    
+    @Autowired
+    private ICercaniaService cercaniaService;
+    
+    @Autowired
+    private IRevisionRutaService revisionRutaService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final CacheInvalidable<RespuestaSerializada> catalogo = new CacheInvalidable<>(
+        () -> RespuestaSerializada.de(objectMapper.writeValueAsBytes(listarRutas())));
+    
     @Override
     @Transactional(rollbackFor = Exception.class)
     public RutaResponse crearRuta(CrearRutaRequest request) {
@@ -67,11 +100,34 @@ public class RutaService implements IRutaService {
         
         // Guardar la ruta y sus puntos en una sola transacción
         Ruta rutaGuardada = rutaRepository.save(ruta);
+        geometriaRutaService.publicar(rutaGuardada);
+        cercaniaService.invalidarParaderos();
+        revisionRutaService.registrarCambio(rutaGuardada.getIdRuta());
+        catalogo.invalidar();
         
         // Retornar el DTO de respuesta
         return convertirARutaResponse(rutaGuardada);
     }
     
+    @Scheduled(fixedDelayString = "${gps.rutas.sincronizacion-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void sincronizarRutas() {
+        Set<Integer> cambiadas;
+        try {
+            cambiadas = revisionRutaService.sincronizar();
+        } catch (Exception e) {
+            log.warn("No se pudieron sincronizar las revisiones de rutas: {}", e.getMessage());
+            return;
+        }
+        if (cambiadas.isEmpty()) {
+            return;
+        }
+        log.info("Rutas modificadas fuera de esta instancia: {}", cambiadas);
+        cambiadas.forEach(geometriaRutaService::invalidar);
+        cercaniaService.invalidarParaderos();
+        catalogo.invalidar();
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Optional<RutaResponse> obtenerRutaPorId(Integer id) {
@@ -79,14 +135,28 @@ public class RutaService implements IRutaService {
             .map(this::convertirARutaResponse);
     }
     
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String obtenerEtagRuta(Integer id) {
+        return revisionRutaService.etagRuta(id, revisionRutaService.revision(id));
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public List<RutaResponse> listarRutas() {
-        return rutaRepository.findAll().stream()
+        return rutaRepository.findAllWithPuntos().stream()
             .map(this::convertirARutaResponse)
             .collect(Collectors.toList());
     }
     
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public RespuestaSerializada obtenerCatalogoSerializado() {
+        // Sin transacción propia: un acierto no toma conexión del pool; al recargar,
+        // findAllWithPuntos trae los puntos en la misma consulta
+        return catalogo.obtener();
+    }
+    
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void eliminarRuta(Integer id) {
@@ -94,6 +164,10 @@ public class RutaService implements IRutaService {
             throw new IllegalArgumentException("La ruta con ID " + id + " no existe");
         }
         rutaRepository.deleteById(id);
+        geometriaRutaService.invalidar(id);
+        cercaniaService.invalidarParaderos();
+        revisionRutaService.registrarCambio(id);
+        catalogo.invalidar();
     }
     
     @Override
@@ -135,6 +209,10 @@ public class RutaService implements IRutaService {
         }
         
         Ruta rutaActualizada = rutaRepository.save(ruta);
+        geometriaRutaService.publicar(rutaActualizada);
+        cercaniaService.invalidarParaderos();
+        revisionRutaService.registrarCambio(id);
+        catalogo.invalidar();
         return convertirARutaResponse(rutaActualizada);
     }
     
@@ -0,0 +1,286 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.PosicionBusResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.entities.Viaje;
+import com.nettalco.backendappservicios.repositories.ViajeRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IPosicionActualService;
+import com.nettalco.backendappservicios.servicesinterfaces.ISuscripcionUbicacionService;
+import com.nettalco.backendappservicios.servicesinterfaces.IViajeService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Suscripciones SSE por viaje y por ruta.
+ * Los emisores quedan en memoria sin ocupar hilos (request asíncrono del servlet).
+ * Cada suscriptor tiene su propia cola de eventos, acotada a {@code gps.sse.max-pendientes},
+ * que vacía un único hilo virtual a la vez: los envíos a un cliente quedan en orden y
+ * nunca concurren entre sí ni con el heartbeat, y un cliente lento no retrasa la ingesta
+ * ni a los demás. En la cola se conserva solo la posición más reciente de cada viaje;
+ * con la cola llena se descarta el evento más antiguo, y una posición anterior a la
+ * última enviada del mismo viaje no se envía.
+ */
+@Service
+public class SuscripcionUbicacionService implements ISuscripcionUbicacionService {
+    
+    private static final String EVENTO_UBICACION = "location";
+    private static final String EVENTO_BUS = "bus";
+    
+    @Autowired
+    private IViajeService viajeService;
+    
+    @Autowired
+    private IPosicionActualService posicionActualService;
+    
+    @Autowired
+    private ViajeRepository viajeRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+    
+    @Value("${gps.sse.max-pendientes:32}")
+    private int maxPendientes;
+    
+    private final ConcurrentHashMap<Integer, Set<Suscriptor>> suscriptoresViaje = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Suscriptor>> suscriptoresRuta = new ConcurrentHashMap<>();
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+    
+    private Counter descartados;
+    
+    /**
+     * Evento en cola; la clave es el viaje (null para el heartbeat)
+     */
+    private record Evento(Integer idViaje, long fechaMs, SseEmitter.SseEventBuilder contenido) {}
+    
+    /**
+     * Emisor con su cola de eventos pendientes; todo el estado se protege con el monitor del suscriptor
+     */
+    private final class Suscriptor {
+        final SseEmitter emitter;
+        // Orden de llegada, una entrada por viaje; la clave null es el heartbeat
+        final LinkedHashMap<Integer, Evento> pendientes = new LinkedHashMap<>();
+        final HashMap<Integer, Long> ultimaEnviadaMs = new HashMap<>();
+        boolean enviando;
+        boolean cerrado;
+        
+        Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+        
+        void encolar(Evento evento) {
+            synchronized (this) {
+                if (cerrado) {
+                    return;
+                }
+                Long ultima = ultimaEnviadaMs.get(evento.idViaje());
+                if (evento.idViaje() != null && ultima != null && evento.fechaMs() <= ultima) {
+                    return;
+                }
+                Evento anterior = pendientes.get(evento.idViaje());
+                if (anterior != null) {
+                    // Conserva la posición en la cola y se queda con la fecha más reciente
+                    if (evento.fechaMs() >= anterior.fechaMs()) {
+                        pendientes.put(evento.idViaje(), evento);
+                    }
+                } else {
+                    if (pendientes.size() >= maxPendientes) {
+                        pendientes.pollFirstEntry();
+                        descartados.increment();
+                    }
+                    pendientes.put(evento.idViaje(), evento);
+                }
+                if (enviando) {
+                    return;
+                }
+                enviando = true;
+            }
+            envios.execute(this::drenar);
+        }
+        
+        void heartbeat() {
+            synchronized (this) {
+                // Si hay eventos pendientes, el próximo envío ya mantiene viva la conexión
+                if (!pendientes.isEmpty() || enviando) {
+                    return;
+                }
+            }
+            encolar(new Evento(null, 0, SseEmitter.event().comment("ping")));
+        }
+        
+        private void drenar() {
+            while (true) {
+                Evento evento;
+                synchronized (this) {
+                    Map.Entry<Integer, Evento> siguiente = pendientes.pollFirstEntry();
+                    if (siguiente == null || cerrado) {
+                        enviando = false;
+                        return;
+                    }
+                    evento = siguiente.getValue();
+                    if (evento.idViaje() != null) {
+                        ultimaEnviadaMs.put(evento.idViaje(), evento.fechaMs());
+                    }
+                }
+                try {
+                    emitter.send(evento.contenido());
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado: completar para liberar la suscripción
+                    cerrar();
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+        
+        void cerrar() {
+            synchronized (this) {
+                cerrado = true;
+                enviando = false;
+                pendientes.clear();
+            }
+        }
+    }
+    
+    @PostConstruct
+    void inicializar() {
+        Gauge.builder("gps.sse.suscriptores", this, s -> contar(s.suscriptoresViaje) + contar(s.suscriptoresRuta))
+            .description("Conexiones SSE abiertas")
+            .register(meterRegistry);
+        descartados = Counter.builder("gps.sse.descartados")
+            .description("Eventos SSE descartados por cola llena de un cliente lento")
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void detener() {
+        envios.shutdownNow();
+    }
+    
+    @Override
+    public SseEmitter suscribirViaje(Integer idViaje) {
+        Suscriptor suscriptor = registrar(suscriptoresViaje, idViaje, new SseEmitter(timeoutMs));
+        
+        // Enviar la posición actual sin esperar al próximo reporte del bus
+        viajeService.obtenerUbicacionActual(idViaje)
+            .ifPresent(ubicacion -> suscriptor.encolar(evento(idViaje, ubicacion.timestamp(), EVENTO_UBICACION, ubicacion)));
+        return suscriptor.emitter;
+    }
+    
+    @Override
+    public SseEmitter suscribirRuta(Integer idRuta) {
+        Suscriptor suscriptor = registrar(suscriptoresRuta, idRuta, new SseEmitter(timeoutMs));
+        
+        for (Viaje viaje : viajeRepository.findByRutaIdAndActivos(idRuta)) {
+            if (!"en_curso".equals(viaje.getEstado())) {
+                continue;
+            }
+            posicionActualService.obtener(viaje.getIdViaje())
+                .ifPresent(ubicacion -> suscriptor.encolar(evento(viaje.getIdViaje(), ubicacion.timestamp(), EVENTO_BUS,
+                    PosicionBusResponse.de(viaje.getIdViaje(), idRuta, ubicacion))));
+        }
+        return suscriptor.emitter;
+    }
+    
+    @Override
+    public void publicar(List<UbicacionRegistro> registros) {
+        if (suscriptoresViaje.isEmpty() && suscriptoresRuta.isEmpty()) {
+            return;
+        }
+        for (UbicacionRegistro registro : registros) {
+            BusLocationResponse ubicacion = registro.aBusLocationResponse();
+            
+            Set<Suscriptor> deViaje = suscriptoresViaje.get(registro.idViaje());
+            if (deViaje != null) {
+                for (Suscriptor suscriptor : deViaje) {
+                    suscriptor.encolar(evento(registro.idViaje(), registro.fechaRegistro(), EVENTO_UBICACION, ubicacion));
+                }
+            }
+            
+            if (suscriptoresRuta.isEmpty()) {
+                continue;
+            }
+            Integer idRuta = viajeService.obtenerIdRuta(registro.idViaje()).orElse(null);
+            Set<Suscriptor> deRuta = idRuta != null ? suscriptoresRuta.get(idRuta) : null;
+            if (deRuta != null) {
+                PosicionBusResponse posicion = PosicionBusResponse.de(registro.idViaje(), idRuta, ubicacion);
+                for (Suscriptor suscriptor : deRuta) {
+                    suscriptor.encolar(evento(registro.idViaje(), registro.fechaRegistro(), EVENTO_BUS, posicion));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Comentario SSE periódico: mantiene viva la conexión a través de proxies
+     * y detecta clientes desconectados
+     */
+    @Scheduled(fixedDelayString = "${gps.sse.heartbeat-ms:15000}")
+    void heartbeat() {
+        enviarHeartbeat(suscriptoresViaje);
+        enviarHeartbeat(suscriptoresRuta);
+    }
+    
+    private void enviarHeartbeat(ConcurrentHashMap<Integer, Set<Suscriptor>> suscriptores) {
+        for (Set<Suscriptor> conjunto : suscriptores.values()) {
+            for (Suscriptor suscriptor : conjunto) {
+                suscriptor.heartbeat();
+            }
+        }
+    }
+    
+    private Suscriptor registrar(ConcurrentHashMap<Integer, Set<Suscriptor>> suscriptores, Integer clave, SseEmitter emitter) {
+        Suscriptor suscriptor = new Suscriptor(emitter);
+        suscriptores.compute(clave, (k, conjunto) -> {
+            Set<Suscriptor> actual = conjunto != null ? conjunto : ConcurrentHashMap.newKeySet();
+            actual.add(suscriptor);
+            return actual;
+        });
+        Runnable quitar = () -> {
+            suscriptor.cerrar();
+            suscriptores.computeIfPresent(clave, (k, conjunto) -> {
+                conjunto.remove(suscriptor);
+                return conjunto.isEmpty() ? null : conjunto;
+            });
+        };
+        emitter.onCompletion(quitar);
+        emitter.onTimeout(quitar);
+        emitter.onError(e -> quitar.run());
+        return suscriptor;
+    }
+    
+    private static Evento evento(Integer idViaje, OffsetDateTime fecha, String nombre, Object dato) {
+        long fechaMs = fecha != null ? fecha.toInstant().toEpochMilli() : 0;
+        return new Evento(idViaje, fechaMs, SseEmitter.event().name(nombre).data(dato));
+    }
+    
+    private static int contar(ConcurrentHashMap<Integer, Set<Suscriptor>> suscriptores) {
+        int total = 0;
+        for (Set<Suscriptor> conjunto : suscriptores.values()) {
+            total += conjunto.size();
+        }
+        return total;
+    }
+}
@@ -1,41 +1,84 @@
 package com.nettalco.backendappservicios.servicesimplements;
 
+import com.nettalco.backendappservicios.dtos.GPSIngestaLoteResponse;
+import com.nettalco.backendappservicios.dtos.GPSIngestaLoteResponse.ResultadoItem;
 import com.nettalco.backendappservicios.dtos.GPSIngestaRequest;
 import com.nettalco.backendappservicios.dtos.GPSIngestaResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
 import com.nettalco.backendappservicios.entities.UbicacionTiempoReal;
-import com.nettalco.backendappservicios.entities.Viaje;
 import com.nettalco.backendappservicios.repositories.UbicacionTiempoRealRepository;
 import com.nettalco.backendappservicios.repositories.ViajeRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.ICercaniaService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEtaService;
+import com.nettalco.backendappservicios.servicesinterfaces.IFlotaBroadcastService;
+import com.nettalco.backendappservicios.servicesinterfaces.IPosicionActualService;
+import com.nettalco.backendappservicios.servicesinterfaces.ISuscripcionUbicacionService;
 import com.nettalco.backendappservicios.servicesinterfaces.IUbicacionTiempoRealService;
+import jakarta.validation.ConstraintViolation;
+import com.nettalco.backendappservicios.util.Transacciones;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
-import java.util.concurrent.CompletableFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class UbicacionTiempoRealService implements IUbicacionTiempoRealService {
     
+    private static final Logger log = LoggerFactory.getLogger(UbicacionTiempoRealService.class);
+    
     @Autowired
     private UbicacionTiempoRealRepository ubicacionRepository;
     
     @Autowired
     private ViajeRepository viajeRepository;
     
+    @Autowired
+    private IEstadoViajeService estadoViajeService;
+    
+    @Autowired
+    private IPosicionActualService posicionActualService;
+    
+    @Autowired
+    private ISuscripcionUbicacionService suscripcionService;
+    
+    @Autowired
+    private IFlotaBroadcastService flotaService;
+    
+    @Autowired
+    private IEtaService etaService;
+    
+    @Autowired
+    private ICercaniaService cercaniaService;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Value("${gps.ingesta.lote.max-items:1000}")
+    private int maxItemsLote;
+    
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
     public GPSIngestaResponse registrarUbicacion(GPSIngestaRequest request) {
-        // Validar que el viaje existe y está activo
-        Viaje viaje = viajeRepository.findByIdAndActivo(request.idViaje())
-            .orElseThrow(() -> new IllegalArgumentException(
-                "El viaje con ID " + request.idViaje() + " no existe o no está en curso"));
+        // Validar que el viaje está en curso contra la caché de estados (sin SELECT)
+        if (!estadoViajeService.estaEnCurso(request.idViaje())) {
+            throw new IllegalArgumentException(
+                "El viaje con ID " + request.idViaje() + " no existe o no está en curso");
+        }
         
-        // Crear la entidad de ubicación
+        // Crear la entidad de ubicación; la FK se asigna con una referencia sin cargar el viaje
         UbicacionTiempoReal ubicacion = new UbicacionTiempoReal();
-        ubicacion.setViaje(viaje);
+        ubicacion.setViaje(viajeRepository.getReferenceById(request.idViaje()));
         ubicacion.setLatitud(request.latitud());
         ubicacion.setLongitud(request.longitud());
         ubicacion.setVelocidadKmh(request.velocidadKmh());
@@ -45,6 +88,15 @@ public class UbicacionTiempoRealService implements IUbicacionTiempoRealService {
         // Guardar usando REQUIRES_NEW para minimizar el tiempo de bloqueo de transacción
         UbicacionTiempoReal ubicacionGuardada = ubicacionRepository.save(ubicacion);
         
+        notificarUbicaciones(List.of(new UbicacionRegistro(
+            request.idViaje(),
+            ubicacionGuardada.getLatitud(),
+            ubicacionGuardada.getLongitud(),
+            ubicacionGuardada.getVelocidadKmh(),
+            ubicacionGuardada.getRumbo(),
+            ubicacionGuardada.getFechaRegistro()
+        )));
+        
         return new GPSIngestaResponse(
             ubicacionGuardada.getIdTracking(),
             request.idViaje(),
@@ -54,11 +106,136 @@ public class UbicacionTiempoRealService implements IUbicacionTiempoRealService {
     }
     
     @Override
-    @Async("virtualThreadExecutor")
-    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
-    public CompletableFuture<GPSIngestaResponse> registrarUbicacionAsync(GPSIngestaRequest request) {
-        GPSIngestaResponse response = registrarUbicacion(request);
-        return CompletableFuture.completedFuture(response);
+    @Transactional(rollbackFor = Exception.class)
+    public GPSIngestaLoteResponse registrarUbicacionesLote(List<GPSIngestaRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("El lote debe contener al menos una ubicación");
+        }
+        if (requests.size() > maxItemsLote) {
+            throw new IllegalArgumentException(
+                "El lote excede el máximo de " + maxItemsLote + " ubicaciones");
+        }
+        
+        // Validar cada elemento por separado: un error no invalida el lote
+        String[] errores = new String[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            GPSIngestaRequest request = requests.get(i);
+            if (request == null) {
+                errores[i] = "Elemento vacío";
+                continue;
+            }
+            Set<ConstraintViolation<GPSIngestaRequest>> violaciones = validator.validate(request);
+            if (!violaciones.isEmpty()) {
+                errores[i] = violaciones.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            }
+        }
+        
+        // Viajes del lote resueltos de una vez: caché más una sola consulta IN para los que faltan
+        Set<Integer> viajesEnCurso = estadoViajeService.filtrarEnCurso(requests.stream()
+            .filter(request -> request != null && request.idViaje() != null)
+            .map(GPSIngestaRequest::idViaje)
+            .collect(Collectors.toSet()));
+        
+        OffsetDateTime fechaRegistro = OffsetDateTime.now();
+        List<UbicacionRegistro> registros = new ArrayList<>(requests.size());
+        List<Integer> indicesRegistrados = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (errores[i] != null) {
+                continue;
+            }
+            GPSIngestaRequest request = requests.get(i);
+            if (!viajesEnCurso.contains(request.idViaje())) {
+                errores[i] = "El viaje con ID " + request.idViaje() + " no existe o no está en curso";
+                continue;
+            }
+            registros.add(new UbicacionRegistro(
+                request.idViaje(),
+                request.latitud(),
+                request.longitud(),
+                request.velocidadKmh(),
+                request.rumbo(),
+                fechaRegistro
+            ));
+            indicesRegistrados.add(i);
+        }
+        
+        List<Long> idsGenerados = registros.isEmpty()
+            ? List.of()
+            : ubicacionRepository.insertarLote(registros);
+        notificarUbicaciones(registros);
+        
+        Long[] idsPorIndice = new Long[requests.size()];
+        for (int j = 0; j < indicesRegistrados.size(); j++) {
+            idsPorIndice[indicesRegistrados.get(j)] = idsGenerados.get(j);
+        }
+        
+        List<ResultadoItem> resultados = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            Integer idViaje = requests.get(i) != null ? requests.get(i).idViaje() : null;
+            if (errores[i] != null) {
+                resultados.add(new ResultadoItem(i, idViaje, null, null, errores[i]));
+            } else {
+                resultados.add(new ResultadoItem(i, idViaje, idsPorIndice[i], fechaRegistro, null));
+            }
+        }
+        
+        return new GPSIngestaLoteResponse(
+            requests.size(),
+            registros.size(),
+            requests.size() - registros.size(),
+            resultados
+        );
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int registrarUbicacionesPendientes(List<UbicacionRegistro> registros) {
+        if (registros.isEmpty()) {
+            return 0;
+        }
+        Set<Integer> viajesEnCurso = estadoViajeService.filtrarEnCurso(registros.stream()
+            .map(UbicacionRegistro::idViaje)
+            .collect(Collectors.toSet()));
+        List<UbicacionRegistro> validos = registros.stream()
+            .filter(r -> viajesEnCurso.contains(r.idViaje()))
+            .collect(Collectors.toList());
+        if (!validos.isEmpty()) {
+            ubicacionRepository.insertarLote(validos);
+            notificarUbicaciones(validos);
+        }
+        return validos.size();
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void reinsertarUbicaciones(List<UbicacionRegistro> registros) {
+        if (!registros.isEmpty()) {
+            ubicacionRepository.insertarLote(registros);
+        }
+    }
+    
+    /**
+     * Propaga ubicaciones recién persistidas: última posición en memoria,
+     * ETAs, suscriptores SSE y broadcast de flota.
+     * Se ejecuta después del commit; si la transacción se revierte no se publica nada.
+     * Un error aquí ya no puede revertir la inserción, así que solo se registra
+     * (si se propagara, quien llama trataría como fallidas filas ya guardadas).
+     */
+    private void notificarUbicaciones(List<UbicacionRegistro> registros) {
+        Transacciones.alConfirmar(() -> {
+            try {
+                posicionActualService.actualizar(registros);
+                etaService.actualizar(registros);
+                cercaniaService.actualizar(registros);
+                suscripcionService.publicar(registros);
+                flotaService.publicar(registros);
+            } catch (Exception e) {
+                log.error("Error propagando {} ubicaciones GPS ya persistidas: {}", registros.size(), e.getMessage(), e);
+            }
+        });
     }
 }
 
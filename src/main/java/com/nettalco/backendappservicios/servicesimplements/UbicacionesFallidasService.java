@@ -0,0 +1,433 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.servicesinterfaces.IUbicacionTiempoRealService;
+import com.nettalco.backendappservicios.servicesinterfaces.IUbicacionesFallidasService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * El diario es un directorio con un archivo activo (actual.log) al que solo se agrega,
+ * una línea por ubicación y una escritura con fsync por lote fallido.
+ * El reintentador sella el archivo activo como segmento (segmento-&lt;ms&gt;.log) y
+ * reinserta los segmentos del más antiguo al más nuevo, leyéndolos por partes de
+ * {@code gps.buffer.lote-max} líneas (un segmento nunca se carga entero en memoria);
+ * un segmento se borra cuando queda completo.
+ * Cada línea lleva el veredicto de viaje en curso tomado al fallar el lote: las
+ * verificadas se reinsertan tal cual y las que no se pudieron verificar (la caché de
+ * viajes tampoco llegó a la base de datos) se validan al reinsertar; las de viajes
+ * que no estaban en curso no llegan al diario.
+ * Si la base de datos sigue fallando se espera con backoff exponencial
+ * ({@code gps.fallidas.backoff-inicial-ms} hasta {@code gps.fallidas.backoff-max-ms}).
+ * Una ubicación que viola una restricción (p. ej. viaje eliminado) o que no se pudo
+ * verificar y su viaje ya no está en curso se descarta a descartadas.log.
+ * Los segmentos sobreviven a reinicios y se retoman al arrancar.
+ */
+@Service
+public class UbicacionesFallidasService implements IUbicacionesFallidasService {
+    
+    private static final Logger log = LoggerFactory.getLogger(UbicacionesFallidasService.class);
+    
+    private static final String ACTIVO = "actual.log";
+    private static final String PREFIJO_SEGMENTO = "segmento-";
+    private static final String DESCARTADAS = "descartadas.log";
+    private static final String SEPARADOR = ";";
+    private static final String VERIFICADA = "1";
+    private static final String SIN_VERIFICAR = "0";
+    
+    /**
+     * Línea del diario durante la reinserción; {@code resuelta} cuando ya se insertó o descartó
+     */
+    private static final class Pendiente {
+        final UbicacionRegistro registro;
+        final boolean verificada;
+        boolean resuelta;
+        
+        Pendiente(UbicacionRegistro registro, boolean verificada) {
+            this.registro = registro;
+            this.verificada = verificada;
+        }
+    }
+    
+    @Autowired
+    private IUbicacionTiempoRealService ubicacionService;
+    
+    @Autowired
+    private IEstadoViajeService estadoViajeService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${gps.fallidas.directorio:data/ubicaciones-fallidas}")
+    private String directorio;
+    
+    @Value("${gps.buffer.lote-max:500}")
+    private int loteMax;
+    
+    @Value("${gps.fallidas.backoff-inicial-ms:1000}")
+    private long backoffInicialMs;
+    
+    @Value("${gps.fallidas.backoff-max-ms:300000}")
+    private long backoffMaxMs;
+    
+    private Path carpeta;
+    private Path activo;
+    private final Object escritura = new Object();
+    private FileChannel canal;
+    private final AtomicLong pendientes = new AtomicLong();
+    
+    // Solo los usa el hilo del reintentador
+    private int intentosFallidos;
+    private long proximoIntentoNanos = System.nanoTime();
+    
+    private Counter registradas;
+    private Counter reintentadas;
+    private Counter descartadas;
+    private Counter reintentosFallidos;
+    
+    @PostConstruct
+    void inicializar() throws IOException {
+        carpeta = Paths.get(directorio).toAbsolutePath();
+        activo = carpeta.resolve(ACTIVO);
+        Files.createDirectories(carpeta);
+        for (Path archivo : archivosPendientes()) {
+            try (var lineas = Files.lines(archivo, StandardCharsets.UTF_8)) {
+                pendientes.addAndGet(lineas.filter(l -> !l.isBlank()).count());
+            }
+        }
+        if (pendientes.get() > 0) {
+            log.warn("Diario de ubicaciones fallidas con {} ubicaciones pendientes en {}", pendientes.get(), carpeta);
+        }
+        
+        Gauge.builder("gps.fallidas.pendientes", pendientes, AtomicLong::get)
+            .description("Ubicaciones en el diario pendientes de reinsertar")
+            .register(meterRegistry);
+        registradas = Counter.builder("gps.fallidas.registradas")
+            .description("Ubicaciones de lotes fallidos escritas en el diario")
+            .register(meterRegistry);
+        reintentadas = Counter.builder("gps.fallidas.reintentadas")
+            .description("Ubicaciones del diario reinsertadas en la base de datos")
+            .register(meterRegistry);
+        descartadas = Counter.builder("gps.fallidas.descartadas")
+            .description("Ubicaciones del diario descartadas definitivamente")
+            .register(meterRegistry);
+        reintentosFallidos = Counter.builder("gps.fallidas.reintentos-fallidos")
+            .description("Rondas de reintento interrumpidas por un error de la base de datos")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public boolean registrar(List<UbicacionRegistro> verificadas, List<UbicacionRegistro> sinVerificar) {
+        int cantidad = verificadas.size() + sinVerificar.size();
+        if (cantidad == 0) {
+            return true;
+        }
+        StringBuilder texto = new StringBuilder(cantidad * 80);
+        for (UbicacionRegistro registro : verificadas) {
+            escribirLinea(texto, registro, true);
+        }
+        for (UbicacionRegistro registro : sinVerificar) {
+            escribirLinea(texto, registro, false);
+        }
+        ByteBuffer datos = ByteBuffer.wrap(texto.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            synchronized (escritura) {
+                if (canal == null) {
+                    canal = FileChannel.open(activo, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                while (datos.hasRemaining()) {
+                    canal.write(datos);
+                }
+                canal.force(false);
+            }
+        } catch (IOException e) {
+            log.error("No se pudieron escribir {} ubicaciones en el diario de fallidas: {}", cantidad, e.getMessage());
+            return false;
+        }
+        pendientes.addAndGet(cantidad);
+        registradas.increment(cantidad);
+        return true;
+    }
+    
+    @Override
+    public long pendientes() {
+        return pendientes.get();
+    }
+    
+    @Scheduled(fixedDelayString = "${gps.fallidas.reintento-ms:1000}")
+    void reintentar() {
+        if (pendientes.get() == 0 || System.nanoTime() - proximoIntentoNanos < 0) {
+            return;
+        }
+        try {
+            sellarActivo();
+            for (Path segmento : segmentos()) {
+                if (!reinsertar(segmento)) {
+                    esperarAntesDeReintentar();
+                    return;
+                }
+            }
+            intentosFallidos = 0;
+        } catch (IOException e) {
+            log.error("Error leyendo el diario de ubicaciones fallidas: {}", e.getMessage());
+            esperarAntesDeReintentar();
+        }
+    }
+    
+    /**
+     * Reinserta un segmento completo, por partes
+     * @return false si la base de datos falló; lo ya insertado o descartado se quita del segmento
+     */
+    private boolean reinsertar(Path segmento) throws IOException {
+        Path temporal = segmento.resolveSibling(segmento.getFileName() + ".tmp");
+        // Un temporal huérfano (caída antes del reemplazo) no vale: el segmento sigue intacto
+        Files.deleteIfExists(temporal);
+        boolean consumido = false;
+        try (BufferedReader lector = Files.newBufferedReader(segmento, StandardCharsets.UTF_8)) {
+            List<Pendiente> parte = new ArrayList<>(loteMax);
+            int leidas;
+            while ((leidas = leerParte(lector, parte)) > 0) {
+                consumido |= leidas > parte.size();
+                try {
+                    reinsertarParte(parte);
+                    consumido = true;
+                } catch (Exception e) {
+                    reintentosFallidos.increment();
+                    log.warn("Reintento de ubicaciones fallidas interrumpido ({} pendientes): {}", pendientes.get(), e.getMessage());
+                    if (!consumido && parte.stream().noneMatch(p -> p.resuelta)) {
+                        return false;
+                    }
+                    escribirRestantes(temporal, parte, lector);
+                    break;
+                }
+            }
+        }
+        if (Files.exists(temporal)) {
+            Files.move(temporal, segmento, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return false;
+        }
+        Files.delete(segmento);
+        return true;
+    }
+    
+    /**
+     * Lee hasta {@code gps.buffer.lote-max} líneas; las ilegibles se descartan
+     * @return Líneas leídas, incluidas las descartadas; 0 al final del segmento
+     */
+    private int leerParte(BufferedReader lector, List<Pendiente> parte) throws IOException {
+        parte.clear();
+        int leidas = 0;
+        String linea;
+        while (leidas < loteMax && (linea = lector.readLine()) != null) {
+            if (linea.isBlank()) {
+                continue;
+            }
+            leidas++;
+            try {
+                parte.add(leerLinea(linea));
+            } catch (RuntimeException e) {
+                descartar(linea);
+                pendientes.decrementAndGet();
+            }
+        }
+        return leidas;
+    }
+    
+    /**
+     * Marca como resueltas las ubicaciones a medida que se insertan o descartan;
+     * cualquier excepción que no sea de integridad interrumpe la parte
+     */
+    private void reinsertarParte(List<Pendiente> parte) {
+        // Las que no se verificaron al fallar el lote se validan ahora
+        for (Pendiente pendiente : parte) {
+            if (!pendiente.verificada && !estadoViajeService.estaEnCurso(pendiente.registro.idViaje())) {
+                resolverDescartada(pendiente);
+            }
+        }
+        List<Pendiente> porInsertar = parte.stream().filter(p -> !p.resuelta).toList();
+        if (porInsertar.isEmpty()) {
+            return;
+        }
+        try {
+            ubicacionService.reinsertarUbicaciones(porInsertar.stream().map(p -> p.registro).toList());
+            porInsertar.forEach(this::resolverInsertada);
+        } catch (DataIntegrityViolationException e) {
+            // Una fila inválida rechaza todo el lote: se insertan de a una para aislarla
+            for (Pendiente pendiente : porInsertar) {
+                try {
+                    ubicacionService.reinsertarUbicaciones(List.of(pendiente.registro));
+                    resolverInsertada(pendiente);
+                } catch (DataIntegrityViolationException ex) {
+                    resolverDescartada(pendiente);
+                }
+            }
+        }
+    }
+    
+    private void resolverInsertada(Pendiente pendiente) {
+        pendiente.resuelta = true;
+        reintentadas.increment();
+        pendientes.decrementAndGet();
+    }
+    
+    private void resolverDescartada(Pendiente pendiente) {
+        pendiente.resuelta = true;
+        descartar(escribirLinea(new StringBuilder(), pendiente.registro, pendiente.verificada).toString().strip());
+        pendientes.decrementAndGet();
+    }
+    
+    private void esperarAntesDeReintentar() {
+        intentosFallidos++;
+        long esperaMs = Math.min(backoffMaxMs, backoffInicialMs << Math.min(intentosFallidos - 1, 30));
+        proximoIntentoNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+    }
+    
+    /**
+     * Cierra el archivo activo y lo renombra como segmento, para que las
+     * escrituras nuevas no se mezclen con el segmento que se está reinsertando
+     */
+    private void sellarActivo() throws IOException {
+        synchronized (escritura) {
+            if (canal != null) {
+                canal.close();
+                canal = null;
+            }
+            if (Files.exists(activo) && Files.size(activo) > 0) {
+                long marca = System.currentTimeMillis();
+                Path segmento = carpeta.resolve(String.format("%s%013d.log", PREFIJO_SEGMENTO, marca));
+                while (Files.exists(segmento)) {
+                    segmento = carpeta.resolve(String.format("%s%013d.log", PREFIJO_SEGMENTO, ++marca));
+                }
+                Files.move(activo, segmento, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+    
+    /**
+     * Segmentos sellados del más antiguo al más nuevo
+     */
+    private List<Path> segmentos() throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(carpeta, PREFIJO_SEGMENTO + "*.log")) {
+            archivos.forEach(segmentos::add);
+        }
+        segmentos.sort(null);
+        return segmentos;
+    }
+    
+    private List<Path> archivosPendientes() throws IOException {
+        List<Path> archivos = segmentos();
+        if (Files.exists(activo)) {
+            archivos.add(activo);
+        }
+        return archivos;
+    }
+    
+    /**
+     * Escribe en {@code temporal} lo que falta del segmento (lo no resuelto de la parte
+     * actual y el resto sin leer) y lo sincroniza a disco antes de reemplazar el segmento
+     */
+    private void escribirRestantes(Path temporal, List<Pendiente> parte, BufferedReader lector) throws IOException {
+        try (FileChannel salida = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer escritor = Channels.newWriter(salida, StandardCharsets.UTF_8)) {
+            StringBuilder texto = new StringBuilder(80);
+            for (Pendiente pendiente : parte) {
+                if (!pendiente.resuelta) {
+                    texto.setLength(0);
+                    escritor.append(escribirLinea(texto, pendiente.registro, pendiente.verificada));
+                }
+            }
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                escritor.append(linea).append('\n');
+            }
+            escritor.flush();
+            salida.force(true);
+        }
+    }
+    
+    private void descartar(String linea) {
+        descartadas.increment();
+        try {
+            Files.writeString(carpeta.resolve(DESCARTADAS), linea + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("No se pudo registrar una ubicación descartada: {}", linea);
+        }
+    }
+    
+    /**
+     * idViaje;latitud;longitud;velocidadKmh;rumbo;fechaRegistro;verificada (vacío = sin dato;
+     * verificada 1 si el viaje estaba en curso al fallar el lote, 0 si no se pudo comprobar)
+     */
+    private static StringBuilder escribirLinea(StringBuilder texto, UbicacionRegistro registro, boolean verificada) {
+        return texto.append(registro.idViaje()).append(SEPARADOR)
+            .append(registro.latitud()).append(SEPARADOR)
+            .append(registro.longitud()).append(SEPARADOR)
+            .append(registro.velocidadKmh() != null ? registro.velocidadKmh() : "").append(SEPARADOR)
+            .append(registro.rumbo() != null ? registro.rumbo() : "").append(SEPARADOR)
+            .append(registro.fechaRegistro()).append(SEPARADOR)
+            .append(verificada ? VERIFICADA : SIN_VERIFICAR).append('\n');
+    }
+    
+    private static Pendiente leerLinea(String linea) {
+        String[] campos = linea.strip().split(SEPARADOR, -1);
+        if (campos.length != 7 || !(VERIFICADA.equals(campos[6]) || SIN_VERIFICAR.equals(campos[6]))) {
+            throw new IllegalArgumentException("Línea de diario inválida");
+        }
+        return new Pendiente(new UbicacionRegistro(
+            Integer.valueOf(campos[0]),
+            Double.parseDouble(campos[1]),
+            Double.parseDouble(campos[2]),
+            campos[3].isEmpty() ? null : Double.valueOf(campos[3]),
+            campos[4].isEmpty() ? null : Double.valueOf(campos[4]),
+            OffsetDateTime.parse(campos[5])
+        ), VERIFICADA.equals(campos[6]));
+    }
+    
+    @PreDestroy
+    void cerrar() {
+        synchronized (escritura) {
+            if (canal != null) {
+                try {
+                    canal.close();
+                } catch (IOException e) {
+                    // Ya cerrado
+                }
+                canal = null;
+            }
+        }
+    }
+}
@@ -1,22 +1,43 @@
 package com.nettalco.backendappservicios.servicesimplements;
 
+import com.nettalco.backendappservicios.dtos.RespuestaSerializada;
+import com.nettalco.backendappservicios.dtos.VersionPrivacidadResponseDTO;
 import com.nettalco.backendappservicios.entities.VersionPrivacidad;
 import com.nettalco.backendappservicios.repositories.VersionPrivacidadRepository;
 import com.nettalco.backendappservicios.servicesinterfaces.IVersionPrivacidadService;
+import com.nettalco.backendappservicios.util.CacheInvalidable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * La versión vigente se guarda serializada (y en gzip) en memoria. Se recarga en la
+ * siguiente lectura después del commit de crear/actualizar/eliminar, y periódicamente
+ * ({@code versiones.actual.refresco-ms}) para ver cambios hechos fuera de este backend.
+ */
 @Service
 @Transactional
 public class VersionPrivacidadService implements IVersionPrivacidadService {
     
+    private static final Logger log = LoggerFactory.getLogger(VersionPrivacidadService.class);
+    
     @Autowired
     private VersionPrivacidadRepository repository;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final CacheInvalidable<Optional<RespuestaSerializada>> actual = new CacheInvalidable<>(this::cargarActual);
+    
     @Override
     public List<VersionPrivacidad> listar() {
         return repository.findAllByOrderByFechaVigenciaInicioDesc();
@@ -39,6 +60,7 @@ public class VersionPrivacidadService implements IVersionPrivacidadService {
                     repository.save(versionAnterior);
                 });
         }
+        actual.invalidar();
         return repository.save(version);
     }
     
@@ -68,6 +90,7 @@ public class VersionPrivacidadService implements IVersionPrivacidadService {
                 versionActual.setEsVersionActual(true);
             }
             
+            actual.invalidar();
             return repository.save(versionActual);
         }
         return null;
@@ -76,11 +99,89 @@ public class VersionPrivacidadService implements IVersionPrivacidadService {
     @Override
     public void eliminar(Integer id) {
         repository.deleteById(id);
+        actual.invalidar();
     }
     
     @Override
-    public List<Object[]> findFirstByOrderByFechaVigenciaInicioDesc() {
-        return repository.findFirstByOrderByFechaVigenciaInicioDesc();
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<RespuestaSerializada> obtenerActualSerializada() {
+        return actual.obtener();
+    }
+    
+    @Scheduled(fixedDelayString = "${versiones.actual.refresco-ms:300000}")
+    void refrescarActual() {
+        try {
+            actual.recargar();
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar la versión vigente de privacidad: {}", e.getMessage());
+        }
+    }
+    
+    private Optional<RespuestaSerializada> cargarActual() {
+        List<Object[]> rawData = repository.findFirstByOrderByFechaVigenciaInicioDesc();
+        
+        if (rawData == null || rawData.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        // Tomamos el primer elemento ya que la consulta devuelve solo uno (LIMIT 1)
+        Object[] data = rawData.get(0);
+        VersionPrivacidadResponseDTO dto = new VersionPrivacidadResponseDTO();
+
+        // Parsing and setting values according to DTO fields
+        dto.setIdVersion(convertirAInteger(data[0]));
+        dto.setNumeroVersion(convertirAString(data[1]));
+        dto.setTitulo(convertirAString(data[2]));
+        dto.setContenido(convertirAString(data[3]));
+        dto.setResumenCambios(convertirAString(data[4]));
+        dto.setFechaCreacion(convertirALocalDateTime(data[5]));
+        dto.setFechaVigenciaInicio(convertirALocalDateTime(data[6]));
+        dto.setFechaVigenciaFin(convertirALocalDateTime(data[7]));
+        dto.setEsVersionActual(convertirABoolean(data[8]));
+        dto.setEstado(convertirAString(data[9]));
+        dto.setIdUsuarioCreador(convertirAInteger(data[10]));
+        dto.setNombreUsuarioCreador(convertirAString(data[11]));
+        dto.setFechaModificacion(convertirALocalDateTime(data[12]));
+
+        return Optional.of(RespuestaSerializada.de(objectMapper.writeValueAsBytes(dto)));
+    }
+    
+    // Métodos auxiliares para conversión de tipos
+    private Integer convertirAInteger(Object obj) {
+        if (obj == null) return null;
+        if (obj instanceof Number) {
+            return ((Number) obj).intValue();
+        }
+        return null;
+    }
+
+    private String convertirAString(Object obj) {
+        return obj != null ? obj.toString() : null;
+    }
+
+    private Boolean convertirABoolean(Object obj) {
+        if (obj == null) return null;
+        if (obj instanceof Boolean) {
+            return (Boolean) obj;
+        }
+        if (obj instanceof Number) {
+            return ((Number) obj).intValue() != 0;
+        }
+        return null;
+    }
+
+    private LocalDateTime convertirALocalDateTime(Object obj) {
+        if (obj == null) return null;
+        if (obj instanceof LocalDateTime) {
+            return (LocalDateTime) obj;
+        }
+        if (obj instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) obj).toLocalDateTime();
+        }
+        if (obj instanceof java.sql.Date) {
+            return ((java.sql.Date) obj).toLocalDate().atStartOfDay();
+        }
+        return null;
     }
 }
 
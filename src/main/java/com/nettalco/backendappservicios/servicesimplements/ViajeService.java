@@ -1,29 +1,44 @@
 package com.nettalco.backendappservicios.servicesimplements;
 
 import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.CursorTrack;
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+import com.nettalco.backendappservicios.dtos.EtaViajeResponse;
+import com.nettalco.backendappservicios.dtos.PuntoTrackResponse;
+import com.nettalco.backendappservicios.dtos.RespuestaVersionada;
 import com.nettalco.backendappservicios.dtos.TripDetailResponse.RoutePointResponse;
 import com.nettalco.backendappservicios.dtos.TripDetailResponse;
 import com.nettalco.backendappservicios.dtos.ViajeActivoResponse;
-import com.nettalco.backendappservicios.entities.ConductorDetalle;
 import com.nettalco.backendappservicios.entities.RutaPunto;
-import com.nettalco.backendappservicios.entities.UbicacionTiempoReal;
 import com.nettalco.backendappservicios.entities.Viaje;
-import com.nettalco.backendappservicios.repositories.ConductorDetalleRepository;
 import com.nettalco.backendappservicios.repositories.UbicacionTiempoRealRepository;
 import com.nettalco.backendappservicios.repositories.ViajeRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IConductorService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEtaService;
+import com.nettalco.backendappservicios.servicesinterfaces.IPosicionActualService;
+import com.nettalco.backendappservicios.servicesinterfaces.IRevisionRutaService;
 import com.nettalco.backendappservicios.servicesinterfaces.IViajeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ViajeService implements IViajeService {
     
+    private static final int MAX_RUTAS_POR_VIAJE_CACHEADAS = 10_000;
+    
     @Autowired
     private ViajeRepository viajeRepository;
     
@@ -31,62 +46,151 @@ public class ViajeService implements IViajeService {
     private UbicacionTiempoRealRepository ubicacionRepository;
     
     @Autowired
-    private ConductorDetalleRepository conductorDetalleRepository;
+    private IConductorService conductorService;
+    
+    @Autowired
+    private IPosicionActualService posicionActualService;
+    
+    @Autowired
+    private IEstadoViajeService estadoViajeService;
+    
+    @Autowired
+    private IEtaService etaService;
+    
+    @Autowired
+    private IRevisionRutaService revisionRutaService;
+    
+    // La ruta de un viaje no cambia: se consulta una sola vez por viaje
+    private final ConcurrentHashMap<Integer, Integer> rutaPorViaje = new ConcurrentHashMap<>();
     
     @Override
     @Transactional(readOnly = true)
     public Optional<TripDetailResponse> obtenerDetalleViaje(Integer idViaje) {
         return viajeRepository.findByIdWithRelations(idViaje)
-            .map(this::convertirATripDetailResponse);
+            .map(viaje -> convertirATripDetailResponse(viaje,
+                conductorService.obtenerLicencias(Collections.singleton(viaje.getIdConductor()))));
     }
     
+    /**
+     * La revisión de la ruta se lee antes de cargar el viaje: si la ruta cambia durante
+     * la carga, el ETag queda desactualizado y la próxima lectura recibe la respuesta completa.
+     * El bus y el conductor se consideran fijos durante el viaje.
+     */
     @Override
     @Transactional(readOnly = true)
+    public Optional<RespuestaVersionada<TripDetailResponse>> obtenerDetalleViajeVersionado(Integer idViaje) {
+        Optional<Integer> idRuta = obtenerIdRuta(idViaje);
+        if (idRuta.isEmpty()) {
+            return Optional.empty();
+        }
+        String revision = revisionRutaService.revision(idRuta.get());
+        return obtenerDetalleViaje(idViaje).map(detalle -> new RespuestaVersionada<>(
+            detalle,
+            revisionRutaService.etagRutaViaje(idViaje, idRuta.get(), revision,
+                detalle.status(), detalle.estimatedArrivalMinutes())
+        ));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<String> obtenerEtagDetalleViajeEnCurso(Integer idViaje) {
+        return estadoViajeService.obtenerEnCurso(idViaje)
+            .filter(viaje -> viaje.idRuta() != null)
+            .map(viaje -> revisionRutaService.etagRutaViaje(
+                idViaje,
+                viaje.idRuta(),
+                revisionRutaService.revision(viaje.idRuta()),
+                viaje.estado(),
+                etaService.obtener(idViaje).map(EtaViajeResponse::estimatedArrivalMinutes).orElse(null)
+            ));
+    }
+    
+    /**
+     * Sirve la última ubicación desde memoria. Solo en un fallo de caché se consulta
+     * la base de datos (última fila del viaje), y el resultado se cachea si el viaje
+     * sigue en curso. SUPPORTS evita abrir una transacción cuando hay acierto de caché.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<BusLocationResponse> obtenerUbicacionActual(Integer idViaje) {
+        Optional<BusLocationResponse> cacheada = posicionActualService.obtener(idViaje);
+        if (cacheada.isPresent()) {
+            return cacheada;
+        }
+        
         // Verificar que el viaje existe
-        if (!viajeRepository.existsById(idViaje)) {
+        Optional<String> estado = viajeRepository.findEstadoById(idViaje);
+        if (estado.isEmpty()) {
             return Optional.empty();
         }
         
         // Obtener la última ubicación registrada para este viaje
-        List<UbicacionTiempoReal> ubicaciones = ubicacionRepository
-            .findByViajeIdOrderByFechaRegistroDesc(idViaje);
+        Optional<BusLocationResponse> response = ubicacionRepository.buscarUltimaUbicacion(idViaje);
         
-        if (ubicaciones.isEmpty()) {
-            return Optional.empty();
+        if (response.isPresent() && "en_curso".equals(estado.get())) {
+            posicionActualService.actualizar(idViaje, response.get());
         }
         
-        UbicacionTiempoReal ultimaUbicacion = ubicaciones.get(0);
-        
-        BusLocationResponse response = new BusLocationResponse(
-            ultimaUbicacion.getLatitud().doubleValue(),
-            ultimaUbicacion.getLongitud().doubleValue(),
-            ultimaUbicacion.getRumbo() != null ? ultimaUbicacion.getRumbo().doubleValue() : null,
-            ultimaUbicacion.getVelocidadKmh() != null ? ultimaUbicacion.getVelocidadKmh().doubleValue() : null,
-            ultimaUbicacion.getFechaRegistro()
-        );
-        
-        return Optional.of(response);
+        return response;
     }
     
-    private TripDetailResponse convertirATripDetailResponse(Viaje viaje) {
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<Integer> obtenerIdRuta(Integer idViaje) {
+        Optional<EstadoViaje> enCurso = estadoViajeService.obtenerEnCurso(idViaje);
+        if (enCurso.isPresent()) {
+            return Optional.of(enCurso.get().idRuta());
+        }
+        Integer idRuta = rutaPorViaje.get(idViaje);
+        if (idRuta != null) {
+            return Optional.of(idRuta);
+        }
+        Optional<Integer> encontrada = viajeRepository.findIdRutaById(idViaje);
+        encontrada.ifPresent(id -> {
+            if (rutaPorViaje.size() >= MAX_RUTAS_POR_VIAJE_CACHEADAS) {
+                rutaPorViaje.clear();
+            }
+            rutaPorViaje.put(idViaje, id);
+        });
+        return encontrada;
+    }
+    
+    @Override
+    public Optional<EtaViajeResponse> obtenerEta(Integer idViaje) {
+        return etaService.obtener(idViaje);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existeViaje(Integer idViaje) {
+        return estadoViajeService.idsEnCurso().contains(idViaje) || viajeRepository.existsByIdViaje(idViaje);
+    }
+    
+    /**
+     * La transacción de solo lectura permite que el driver lea por cursor,
+     * así la página no se materializa completa ni en el ResultSet ni en el heap.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CursorTrack> recorrerTrack(Integer idViaje, OffsetDateTime desde, OffsetDateTime hasta,
+                                               CursorTrack despues, int limite, Consumer<PuntoTrackResponse> consumidor) {
+        PuntoTrackResponse[] ultimo = new PuntoTrackResponse[1];
+        int filas = ubicacionRepository.recorrerTrack(idViaje, desde, hasta, despues, limite, punto -> {
+            consumidor.accept(punto);
+            ultimo[0] = punto;
+        });
+        // Página llena: puede haber más filas después del último punto
+        return filas == limite && ultimo[0] != null
+            ? Optional.of(CursorTrack.de(ultimo[0]))
+            : Optional.empty();
+    }
+    
+    private TripDetailResponse convertirATripDetailResponse(Viaje viaje, Map<Integer, String> licencias) {
         // Obtener información del bus
         String busPlate = viaje.getBus() != null ? viaje.getBus().getPlaca() : "";
         String busModel = viaje.getBus() != null ? viaje.getBus().getModelo() : null;
         
-        // Intentar obtener información del conductor desde ConductorDetalle
-        String driverName = "Conductor " + viaje.getIdConductor(); // Default
-        if (viaje.getIdConductor() != null) {
-            Optional<ConductorDetalle> conductorOpt = conductorDetalleRepository
-                .findByIdUsuarioGestion(viaje.getIdConductor());
-            if (conductorOpt.isPresent()) {
-                ConductorDetalle conductor = conductorOpt.get();
-                // Si hay licencia, usarla como identificador más descriptivo
-                if (conductor.getLicenciaNumero() != null && !conductor.getLicenciaNumero().isEmpty()) {
-                    driverName = "Conductor " + conductor.getLicenciaNumero();
-                }
-            }
-        }
+        String driverName = nombreConductor(viaje.getIdConductor(), licencias);
         String driverPhoto = null; // Placeholder - se puede obtener desde otro servicio si es necesario
         
         // Convertir puntos de la ruta
@@ -97,8 +201,10 @@ public class ViajeService implements IViajeService {
         // Estado del viaje
         String status = viaje.getEstado() != null ? viaje.getEstado() : "desconocido";
         
-        // Tiempo estimado de llegada (por ahora null, se puede calcular basado en la ubicación actual)
-        Integer estimatedArrivalMinutes = null;
+        // Tiempo estimado al final de la ruta, precalculado con la última ubicación
+        Integer estimatedArrivalMinutes = etaService.obtener(viaje.getIdViaje())
+            .map(EtaViajeResponse::estimatedArrivalMinutes)
+            .orElse(null);
         
         return new TripDetailResponse(
             viaje.getIdViaje(),
@@ -114,8 +220,8 @@ public class ViajeService implements IViajeService {
     
     private RoutePointResponse convertirARoutePointResponse(RutaPunto punto) {
         return new RoutePointResponse(
-            punto.getLatitud().doubleValue(),
-            punto.getLongitud().doubleValue(),
+            punto.getLatitud(),
+            punto.getLongitud(),
             punto.getNombreParadero(),
             punto.getOrden()
         );
@@ -126,28 +232,31 @@ public class ViajeService implements IViajeService {
     public List<ViajeActivoResponse> obtenerViajesActivosPorRuta(Integer idRuta) {
         List<Viaje> viajes = viajeRepository.findByRutaIdAndActivos(idRuta);
         
+        // Conductores de todos los viajes en una sola consulta (o desde la caché)
+        Map<Integer, String> licencias = conductorService.obtenerLicencias(
+            viajes.stream().map(Viaje::getIdConductor).collect(Collectors.toSet()));
+        
         return viajes.stream()
-            .map(this::convertirAViajeActivoResponse)
+            .map(viaje -> convertirAViajeActivoResponse(viaje, licencias))
             .collect(Collectors.toList());
     }
     
-    private ViajeActivoResponse convertirAViajeActivoResponse(Viaje viaje) {
+    /**
+     * Usa la licencia como identificador más descriptivo si el conductor está registrado
+     */
+    private static String nombreConductor(Integer idConductor, Map<Integer, String> licencias) {
+        String licencia = idConductor != null ? licencias.get(idConductor) : null;
+        if (licencia != null && !licencia.isEmpty()) {
+            return "Conductor " + licencia;
+        }
+        return "Conductor " + idConductor;
+    }
+    
+    private ViajeActivoResponse convertirAViajeActivoResponse(Viaje viaje, Map<Integer, String> licencias) {
         String busPlate = viaje.getBus() != null ? viaje.getBus().getPlaca() : "";
         String busModel = viaje.getBus() != null ? viaje.getBus().getModelo() : null;
         
-        // Intentar obtener el nombre del conductor desde ConductorDetalle
-        String driverName = "Conductor " + viaje.getIdConductor(); // Default
-        if (viaje.getIdConductor() != null) {
-            Optional<ConductorDetalle> conductorOpt = conductorDetalleRepository
-                .findByIdUsuarioGestion(viaje.getIdConductor());
-            if (conductorOpt.isPresent()) {
-                ConductorDetalle conductor = conductorOpt.get();
-                // Si hay licencia, usarla como identificador más descriptivo
-                if (conductor.getLicenciaNumero() != null && !conductor.getLicenciaNumero().isEmpty()) {
-                    driverName = "Conductor " + conductor.getLicenciaNumero();
-                }
-            }
-        }
+        String driverName = nombreConductor(viaje.getIdConductor(), licencias);
         
         return new ViajeActivoResponse(
             viaje.getIdViaje(),
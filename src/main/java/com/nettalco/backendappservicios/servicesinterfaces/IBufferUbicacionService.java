@@ -0,0 +1,21 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.GPSIngestaRequest;
+
+/**
+ * Buffer write-behind para la ingesta asíncrona de GPS.
+ * Las ubicaciones se acumulan en memoria y se persisten en lotes.
+ */
+public interface IBufferUbicacionService {
+    
+    /**
+     * Encola una ubicación para persistirla en el próximo lote
+     * @return false si el buffer está lleno (el cliente debe reintentar más tarde)
+     */
+    boolean encolar(GPSIngestaRequest request);
+    
+    /**
+     * Cantidad de ubicaciones pendientes de persistir
+     */
+    int profundidad();
+}
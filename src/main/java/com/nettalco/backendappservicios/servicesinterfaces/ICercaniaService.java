@@ -0,0 +1,36 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.BusCercanoResponse;
+import com.nettalco.backendappservicios.dtos.ParaderoCercanoResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+
+import java.util.List;
+
+/**
+ * Índices espaciales en memoria de los paraderos oficiales y de los buses en curso,
+ * para responder "qué hay cerca de mí" sin consultar la base de datos
+ */
+public interface ICercaniaService {
+    
+    /**
+     * Paraderos oficiales a menos de radioM metros, del más cercano al más lejano
+     * @throws IllegalArgumentException si la posición o el radio no son válidos
+     */
+    List<ParaderoCercanoResponse> paraderosCercanos(double latitud, double longitud, double radioM, int limite);
+    
+    /**
+     * Buses de viajes en curso a menos de radioM metros, del más cercano al más lejano
+     * @throws IllegalArgumentException si la posición o el radio no son válidos
+     */
+    List<BusCercanoResponse> busesCercanos(double latitud, double longitud, double radioM, int limite);
+    
+    /**
+     * Registra ubicaciones recién persistidas en el índice de buses
+     */
+    void actualizar(List<UbicacionRegistro> registros);
+    
+    /**
+     * Marca el índice de paraderos para reconstruirse (se creó, cambió o eliminó una ruta)
+     */
+    void invalidarParaderos();
+}
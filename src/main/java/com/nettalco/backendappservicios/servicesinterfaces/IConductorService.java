@@ -0,0 +1,16 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Datos de conductores (conductores_detalle) usados al armar las respuestas de viajes
+ */
+public interface IConductorService {
+    
+    /**
+     * Número de licencia por ID de usuario de gestión, resuelto en una sola consulta
+     * para los que no estén en caché. Los IDs sin conductor registrado no aparecen en el mapa.
+     */
+    Map<Integer, String> obtenerLicencias(Collection<Integer> idsUsuarioGestion);
+}
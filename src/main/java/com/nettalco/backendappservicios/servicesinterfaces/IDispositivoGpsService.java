@@ -0,0 +1,19 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import java.util.Optional;
+
+/**
+ * Autenticación de los equipos GPS por token precompartido por bus
+ */
+public interface IDispositivoGpsService {
+    
+    /**
+     * Indica si la ingesta exige token de dispositivo ({@code gps.dispositivos.autenticacion.habilitada})
+     */
+    boolean autenticacionHabilitada();
+    
+    /**
+     * ID del bus dueño del token; vacío si el token no corresponde a ningún bus
+     */
+    Optional<Integer> autenticar(String token);
+}
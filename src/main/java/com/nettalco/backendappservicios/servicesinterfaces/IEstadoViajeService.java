@@ -0,0 +1,54 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Caché en memoria de los viajes en curso.
+ * Permite validar cada ubicación GPS con una búsqueda en un hash en lugar
+ * de una consulta por ubicación.
+ */
+public interface IEstadoViajeService {
+    
+    /**
+     * Estado del viaje si está en curso
+     */
+    Optional<EstadoViaje> obtenerEnCurso(Integer idViaje);
+    
+    boolean estaEnCurso(Integer idViaje);
+    
+    /**
+     * IDs en curso entre los dados; los que no están en la caché se resuelven
+     * con una sola consulta
+     */
+    Set<Integer> filtrarEnCurso(Collection<Integer> idsViaje);
+    
+    /**
+     * Indica si alguno de los viajes en curso entre los dados está asignado a otro bus;
+     * los que no están en curso no cuentan (la ingesta ya los rechaza)
+     */
+    boolean asignadoAOtroBus(Collection<Integer> idsViaje, Integer idBus);
+    
+    /**
+     * Viaje en curso asignado a un bus (ingesta de equipos identificados por IMEI)
+     */
+    Optional<EstadoViaje> obtenerEnCursoPorBus(Integer idBus);
+    
+    /**
+     * IDs de todos los viajes en curso conocidos por la caché
+     */
+    Collection<Integer> idsEnCurso();
+    
+    /**
+     * Descarta lo cacheado de un viaje (por ejemplo, tras un cambio de estado)
+     */
+    void invalidar(Integer idViaje);
+    
+    /**
+     * Recarga desde la base de datos todos los viajes en curso
+     */
+    void refrescar();
+}
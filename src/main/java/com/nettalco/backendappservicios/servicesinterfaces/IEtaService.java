@@ -0,0 +1,22 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.EtaViajeResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Motor de ETA: ubica cada posición sobre la ruta, mantiene una velocidad
+ * suavizada por viaje y precalcula el tiempo estimado a cada paradero oficial.
+ * Las lecturas no recalculan nada.
+ */
+public interface IEtaService {
+    
+    /**
+     * Recalcula las ETAs de los viajes con ubicaciones recién persistidas
+     */
+    void actualizar(List<UbicacionRegistro> registros);
+    
+    Optional<EtaViajeResponse> obtener(Integer idViaje);
+}
@@ -0,0 +1,23 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.PosicionFlotaResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+
+import java.util.List;
+
+/**
+ * Broadcast por WebSocket de las posiciones de todos los viajes en curso
+ */
+public interface IFlotaBroadcastService {
+    
+    /**
+     * Acumula ubicaciones recién persistidas; se envían en el próximo tick
+     * (como máximo una actualización por viaje y tick)
+     */
+    void publicar(List<UbicacionRegistro> registros);
+    
+    /**
+     * Posiciones actuales de toda la flota en curso
+     */
+    List<PosicionFlotaResponse> obtenerSnapshot();
+}
@@ -0,0 +1,28 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.entities.Ruta;
+import com.nettalco.backendappservicios.util.GeometriaRuta;
+
+import java.util.Optional;
+
+/**
+ * Geometría de las rutas en memoria, usada para ubicar las posiciones GPS sobre el recorrido
+ */
+public interface IGeometriaRutaService {
+    
+    /**
+     * Geometría de la ruta; vacío si no existe o tiene menos de dos puntos
+     */
+    Optional<GeometriaRuta> obtener(Integer idRuta);
+    
+    /**
+     * Construye la geometría de una ruta recién creada o actualizada (con sus puntos
+     * cargados) y reemplaza la cacheada
+     */
+    void publicar(Ruta ruta);
+    
+    /**
+     * Descarta la geometría cacheada (la ruta se eliminó)
+     */
+    void invalidar(Integer idRuta);
+}
@@ -0,0 +1,26 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.GPSIngestaBinariaResponse;
+import com.nettalco.backendappservicios.servicesinterfaces.ILimiteIngestaService.Origen;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Ingesta de tramas binarias de los equipos GPS (formato en {@code util.TramaGps}).
+ * El equipo se identifica por el IMEI de la cabecera: IMEI → bus → viaje en curso.
+ */
+public interface IIngestaBinariaService {
+    
+    /**
+     * Decodifica la trama y persiste sus fijaciones en un solo INSERT multi-fila
+     * @param origen Clase y clave a las que quien recibió la trama ya descontó una fijación;
+     *        antes de resolver el IMEI se le descuentan las demás
+     * @param idBusAutenticado Bus del token de dispositivo; null si la petición no se autenticó
+     * @throws IllegalArgumentException si la trama no es válida
+     * @throws com.nettalco.backendappservicios.exceptions.DispositivoNoAutorizadoException si el IMEI
+     *         pertenece a un bus distinto del autenticado
+     * @throws java.util.NoSuchElementException si el IMEI no corresponde a un bus con viaje en curso
+     * @throws com.nettalco.backendappservicios.exceptions.LimiteExcedidoException si el equipo excedió su límite de tasa
+     */
+    GPSIngestaBinariaResponse registrarTrama(ByteBuffer trama, Origen origen, Integer idBusAutenticado);
+}
@@ -0,0 +1,36 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+/**
+ * Límite de tasa de la ingesta GPS por equipo, aplicado antes de cualquier acceso a la base de datos
+ */
+public interface ILimiteIngestaService {
+    
+    /**
+     * Clase de origen; cada una tiene su propia capacidad y tasa en {@code gps.limite.<clase>.*}
+     */
+    enum ClaseDispositivo {
+        /** Equipo a bordo identificado por el IMEI de la trama binaria; se cuentan fijaciones */
+        EQUIPO,
+        /** Petición autenticada con el token de dispositivo de un bus; se cuentan fijaciones */
+        BUS,
+        /**
+         * Petición sin token, por dirección IP; se cuentan fijaciones.
+         * Detrás de NAT de operadora muchos equipos comparten IP: la capacidad debe cubrirlos
+         */
+        IP,
+        /** Dirección remota de una conexión TCP o remitente UDP del listener; se cuentan fijaciones */
+        LISTENER
+    }
+    
+    /**
+     * Clase y clave a las que se cargó una petición de ingesta al recibirla
+     */
+    record Origen(ClaseDispositivo clase, String clave) {}
+    
+    /**
+     * Consume {@code cantidad} unidades del límite de la clave
+     * @return 0 si se admite o la clase está deshabilitada; si no, milisegundos sugeridos
+     *         antes de reintentar (Long.MAX_VALUE si la cantidad supera la capacidad de la clase)
+     */
+    long reservar(ClaseDispositivo clase, String clave, int cantidad);
+}
@@ -0,0 +1,17 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.ConexionGpsResponse;
+
+import java.util.List;
+
+/**
+ * Listener TCP/UDP embebido para equipos GPS que solo envían por socket.
+ * Recibe las mismas tramas binarias que /api/gps/ubicaciones/binario.
+ */
+public interface IListenerGpsService {
+    
+    /**
+     * Conexiones TCP abiertas y remitentes UDP recientes con sus contadores
+     */
+    List<ConexionGpsResponse> listarConexiones();
+}
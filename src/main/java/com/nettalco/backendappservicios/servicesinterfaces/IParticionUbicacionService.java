@@ -0,0 +1,25 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import java.util.List;
+
+/**
+ * Mantenimiento de las particiones por fecha de ubicaciones_tiempo_real:
+ * crea por adelantado las particiones futuras y elimina completas las que
+ * quedan fuera de la ventana de retención.
+ */
+public interface IParticionUbicacionService {
+    
+    /**
+     * Crea las particiones desde el periodo actual hasta {@code gps.particiones.periodos-adelanto}
+     * @return Nombres de las particiones creadas
+     */
+    List<String> crearParticionesFuturas();
+    
+    /**
+     * Separa y elimina las particiones cuyo rango terminó antes de la ventana de retención
+     * y borra de la partición DEFAULT las filas anteriores a ella.
+     * En modo simulación solo se registran en el log.
+     * @return Nombres de las particiones eliminadas (o que se eliminarían)
+     */
+    List<String> aplicarRetencion();
+}
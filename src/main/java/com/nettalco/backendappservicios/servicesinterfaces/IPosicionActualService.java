@@ -0,0 +1,34 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Almacén en memoria de la última ubicación conocida de cada viaje en curso.
+ * Lo actualiza la ingesta de GPS y lo consulta /api/trips/{id}/location.
+ */
+public interface IPosicionActualService {
+    
+    /**
+     * Registra ubicaciones recién persistidas; solo se conserva la más reciente por viaje
+     */
+    void actualizar(List<UbicacionRegistro> registros);
+    
+    void actualizar(Integer idViaje, BusLocationResponse ubicacion);
+    
+    Optional<BusLocationResponse> obtener(Integer idViaje);
+    
+    /**
+     * Vista de solo lectura de las posiciones de todos los viajes en memoria
+     */
+    Map<Integer, BusLocationResponse> listar();
+    
+    /**
+     * Elimina la entrada de un viaje (por ejemplo, cuando deja de estar en curso)
+     */
+    void invalidar(Integer idViaje);
+}
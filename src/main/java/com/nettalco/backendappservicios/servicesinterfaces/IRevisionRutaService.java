@@ -0,0 +1,36 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import java.util.Set;
+
+/**
+ * Revisión de cada ruta derivada de su contenido en la base de datos, usada para armar
+ * ETags de las respuestas que incluyen la ruta sin cargarla
+ */
+public interface IRevisionRutaService {
+    
+    /**
+     * Revisión actual de la ruta; debe leerse antes de cargar los datos que se van a etiquetar
+     */
+    String revision(Integer idRuta);
+    
+    /**
+     * Registra que la ruta cambió (se creó, actualizó o eliminó); se aplica después del commit
+     */
+    void registrarCambio(Integer idRuta);
+    
+    /**
+     * Compara las revisiones de todas las rutas con las de la sincronización anterior
+     * @return Rutas creadas, modificadas o eliminadas desde entonces (vacío la primera vez)
+     */
+    Set<Integer> sincronizar();
+    
+    /**
+     * ETag fuerte de GET /api/rutas/{id}
+     */
+    String etagRuta(Integer idRuta, String revision);
+    
+    /**
+     * ETag fuerte de GET /api/trips/{id}/route: la ruta más los datos del viaje que cambian en curso
+     */
+    String etagRutaViaje(Integer idViaje, Integer idRuta, String revision, String estado, Integer etaMinutos);
+}
@@ -1,6 +1,7 @@
 package com.nettalco.backendappservicios.servicesinterfaces;
 
 import com.nettalco.backendappservicios.dtos.CrearRutaRequest;
+import com.nettalco.backendappservicios.dtos.RespuestaSerializada;
 import com.nettalco.backendappservicios.dtos.RutaDetalleCompletoResponse;
 import com.nettalco.backendappservicios.dtos.RutaResponse;
 
@@ -13,8 +14,19 @@ public interface IRutaService {
     
     Optional<RutaResponse> obtenerRutaPorId(Integer id);
     
+    /**
+     * ETag de la ruta según su revisión cacheada; solo consulta la base de datos si no está en caché
+     */
+    String obtenerEtagRuta(Integer id);
+    
     List<RutaResponse> listarRutas();
     
+    /**
+     * Catálogo de rutas (el mismo contenido que listarRutas) serializado a JSON, con su ETag.
+     * Se cachea hasta que se crea, actualiza o elimina una ruta.
+     */
+    RespuestaSerializada obtenerCatalogoSerializado();
+    
     void eliminarRuta(Integer id);
     
     RutaResponse actualizarRuta(Integer id, CrearRutaRequest request);
@@ -0,0 +1,23 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Registro de suscripciones Server-Sent Events a las posiciones en vivo.
+ * La ingesta de GPS publica cada ubicación una vez y el registro la reparte
+ * a todos los suscriptores del viaje y de su ruta.
+ */
+public interface ISuscripcionUbicacionService {
+    
+    SseEmitter suscribirViaje(Integer idViaje);
+    
+    SseEmitter suscribirRuta(Integer idRuta);
+    
+    /**
+     * Reparte ubicaciones recién persistidas a los suscriptores
+     */
+    void publicar(List<UbicacionRegistro> registros);
+}
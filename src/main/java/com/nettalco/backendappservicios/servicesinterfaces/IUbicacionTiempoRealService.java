@@ -1,14 +1,34 @@
 package com.nettalco.backendappservicios.servicesinterfaces;
 
+import com.nettalco.backendappservicios.dtos.GPSIngestaLoteResponse;
 import com.nettalco.backendappservicios.dtos.GPSIngestaRequest;
 import com.nettalco.backendappservicios.dtos.GPSIngestaResponse;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.List;
 
 public interface IUbicacionTiempoRealService {
     
     GPSIngestaResponse registrarUbicacion(GPSIngestaRequest request);
     
-    CompletableFuture<GPSIngestaResponse> registrarUbicacionAsync(GPSIngestaRequest request);
+    /**
+     * Registra un lote de ubicaciones (posiblemente de varios viajes) validando
+     * los viajes contra la caché de estados y escribiendo todas las filas con INSERT multi-fila.
+     * Devuelve un resultado por cada elemento del lote.
+     */
+    GPSIngestaLoteResponse registrarUbicacionesLote(List<GPSIngestaRequest> requests);
+    
+    /**
+     * Persiste ubicaciones acumuladas por el buffer write-behind.
+     * Las de viajes que no están en curso se descartan.
+     * @return Cantidad de ubicaciones persistidas
+     */
+    int registrarUbicacionesPendientes(List<UbicacionRegistro> registros);
+    
+    /**
+     * Reinserta ubicaciones recuperadas del diario de lotes fallidos, en una sola transacción.
+     * No filtra por viajes en curso ni notifica a los suscriptores: son posiciones pasadas.
+     */
+    void reinsertarUbicaciones(List<UbicacionRegistro> registros);
 }
 
@@ -0,0 +1,25 @@
+package com.nettalco.backendappservicios.servicesinterfaces;
+
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+
+import java.util.List;
+
+/**
+ * Diario en disco de las ubicaciones cuyo lote no se pudo persistir.
+ * Se reintentan en segundo plano hasta que la base de datos las acepta.
+ */
+public interface IUbicacionesFallidasService {
+    
+    /**
+     * Agrega las ubicaciones al diario con una sola escritura sincronizada a disco
+     * @param verificadas Ubicaciones de viajes que estaban en curso; se reinsertan sin volver a validar
+     * @param sinVerificar Ubicaciones cuyo viaje no se pudo comprobar; se validan al reinsertar
+     * @return false si no se pudieron escribir (se pierden)
+     */
+    boolean registrar(List<UbicacionRegistro> verificadas, List<UbicacionRegistro> sinVerificar);
+    
+    /**
+     * Ubicaciones en el diario pendientes de reinsertar
+     */
+    long pendientes();
+}
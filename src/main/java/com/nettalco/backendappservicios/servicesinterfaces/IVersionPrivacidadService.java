@@ -1,5 +1,6 @@
 package com.nettalco.backendappservicios.servicesinterfaces;
 
+import com.nettalco.backendappservicios.dtos.RespuestaSerializada;
 import com.nettalco.backendappservicios.entities.VersionPrivacidad;
 import java.util.List;
 import java.util.Optional;
@@ -16,6 +17,10 @@ public interface IVersionPrivacidadService {
     
     void eliminar(Integer id);
     
-    List<Object[]> findFirstByOrderByFechaVigenciaInicioDesc();
+    /**
+     * Versión vigente ya serializada, desde memoria; vacío si no hay una versión activa.
+     * Se recarga después de crear, actualizar o eliminar una versión y de forma periódica.
+     */
+    Optional<RespuestaSerializada> obtenerActualSerializada();
 }
 
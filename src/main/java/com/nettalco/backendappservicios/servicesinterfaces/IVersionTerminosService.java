@@ -1,10 +1,12 @@
 package com.nettalco.backendappservicios.servicesinterfaces;
 
-import com.nettalco.backendappservicios.entities.VersionTerminos;
+import com.nettalco.backendappservicios.dtos.RespuestaSerializada;
 import java.util.Optional;
-import java.util.List;
 public interface IVersionTerminosService {
 
-    List<Object[]>findFirstByOrderByFechaVigenciaInicioDesc();
+    /**
+     * Versión vigente ya serializada, desde memoria; vacío si no hay una versión activa
+     */
+    Optional<RespuestaSerializada> obtenerActualSerializada();
 }
 
@@ -1,11 +1,17 @@
 package com.nettalco.backendappservicios.servicesinterfaces;
 
 import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.CursorTrack;
+import com.nettalco.backendappservicios.dtos.EtaViajeResponse;
+import com.nettalco.backendappservicios.dtos.PuntoTrackResponse;
+import com.nettalco.backendappservicios.dtos.RespuestaVersionada;
 import com.nettalco.backendappservicios.dtos.TripDetailResponse;
 import com.nettalco.backendappservicios.dtos.ViajeActivoResponse;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IViajeService {
     
@@ -14,13 +20,47 @@ public interface IViajeService {
      */
     Optional<TripDetailResponse> obtenerDetalleViaje(Integer idViaje);
     
+    /**
+     * Detalle del viaje con su ETag (revisión de la ruta, estado y ETA)
+     */
+    Optional<RespuestaVersionada<TripDetailResponse>> obtenerDetalleViajeVersionado(Integer idViaje);
+    
+    /**
+     * ETag del detalle de un viaje en curso calculado solo con datos en memoria;
+     * vacío si el viaje no está en curso
+     */
+    Optional<String> obtenerEtagDetalleViajeEnCurso(Integer idViaje);
+    
     /**
      * Obtiene la ubicación actual del bus para un viaje
      */
     Optional<BusLocationResponse> obtenerUbicacionActual(Integer idViaje);
     
+    /**
+     * Obtiene el ID de la ruta de un viaje (dato inmutable, cacheado en memoria)
+     */
+    Optional<Integer> obtenerIdRuta(Integer idViaje);
+    
     /**
      * Obtiene los viajes activos (en_curso o programados) para una ruta específica
      */
     List<ViajeActivoResponse> obtenerViajesActivosPorRuta(Integer idRuta);
+    
+    /**
+     * ETAs del viaje a sus paraderos oficiales pendientes, calculadas con la última ubicación
+     */
+    Optional<EtaViajeResponse> obtenerEta(Integer idViaje);
+    
+    /**
+     * Indica si el viaje existe
+     */
+    boolean existeViaje(Integer idViaje);
+    
+    /**
+     * Recorre una página del historial GPS de un viaje (paginación keyset sobre
+     * fecha_registro, id_tracking) sin cargarla completa en memoria
+     * @return Cursor para la página siguiente, o vacío si no quedan más filas
+     */
+    Optional<CursorTrack> recorrerTrack(Integer idViaje, OffsetDateTime desde, OffsetDateTime hasta,
+                                        CursorTrack despues, int limite, Consumer<PuntoTrackResponse> consumidor);
 }
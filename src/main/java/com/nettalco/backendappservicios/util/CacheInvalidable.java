@@ -0,0 +1,66 @@
+package com.nettalco.backendappservicios.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Valor calculado a partir de la base de datos y conservado en memoria hasta que se invalida.
+ * La invalidación solo incrementa una versión (después del commit); el valor se vuelve
+ * a cargar en la siguiente lectura. Si la invalidación ocurre durante una carga, la
+ * versión de lo cargado ya no coincide y la próxima lectura vuelve a cargar.
+ */
+public final class CacheInvalidable<T> {
+    
+    private record Entrada<T>(long version, T valor) {}
+    
+    private final Supplier<T> cargador;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Entrada<T> entrada;
+    
+    public CacheInvalidable(Supplier<T> cargador) {
+        this.cargador = cargador;
+    }
+    
+    public T obtener() {
+        Entrada<T> actual = entrada;
+        if (actual != null && actual.version() == version.get()) {
+            return actual.valor();
+        }
+        synchronized (this) {
+            actual = entrada;
+            if (actual == null || actual.version() != version.get()) {
+                actual = cargar();
+            }
+            return actual.valor();
+        }
+    }
+    
+    /**
+     * Valor actual sin cargarlo; null si nunca se cargó
+     */
+    public T obtenerSiCargado() {
+        Entrada<T> actual = entrada;
+        return actual != null ? actual.valor() : null;
+    }
+    
+    /**
+     * Vuelve a cargar el valor ahora, aunque no se haya invalidado
+     */
+    public synchronized T recargar() {
+        return cargar().valor();
+    }
+    
+    /**
+     * Marca el valor para recargarse; dentro de una transacción se aplica después del commit
+     */
+    public void invalidar() {
+        Transacciones.alConfirmar(version::incrementAndGet);
+    }
+    
+    private Entrada<T> cargar() {
+        long versionCarga = version.get();
+        Entrada<T> nueva = new Entrada<>(versionCarga, cargador.get());
+        entrada = nueva;
+        return nueva;
+    }
+}
@@ -0,0 +1,149 @@
+package com.nettalco.backendappservicios.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Un hilo virtual por tarea, con un semáforo que limita cuántas se ejecutan a la vez
+ * (el trabajo contra la base de datos no puede avanzar más rápido que el pool de conexiones).
+ * Las tareas que esperan un permiso son hilos virtuales estacionados en el semáforo; como
+ * máximo {@code maxEnEspera}. Con la espera llena se aplica la política de rechazo:
+ * {@link PoliticaRechazo#RECHAZAR} lanza RejectedExecutionException y
+ * {@link PoliticaRechazo#LLAMADOR} ejecuta la tarea en el hilo que la envía, que
+ * también espera su permiso (contrapresión hacia el cliente).
+ * {@link #ejecutarEnLlamador} permite a quien captura el rechazo ejecutar la tarea
+ * igualmente en su hilo sin saltarse el límite de concurrencia.
+ *
+ * Métricas con el prefijo dado: .espera (tiempo hasta obtener permiso), .activas,
+ * .en-espera, .rechazadas y .en-llamador.
+ */
+public final class EjecutorVirtualAcotado implements Executor, AutoCloseable {
+    
+    public enum PoliticaRechazo {
+        RECHAZAR,
+        LLAMADOR
+    }
+    
+    private final ExecutorService hilos;
+    private final Semaphore permisos;
+    private final int maxEnEspera;
+    private final PoliticaRechazo politica;
+    private final AtomicInteger enEspera = new AtomicInteger();
+    private final AtomicInteger activas = new AtomicInteger();
+    
+    private final Timer espera;
+    private final Counter rechazadas;
+    private final Counter enLlamador;
+    
+    public EjecutorVirtualAcotado(String nombre, int maxConcurrentes, int maxEnEspera,
+                                  PoliticaRechazo politica, MeterRegistry meterRegistry) {
+        if (maxConcurrentes < 1 || maxEnEspera < 0) {
+            throw new IllegalArgumentException("Límites de concurrencia inválidos");
+        }
+        this.hilos = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(nombre.replace('.', '-') + "-", 0).factory());
+        this.permisos = new Semaphore(maxConcurrentes);
+        this.maxEnEspera = maxEnEspera;
+        this.politica = politica;
+        
+        espera = Timer.builder(nombre + ".espera")
+            .description("Tiempo de espera de las tareas hasta obtener permiso de ejecución")
+            .register(meterRegistry);
+        rechazadas = Counter.builder(nombre + ".rechazadas")
+            .description("Tareas rechazadas con la espera llena")
+            .register(meterRegistry);
+        enLlamador = Counter.builder(nombre + ".en-llamador")
+            .description("Tareas ejecutadas en el hilo que las envió con la espera llena")
+            .register(meterRegistry);
+        Gauge.builder(nombre + ".activas", activas, AtomicInteger::get)
+            .description("Tareas en ejecución")
+            .register(meterRegistry);
+        Gauge.builder(nombre + ".en-espera", enEspera, AtomicInteger::get)
+            .description("Tareas esperando permiso de ejecución")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public void execute(Runnable tarea) {
+        long inicio = System.nanoTime();
+        if (enEspera.incrementAndGet() > maxEnEspera) {
+            enEspera.decrementAndGet();
+            if (politica == PoliticaRechazo.RECHAZAR) {
+                rechazadas.increment();
+                throw new RejectedExecutionException("Ejecutor asíncrono saturado");
+            }
+            enLlamador.increment();
+            enEspera.incrementAndGet();
+            ejecutar(tarea, inicio);
+            return;
+        }
+        try {
+            hilos.execute(() -> ejecutar(tarea, inicio));
+        } catch (RejectedExecutionException e) {
+            // Ejecutor cerrado
+            enEspera.decrementAndGet();
+            rechazadas.increment();
+            throw e;
+        }
+    }
+    
+    /**
+     * Ejecuta la tarea en el hilo actual con un permiso del mismo semáforo, esperándolo
+     * aunque el hilo sea interrumpido. Para tareas que no se pueden descartar cuando
+     * {@link #execute} las rechaza; no cuenta contra {@code maxEnEspera}.
+     */
+    public void ejecutarEnLlamador(Runnable tarea) {
+        long inicio = System.nanoTime();
+        enLlamador.increment();
+        enEspera.incrementAndGet();
+        permisos.acquireUninterruptibly();
+        enEspera.decrementAndGet();
+        correr(tarea, inicio);
+    }
+    
+    /**
+     * Espera un permiso y ejecuta la tarea; la llamada ya cuenta en {@code enEspera}
+     */
+    private void ejecutar(Runnable tarea, long inicio) {
+        try {
+            permisos.acquire();
+        } catch (InterruptedException e) {
+            enEspera.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrumpido esperando permiso de ejecución", e);
+        }
+        enEspera.decrementAndGet();
+        correr(tarea, inicio);
+    }
+    
+    /**
+     * Ejecuta la tarea con el permiso ya obtenido y lo devuelve al terminar
+     */
+    private void correr(Runnable tarea, long inicio) {
+        espera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        activas.incrementAndGet();
+        try {
+            tarea.run();
+        } finally {
+            activas.decrementAndGet();
+            permisos.release();
+        }
+    }
+    
+    /**
+     * Deja de aceptar tareas y espera a que terminen las aceptadas
+     */
+    @Override
+    public void close() {
+        hilos.close();
+    }
+}
@@ -0,0 +1,245 @@
+package com.nettalco.backendappservicios.util;
+
+import com.nettalco.backendappservicios.entities.RutaPunto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Polilínea inmutable de una ruta con la distancia acumulada de cada punto,
+ * para ubicar una posición GPS sobre el recorrido ("snapping") y medir
+ * distancias a lo largo de la ruta.
+ * Las distancias se expresan en metros.
+ *
+ * Los puntos se guardan proyectados a un plano local (equirectangular con origen
+ * en el primer punto, suficiente a escala urbana) y los segmentos se indexan en
+ * una grilla de celdas cuadradas. La grilla se guarda como arreglos ordenados
+ * (clave de celda → segmentos), de modo que ubicar una posición es una búsqueda
+ * binaria por celda visitada en lugar de recorrer todos los segmentos.
+ */
+public final class GeometriaRuta {
+    
+    private static final double RADIO_TIERRA_M = 6_371_008.8;
+    private static final double METROS_POR_GRADO = Math.toRadians(RADIO_TIERRA_M);
+    
+    // Coordenadas de celda en 15 bits con desplazamiento: ±16384 celdas desde el origen
+    private static final int DESPLAZAMIENTO_CELDA = 1 << 14;
+    private static final int MASCARA_CELDA = (1 << 15) - 1;
+    
+    /**
+     * Paradero oficial con su distancia desde el inicio de la ruta
+     */
+    public record Paradero(Integer orden, String nombre, double latitud, double longitud, double distancia) {}
+    
+    /**
+     * @param distancia Distancia desde el inicio de la ruta al punto proyectado
+     * @param desvio Distancia de la posición a la ruta; infinita si no hay
+     *               ningún segmento dentro del radio de búsqueda
+     */
+    public record Proyeccion(double distancia, double desvio) {
+        
+        public boolean encontrada() {
+            return desvio != Double.POSITIVE_INFINITY;
+        }
+    }
+    
+    private final int idRuta;
+    private final double latitudOrigen;
+    private final double longitudOrigen;
+    private final double metrosPorGradoLng;
+    private final double[] x;
+    private final double[] y;
+    private final double[] acumulado;
+    private final List<Paradero> paraderos;
+    
+    private final double tamanoCelda;
+    private final int[] celdas;
+    private final int[] inicioCelda;
+    private final int[] segmentos;
+    
+    private GeometriaRuta(int idRuta, double[] latitudes, double[] longitudes, double[] acumulado,
+                          List<Paradero> paraderos, double tamanoCelda) {
+        int n = latitudes.length;
+        this.idRuta = idRuta;
+        this.acumulado = acumulado;
+        this.paraderos = paraderos;
+        this.tamanoCelda = tamanoCelda;
+        this.latitudOrigen = n > 0 ? latitudes[0] : 0;
+        this.longitudOrigen = n > 0 ? longitudes[0] : 0;
+        this.metrosPorGradoLng = METROS_POR_GRADO * Math.cos(Math.toRadians(latitudOrigen));
+        this.x = new double[n];
+        this.y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = (longitudes[i] - longitudOrigen) * metrosPorGradoLng;
+            y[i] = (latitudes[i] - latitudOrigen) * METROS_POR_GRADO;
+        }
+        
+        // Cada segmento se registra en todas las celdas que toca su rectángulo envolvente.
+        // Los pares se empaquetan como (celda << 32 | segmento) y se ordenan.
+        long[] pares = new long[Math.max(0, n - 1) * 4];
+        int cantidad = 0;
+        for (int i = 0; i + 1 < n; i++) {
+            int cx0 = celda(Math.min(x[i], x[i + 1]));
+            int cx1 = celda(Math.max(x[i], x[i + 1]));
+            int cy0 = celda(Math.min(y[i], y[i + 1]));
+            int cy1 = celda(Math.max(y[i], y[i + 1]));
+            for (int cx = cx0; cx <= cx1; cx++) {
+                for (int cy = cy0; cy <= cy1; cy++) {
+                    if (cantidad == pares.length) {
+                        pares = Arrays.copyOf(pares, pares.length * 2);
+                    }
+                    pares[cantidad++] = ((long) clave(cx, cy) << 32) | i;
+                }
+            }
+        }
+        Arrays.sort(pares, 0, cantidad);
+        
+        int[] claves = new int[cantidad];
+        int[] inicios = new int[cantidad + 1];
+        int[] indices = new int[cantidad];
+        int distintas = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int clave = (int) (pares[i] >>> 32);
+            if (distintas == 0 || claves[distintas - 1] != clave) {
+                claves[distintas] = clave;
+                inicios[distintas] = i;
+                distintas++;
+            }
+            indices[i] = (int) pares[i];
+        }
+        inicios[distintas] = cantidad;
+        this.celdas = Arrays.copyOf(claves, distintas);
+        this.inicioCelda = Arrays.copyOf(inicios, distintas + 1);
+        this.segmentos = indices;
+    }
+    
+    /**
+     * @param puntos Puntos de la ruta; se ordenan por su campo orden
+     * @param tamanoCelda Lado de las celdas del índice, en metros
+     */
+    public static GeometriaRuta de(int idRuta, List<RutaPunto> puntos, double tamanoCelda) {
+        List<RutaPunto> ordenados = new ArrayList<>(puntos);
+        ordenados.sort(Comparator.comparing(RutaPunto::getOrden, Comparator.nullsLast(Comparator.naturalOrder())));
+        int n = ordenados.size();
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        double[] acumulado = new double[n];
+        List<Paradero> paraderos = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            RutaPunto punto = ordenados.get(i);
+            latitudes[i] = punto.getLatitud();
+            longitudes[i] = punto.getLongitud();
+            if (i > 0) {
+                acumulado[i] = acumulado[i - 1]
+                    + distanciaMetros(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+            }
+            if (Boolean.TRUE.equals(punto.getEsParaderoOficial())) {
+                paraderos.add(new Paradero(punto.getOrden(), punto.getNombreParadero(),
+                    latitudes[i], longitudes[i], acumulado[i]));
+            }
+        }
+        return new GeometriaRuta(idRuta, latitudes, longitudes, acumulado,
+            Collections.unmodifiableList(paraderos), tamanoCelda);
+    }
+    
+    public int getIdRuta() {
+        return idRuta;
+    }
+    
+    /**
+     * Se necesitan al menos dos puntos para proyectar posiciones
+     */
+    public boolean esValida() {
+        return x.length >= 2;
+    }
+    
+    public double getLongitudTotal() {
+        return acumulado.length == 0 ? 0 : acumulado[acumulado.length - 1];
+    }
+    
+    public int getCantidadSegmentos() {
+        return Math.max(0, x.length - 1);
+    }
+    
+    public List<Paradero> getParaderos() {
+        return paraderos;
+    }
+    
+    /**
+     * Proyecta una posición sobre el segmento más cercano de la ruta, recorriendo
+     * las celdas del índice en anillos alrededor de la posición
+     * @param desde Solo se consideran segmentos que terminan después de esta distancia;
+     *              evita saltar a un tramo anterior en rutas que pasan dos veces por el mismo lugar
+     * @param radioMaximo Distancia máxima a la ruta que se busca, en metros
+     */
+    public Proyeccion proyectar(double latitud, double longitud, double desde, double radioMaximo) {
+        double px = (longitud - longitudOrigen) * metrosPorGradoLng;
+        double py = (latitud - latitudOrigen) * METROS_POR_GRADO;
+        int cx = celda(px);
+        int cy = celda(py);
+        int anillos = (int) Math.ceil(radioMaximo / tamanoCelda);
+        
+        double mejorDesvio2 = Double.POSITIVE_INFINITY;
+        double mejorDistancia = desde;
+        for (int r = 0; r <= anillos; r++) {
+            for (int dx = -r; dx <= r; dx++) {
+                // Solo el borde del anillo r
+                int paso = (dx == -r || dx == r) ? 1 : 2 * r;
+                for (int dy = -r; dy <= r; dy += Math.max(1, paso)) {
+                    int posicion = Arrays.binarySearch(celdas, clave(cx + dx, cy + dy));
+                    if (posicion < 0) {
+                        continue;
+                    }
+                    for (int k = inicioCelda[posicion]; k < inicioCelda[posicion + 1]; k++) {
+                        int i = segmentos[k];
+                        if (acumulado[i + 1] < desde) {
+                            continue;
+                        }
+                        double dxSeg = x[i + 1] - x[i];
+                        double dySeg = y[i + 1] - y[i];
+                        double largo2 = dxSeg * dxSeg + dySeg * dySeg;
+                        double t = largo2 == 0 ? 0
+                            : Math.clamp(((px - x[i]) * dxSeg + (py - y[i]) * dySeg) / largo2, 0.0, 1.0);
+                        double ex = x[i] + t * dxSeg - px;
+                        double ey = y[i] + t * dySeg - py;
+                        double desvio2 = ex * ex + ey * ey;
+                        if (desvio2 < mejorDesvio2) {
+                            mejorDesvio2 = desvio2;
+                            mejorDistancia = acumulado[i] + t * (acumulado[i + 1] - acumulado[i]);
+                        }
+                    }
+                }
+            }
+            // Cualquier segmento en anillos más externos está al menos a r celdas de distancia
+            double cota = r * tamanoCelda;
+            if (mejorDesvio2 <= cota * cota) {
+                break;
+            }
+        }
+        double desvio = Math.sqrt(mejorDesvio2);
+        return new Proyeccion(mejorDistancia, desvio <= radioMaximo ? desvio : Double.POSITIVE_INFINITY);
+    }
+    
+    private int celda(double metros) {
+        return (int) Math.floor(metros / tamanoCelda);
+    }
+    
+    private static int clave(int cx, int cy) {
+        return (((cx + DESPLAZAMIENTO_CELDA) & MASCARA_CELDA) << 15) | ((cy + DESPLAZAMIENTO_CELDA) & MASCARA_CELDA);
+    }
+    
+    /**
+     * Distancia haversine en metros
+     */
+    public static double distanciaMetros(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+            * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * RADIO_TIERRA_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -1,84 +1,133 @@
 package com.nettalco.backendappservicios.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Valida los JWT emitidos por el backend de gestión.
+ * La clave y el parser se construyen una sola vez. Los tokens válidos se cachean
+ * por el hash SHA-256 del token (no el token en sí) hasta su expiración, de modo que
+ * las peticiones siguientes con el mismo token no vuelven a verificar la firma.
+ * Con la caché llena ({@code jwt.cache.max-tokens}) se descartan los tokens expirados
+ * (como máximo una vez por segundo) y, si no alcanza, el token nuevo no se cachea:
+ * sigue siendo válido, solo se vuelve a verificar su firma en la próxima petición.
+ */
 @Component
 public class JwtUtil {
     
-    @Value("${jwt.secret}")
-    private String secret;
-    
     /**
-     * Obtiene la clave de firma para validar el token JWT
+     * Datos del usuario tomados de un token ya verificado
      */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    public record DatosToken(String username, Integer idUsuario, Integer idRol, String nombreRol,
+                             long expiracionMillis) {
+        
+        public boolean vigente(long ahoraMillis) {
+            return expiracionMillis > ahoraMillis;
+        }
     }
     
-    /**
-     * Extrae todos los claims del token JWT
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
+    @Value("${jwt.secret}")
+    private String secret;
     
-    /**
-     * Extrae el username (subject) del token
-     */
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
-    }
+    @Value("${jwt.cache.max-tokens:10000}")
+    private int maxTokensCacheados;
     
-    /**
-     * Extrae el ID del usuario del token
-     */
-    public Integer extractIdUsuario(String token) {
-        return extractAllClaims(token).get("idUsuario", Integer.class);
-    }
+    private JwtParser parser;
     
-    /**
-     * Extrae el ID del rol del token
-     */
-    public Integer extractIdRol(String token) {
-        return extractAllClaims(token).get("idRol", Integer.class);
-    }
+    private final ConcurrentHashMap<ByteBuffer, DatosToken> tokens = new ConcurrentHashMap<>();
+    private final AtomicLong proximaPurgaMillis = new AtomicLong();
     
-    /**
-     * Extrae el nombre del rol del token
-     */
-    public String extractNombreRol(String token) {
-        return extractAllClaims(token).get("nombreRol", String.class);
+    @PostConstruct
+    void inicializar() {
+        parser = Jwts.parser()
+            .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+            .build();
     }
     
     /**
-     * Valida si el token es válido (no expirado)
+     * Verifica el token una sola vez y devuelve sus datos
+     * @return vacío si la firma no es válida, el token está mal formado o ya expiró
      */
-    public Boolean validateToken(String token) {
+    public Optional<DatosToken> parsear(String token) {
+        long ahora = System.currentTimeMillis();
+        ByteBuffer clave = hash(token);
+        DatosToken cacheado = tokens.get(clave);
+        if (cacheado != null) {
+            if (cacheado.vigente(ahora)) {
+                return Optional.of(cacheado);
+            }
+            tokens.remove(clave);
+            return Optional.empty();
+        }
+        
+        DatosToken datos;
         try {
-            Claims claims = extractAllClaims(token);
-            return claims.getExpiration().after(new Date());
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Date expiracion = claims.getExpiration();
+            if (expiracion == null || !expiracion.after(new Date(ahora))) {
+                return Optional.empty();
+            }
+            datos = new DatosToken(
+                claims.getSubject(),
+                claims.get("idUsuario", Integer.class),
+                claims.get("idRol", Integer.class),
+                claims.get("nombreRol", String.class),
+                expiracion.getTime()
+            );
         } catch (Exception e) {
-            return false;
+            return Optional.empty();
+        }
+        
+        cachear(clave, datos, ahora);
+        return Optional.of(datos);
+    }
+    
+    private void cachear(ByteBuffer clave, DatosToken datos, long ahora) {
+        if (tokens.size() >= maxTokensCacheados) {
+            long proxima = proximaPurgaMillis.get();
+            if (ahora >= proxima && proximaPurgaMillis.compareAndSet(proxima, ahora + 1000)) {
+                tokens.values().removeIf(cacheado -> !cacheado.vigente(ahora));
+            }
+            if (tokens.size() >= maxTokensCacheados) {
+                return;
+            }
         }
+        tokens.put(clave, datos);
     }
     
     /**
-     * Extrae la fecha de expiración del token
+     * Elimina los tokens expirados de la caché
      */
-    public Date extractExpiration(String token) {
-        return extractAllClaims(token).getExpiration();
+    @Scheduled(fixedDelayString = "${jwt.cache.limpieza-ms:60000}")
+    void expirarTokens() {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        tokens.values().removeIf(datos -> !datos.vigente(ahora));
+    }
+    
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 }
 
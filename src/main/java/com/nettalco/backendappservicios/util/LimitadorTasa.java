@@ -0,0 +1,117 @@
+package com.nettalco.backendappservicios.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cubeta de tokens por clave, sin bloqueos.
+ * Cada clave guarda un solo long: el instante teórico en que su cubeta vuelve a
+ * estar llena (algoritmo GCRA, equivalente a una cubeta de {@code capacidad} tokens
+ * que se recarga a {@code porSegundo}). Consumir es un compareAndSet sobre ese
+ * long; claves distintas no comparten estado.
+ * Una clave con la cubeta llena equivale a una clave ausente, por lo que
+ * {@link #purgar()} puede descartarlas sin cambiar el resultado.
+ *
+ * Las cubetas vivas nunca se descartan. Con {@code maxClaves} claves activas, las
+ * claves nuevas comparten una única cubeta de desborde: rotar claves no reinicia
+ * el límite de las existentes ni hace crecer la tabla.
+ */
+public final class LimitadorTasa {
+    
+    // Con la tabla llena, como máximo una purga por segundo desde consumir()
+    private static final long INTERVALO_PURGA_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final long nanosPorToken;
+    private final long toleranciaNanos;
+    private final int maxClaves;
+    private final LongSupplier reloj;
+    private final ConcurrentHashMap<String, AtomicLong> cubetas = new ConcurrentHashMap<>();
+    private final AtomicLong desborde;
+    private final AtomicLong consumosDesbordados = new AtomicLong();
+    private final AtomicLong ultimaPurga;
+    
+    /**
+     * @param capacidad Tokens disponibles en ráfaga; un consumo mayor nunca se admite
+     * @param porSegundo Tokens recargados por segundo
+     * @param maxClaves Claves con cubeta propia; las demás usan la cubeta de desborde
+     */
+    public LimitadorTasa(double capacidad, double porSegundo, int maxClaves) {
+        this(capacidad, porSegundo, maxClaves, System::nanoTime);
+    }
+    
+    LimitadorTasa(double capacidad, double porSegundo, int maxClaves, LongSupplier reloj) {
+        if (capacidad < 1 || porSegundo <= 0 || maxClaves < 1) {
+            throw new IllegalArgumentException("Capacidad, tasa de recarga y máximo de claves deben ser positivos");
+        }
+        this.nanosPorToken = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / porSegundo));
+        this.toleranciaNanos = Math.round(capacidad * nanosPorToken);
+        this.maxClaves = maxClaves;
+        this.reloj = reloj;
+        long ahora = reloj.getAsLong();
+        this.desborde = new AtomicLong(ahora);
+        this.ultimaPurga = new AtomicLong(ahora);
+    }
+    
+    /**
+     * Consume {@code tokens} de la cubeta de la clave si alcanzan
+     * @return 0 si se admitió; si no, nanosegundos hasta que habría tokens suficientes
+     *         (Long.MAX_VALUE si el consumo supera la capacidad)
+     */
+    public long consumir(String clave, int tokens) {
+        long costo = tokens * nanosPorToken;
+        if (costo > toleranciaNanos) {
+            return Long.MAX_VALUE;
+        }
+        long ahora = reloj.getAsLong();
+        AtomicLong llena = cubetas.get(clave);
+        if (llena == null) {
+            llena = cubetaNueva(clave, ahora);
+        }
+        while (true) {
+            long actual = llena.get();
+            long siguiente = (actual - ahora < 0 ? ahora : actual) + costo;
+            long exceso = siguiente - ahora - toleranciaNanos;
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (llena.compareAndSet(actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+    
+    private AtomicLong cubetaNueva(String clave, long ahora) {
+        if (cubetas.size() >= maxClaves) {
+            long anterior = ultimaPurga.get();
+            if (ahora - anterior >= INTERVALO_PURGA_NANOS && ultimaPurga.compareAndSet(anterior, ahora)) {
+                purgar();
+            }
+            if (cubetas.size() >= maxClaves) {
+                consumosDesbordados.incrementAndGet();
+                return desborde;
+            }
+        }
+        return cubetas.computeIfAbsent(clave, c -> new AtomicLong(ahora));
+    }
+    
+    /**
+     * Descarta las claves cuya cubeta ya se recargó por completo
+     */
+    public void purgar() {
+        long ahora = reloj.getAsLong();
+        cubetas.values().removeIf(llena -> llena.get() - ahora <= 0);
+    }
+    
+    public int cantidadClaves() {
+        return cubetas.size();
+    }
+    
+    /**
+     * Consumos de claves nuevas cargados a la cubeta de desborde por tener la tabla llena
+     */
+    public long cantidadDesbordados() {
+        return consumosDesbordados.get();
+    }
+}
@@ -0,0 +1,61 @@
+package com.nettalco.backendappservicios.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Rejilla de celdas de igual tamaño en grados sobre latitud/longitud,
+ * para indexar puntos en memoria y encontrar los cercanos a una posición
+ * visitando solo las celdas que cubren el radio de búsqueda.
+ * Cada celda se identifica con una clave long (fila en los 32 bits altos, columna en los bajos).
+ */
+public final class RejillaGeografica {
+    
+    private static final double METROS_POR_GRADO = 111_195.0;
+    
+    private final double tamanoGrados;
+    
+    /**
+     * @param tamanoCeldaM Lado de la celda en metros medido sobre la latitud
+     */
+    public RejillaGeografica(double tamanoCeldaM) {
+        if (tamanoCeldaM <= 0) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo");
+        }
+        this.tamanoGrados = tamanoCeldaM / METROS_POR_GRADO;
+    }
+    
+    public long clave(double latitud, double longitud) {
+        return clave(fila(latitud), columna(longitud));
+    }
+    
+    /**
+     * Entrega las claves de todas las celdas que intersectan el cuadrado
+     * de lado 2 * radio centrado en la posición
+     */
+    public void recorrer(double latitud, double longitud, double radioM, LongConsumer visitante) {
+        double deltaLatitud = radioM / METROS_POR_GRADO;
+        double coseno = Math.max(Math.cos(Math.toRadians(latitud)), 0.01);
+        double deltaLongitud = Math.min(180.0, radioM / (METROS_POR_GRADO * coseno));
+        int filaDesde = fila(latitud - deltaLatitud);
+        int filaHasta = fila(latitud + deltaLatitud);
+        int columnaDesde = columna(longitud - deltaLongitud);
+        int columnaHasta = columna(longitud + deltaLongitud);
+        for (int fila = filaDesde; fila <= filaHasta; fila++) {
+            for (int columna = columnaDesde; columna <= columnaHasta; columna++) {
+                visitante.accept(clave(fila, columna));
+            }
+        }
+    }
+    
+    private int fila(double latitud) {
+        return (int) Math.floor(latitud / tamanoGrados);
+    }
+    
+    private int columna(double longitud) {
+        return (int) Math.floor(longitud / tamanoGrados);
+    }
+    
+    private static long clave(int fila, int columna) {
+        return ((long) fila << 32) | (columna & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,41 @@
+package com.nettalco.backendappservicios.util;
+
+import com.nettalco.backendappservicios.dtos.RespuestaSerializada;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Respuestas HTTP a partir de cuerpos ya serializados
+ */
+public final class RespuestasHttp {
+    
+    private RespuestasHttp() {}
+    
+    /**
+     * Responde el JSON cacheado con su ETag, en gzip si el cliente lo acepta.
+     * @return null si If-None-Match coincide: Spring ya dejó la respuesta en 304
+     */
+    public static ResponseEntity<byte[]> json(WebRequest webRequest, RespuestaSerializada respuesta,
+                                              CacheControl cacheControl) {
+        String aceptada = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = aceptada != null && aceptada.toLowerCase().contains("gzip");
+        String etag = gzip ? respuesta.etagGzip() : respuesta.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(cacheControl)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return builder
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(respuesta.contenidoGzip());
+        }
+        return builder.body(respuesta.contenido());
+    }
+}
@@ -0,0 +1,98 @@
+package com.nettalco.backendappservicios.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular acotado, sin locks, para múltiples productores y un único consumidor.
+ * Los productores reservan una posición con CAS sobre el índice de escritura y publican
+ * el elemento en su slot; el consumidor avanza el índice de lectura a medida que los slots
+ * quedan publicados.
+ * 
+ * IMPORTANTE: {@link #poll()} y {@link #drenar(int, Consumer)} solo pueden llamarse
+ * desde un único hilo consumidor.
+ */
+public class RingBufferMpsc<E> {
+    
+    private final AtomicReferenceArray<E> slots;
+    private final int mascara;
+    private final int capacidad;
+    private final AtomicLong indiceEscritura = new AtomicLong();
+    private final AtomicLong indiceLectura = new AtomicLong();
+    
+    /**
+     * @param capacidadMinima Se redondea a la siguiente potencia de dos
+     */
+    public RingBufferMpsc(int capacidadMinima) {
+        if (capacidadMinima < 2) {
+            throw new IllegalArgumentException("La capacidad debe ser al menos 2");
+        }
+        this.capacidad = Integer.highestOneBit(capacidadMinima - 1) << 1;
+        this.mascara = capacidad - 1;
+        this.slots = new AtomicReferenceArray<>(capacidad);
+    }
+    
+    /**
+     * Intenta encolar un elemento
+     * @return false si el buffer está lleno
+     */
+    public boolean offer(E elemento) {
+        if (elemento == null) {
+            throw new NullPointerException("El elemento no puede ser null");
+        }
+        long posicion;
+        do {
+            posicion = indiceEscritura.get();
+            if (posicion - indiceLectura.get() >= capacidad) {
+                return false;
+            }
+        } while (!indiceEscritura.compareAndSet(posicion, posicion + 1));
+        
+        slots.lazySet((int) posicion & mascara, elemento);
+        return true;
+    }
+    
+    /**
+     * Extrae el siguiente elemento publicado (solo desde el hilo consumidor)
+     * @return null si no hay elementos disponibles
+     */
+    public E poll() {
+        long posicion = indiceLectura.get();
+        int indice = (int) posicion & mascara;
+        E elemento = slots.get(indice);
+        if (elemento == null) {
+            // Vacío, o un productor reservó la posición pero aún no publicó el elemento
+            return null;
+        }
+        slots.lazySet(indice, null);
+        indiceLectura.lazySet(posicion + 1);
+        return elemento;
+    }
+    
+    /**
+     * Extrae hasta {@code maximo} elementos (solo desde el hilo consumidor)
+     * @return Cantidad de elementos entregados al consumidor
+     */
+    public int drenar(int maximo, Consumer<E> consumidor) {
+        int entregados = 0;
+        E elemento;
+        while (entregados < maximo && (elemento = poll()) != null) {
+            consumidor.accept(elemento);
+            entregados++;
+        }
+        return entregados;
+    }
+    
+    /**
+     * Cantidad aproximada de elementos en el buffer
+     */
+    public int size() {
+        long tamano = indiceEscritura.get() - indiceLectura.get();
+        return (int) Math.max(0, Math.min(tamano, capacidad));
+    }
+    
+    public int capacidad() {
+        return capacidad;
+    }
+}
@@ -0,0 +1,138 @@
+package com.nettalco.backendappservicios.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Trama binaria de ubicaciones GPS enviada por los equipos a bordo (big-endian, ancho fijo).
+ *
+ * <pre>
+ * Cabecera
+ *   u16  magia            0x4750 ("GP")
+ *   u8   versión          1
+ *   u8   longitud IMEI    1..32
+ *   ...  IMEI             ASCII
+ *   u16  cantidad         1..MAX_FIJACIONES
+ * Fijación (20 bytes, repetida "cantidad" veces)
+ *   i64  fecha            epoch en milisegundos
+ *   i32  latitud          grados * 1e7
+ *   i32  longitud         grados * 1e7
+ *   u16  velocidad        km/h * 100 (0xFFFF = sin dato)
+ *   u16  rumbo            grados * 100 (0xFFFF = sin dato)
+ * </pre>
+ *
+ * Las fijaciones se entregan al consumidor como primitivos, sin crear objetos por campo.
+ */
+public final class TramaGps {
+    
+    public static final int MAGIA = 0x4750;
+    public static final int VERSION = 1;
+    public static final int MAX_LONGITUD_IMEI = 32;
+    public static final int MAX_FIJACIONES = 1000;
+    public static final int TAMANO_FIJACION = 20;
+    
+    /** Bytes fijos de cabecera además del IMEI */
+    public static final int TAMANO_CABECERA_BASE = 6;
+    
+    /** Valor de velocidad o rumbo que indica "sin dato" */
+    public static final int SIN_DATO = 0xFFFF;
+    
+    public static final double ESCALA_COORDENADA = 1e7;
+    public static final double ESCALA_VELOCIDAD_RUMBO = 100.0;
+    
+    @FunctionalInterface
+    public interface ConsumidorFijacion {
+        /**
+         * @param velocidadCentesimas km/h * 100, o {@link #SIN_DATO}
+         * @param rumboCentesimas grados * 100, o {@link #SIN_DATO}
+         */
+        void aceptar(long epochMilis, int latitudE7, int longitudE7, int velocidadCentesimas, int rumboCentesimas);
+    }
+    
+    public record Cabecera(String imei, int cantidad) {
+        
+        public int longitudFijaciones() {
+            return cantidad * TAMANO_FIJACION;
+        }
+    }
+    
+    private TramaGps() {}
+    
+    /**
+     * Lee la cabecera y deja la posición del buffer en la primera fijación
+     * @throws IllegalArgumentException si la cabecera no es válida o está incompleta
+     */
+    public static Cabecera leerCabecera(ByteBuffer trama) {
+        trama.order(ByteOrder.BIG_ENDIAN);
+        if (trama.remaining() < TAMANO_CABECERA_BASE) {
+            throw new IllegalArgumentException("Trama incompleta");
+        }
+        int magia = Short.toUnsignedInt(trama.getShort());
+        if (magia != MAGIA) {
+            throw new IllegalArgumentException("Trama con identificador inválido");
+        }
+        int version = Byte.toUnsignedInt(trama.get());
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Versión de trama no soportada: " + version);
+        }
+        int longitudImei = Byte.toUnsignedInt(trama.get());
+        if (longitudImei == 0 || longitudImei > MAX_LONGITUD_IMEI) {
+            throw new IllegalArgumentException("Longitud de IMEI inválida: " + longitudImei);
+        }
+        if (trama.remaining() < longitudImei + 2) {
+            throw new IllegalArgumentException("Trama incompleta");
+        }
+        byte[] imei = new byte[longitudImei];
+        trama.get(imei);
+        int cantidad = Short.toUnsignedInt(trama.getShort());
+        if (cantidad == 0 || cantidad > MAX_FIJACIONES) {
+            throw new IllegalArgumentException("Cantidad de fijaciones inválida: " + cantidad);
+        }
+        return new Cabecera(new String(imei, StandardCharsets.US_ASCII), cantidad);
+    }
+    
+    /**
+     * Lee las fijaciones indicadas en la cabecera a partir de la posición actual
+     * @throws IllegalArgumentException si el buffer no contiene todas las fijaciones
+     */
+    public static void leerFijaciones(ByteBuffer trama, Cabecera cabecera, ConsumidorFijacion consumidor) {
+        trama.order(ByteOrder.BIG_ENDIAN);
+        if (trama.remaining() < cabecera.longitudFijaciones()) {
+            throw new IllegalArgumentException("Trama incompleta: se esperaban "
+                + cabecera.cantidad() + " fijaciones");
+        }
+        for (int i = 0; i < cabecera.cantidad(); i++) {
+            consumidor.aceptar(
+                trama.getLong(),
+                trama.getInt(),
+                trama.getInt(),
+                Short.toUnsignedInt(trama.getShort()),
+                Short.toUnsignedInt(trama.getShort())
+            );
+        }
+    }
+    
+    /**
+     * Decodifica una trama completa; no admite bytes sobrantes al final
+     */
+    public static Cabecera decodificar(ByteBuffer trama, ConsumidorFijacion consumidor) {
+        Cabecera cabecera = leerCabecera(trama);
+        if (trama.remaining() != cabecera.longitudFijaciones()) {
+            throw new IllegalArgumentException("Longitud de trama inválida");
+        }
+        leerFijaciones(trama, cabecera, consumidor);
+        return cabecera;
+    }
+    
+    public static double coordenada(int valorE7) {
+        return valorE7 / ESCALA_COORDENADA;
+    }
+    
+    /**
+     * @return null si el equipo no envió el dato
+     */
+    public static Double velocidadORumbo(int centesimas) {
+        return centesimas == SIN_DATO ? null : centesimas / ESCALA_VELOCIDAD_RUMBO;
+    }
+}
@@ -0,0 +1,30 @@
+package com.nettalco.backendappservicios.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidades para coordinar caches en memoria con las transacciones de base de datos
+ */
+public final class Transacciones {
+    
+    private Transacciones() {}
+    
+    /**
+     * Ejecuta la acción después del commit de la transacción actual,
+     * o en el momento si no hay una transacción activa.
+     * Si la transacción se revierte, la acción no se ejecuta.
+     */
+    public static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
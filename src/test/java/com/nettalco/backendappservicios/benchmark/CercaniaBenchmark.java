@@ -0,0 +1,124 @@
+package com.nettalco.backendappservicios.benchmark;
+
+import com.nettalco.backendappservicios.dtos.BusCercanoResponse;
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.servicesimplements.CercaniaService;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import com.nettalco.backendappservicios.util.GeometriaRuta;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+
+/**
+ * Consulta de buses cercanos con el índice de rejilla de CercaniaService frente a
+ * recorrer todas las posiciones (lo que hace hoy el cliente con GET /api/rutas).
+ * Los buses se reparten al azar en un cuadrado de ~30 km alrededor de Lima.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.incluir=Cercania
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CercaniaBenchmark {
+
+    private static final double LATITUD = -12.0464;
+    private static final double LONGITUD = -77.0428;
+    private static final double LADO_GRADOS = 0.27;
+    private static final int CONSULTAS = 1024;
+
+    @Param({"1000", "10000"})
+    private int buses;
+
+    @Param({"500", "1500"})
+    private double radioM;
+
+    private CercaniaService cercania;
+    private List<UbicacionRegistro> posiciones;
+    private double[] consultas;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        IEstadoViajeService estadoViajeService = Mockito.mock(IEstadoViajeService.class);
+        Mockito.when(estadoViajeService.obtenerEnCurso(anyInt())).thenAnswer(invocacion -> {
+            Integer idViaje = invocacion.getArgument(0);
+            return Optional.of(new EstadoViaje(idViaje, idViaje % 40, idViaje, EstadoViaje.EN_CURSO));
+        });
+        cercania = new CercaniaService();
+        ReflectionTestUtils.setField(cercania, "estadoViajeService", estadoViajeService);
+        ReflectionTestUtils.setField(cercania, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cercania, "tamanoCeldaM", 250.0);
+        ReflectionTestUtils.setField(cercania, "radioMaxM", 3000.0);
+        ReflectionTestUtils.setField(cercania, "limiteMax", 100);
+        ReflectionTestUtils.invokeMethod(cercania, "inicializar");
+
+        SplittableRandom azar = new SplittableRandom(42);
+        OffsetDateTime ahora = OffsetDateTime.now();
+        posiciones = new ArrayList<>(buses);
+        for (int i = 0; i < buses; i++) {
+            posiciones.add(new UbicacionRegistro(i,
+                LATITUD + azar.nextDouble(-LADO_GRADOS / 2, LADO_GRADOS / 2),
+                LONGITUD + azar.nextDouble(-LADO_GRADOS / 2, LADO_GRADOS / 2),
+                30.0, 90.0, ahora));
+        }
+        cercania.actualizar(posiciones);
+
+        consultas = new double[CONSULTAS * 2];
+        for (int i = 0; i < consultas.length; i += 2) {
+            consultas[i] = LATITUD + azar.nextDouble(-LADO_GRADOS / 2, LADO_GRADOS / 2);
+            consultas[i + 1] = LONGITUD + azar.nextDouble(-LADO_GRADOS / 2, LADO_GRADOS / 2);
+        }
+    }
+
+    @Benchmark
+    public List<BusCercanoResponse> rejilla() {
+        int i = siguiente();
+        return cercania.busesCercanos(consultas[i], consultas[i + 1], radioM, 100);
+    }
+
+    @Benchmark
+    public List<UbicacionRegistro> recorridoCompleto() {
+        int i = siguiente();
+        double latitud = consultas[i];
+        double longitud = consultas[i + 1];
+        List<UbicacionRegistro> resultado = new ArrayList<>();
+        for (UbicacionRegistro posicion : posiciones) {
+            if (GeometriaRuta.distanciaMetros(latitud, longitud, posicion.latitud(), posicion.longitud()) <= radioM) {
+                resultado.add(posicion);
+            }
+        }
+        resultado.sort(Comparator.comparingDouble(posicion ->
+            GeometriaRuta.distanciaMetros(latitud, longitud, posicion.latitud(), posicion.longitud())));
+        return resultado.size() > 100 ? resultado.subList(0, 100) : resultado;
+    }
+
+    private int siguiente() {
+        int i = siguiente;
+        siguiente = (i + 2) % consultas.length;
+        return i;
+    }
+}
@@ -0,0 +1,77 @@
+package com.nettalco.backendappservicios.benchmark;
+
+import com.nettalco.backendappservicios.dtos.BusLocationResponse;
+import com.nettalco.backendappservicios.dtos.GPSIngestaRequest;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por ubicación del camino JSON → registro → respuesta con coordenadas
+ * BigDecimal (como era antes) frente a double.
+ * Con {@code -prof gc} muestra además los bytes asignados por operación:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.incluir=Coordenadas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordenadasBenchmark {
+
+    /** Forma anterior de GPSIngestaRequest */
+    public record GPSIngestaRequestDecimal(Integer idViaje, BigDecimal latitud, BigDecimal longitud,
+                                           BigDecimal velocidadKmh, BigDecimal rumbo) {}
+
+    /** Forma anterior de UbicacionRegistro */
+    public record UbicacionRegistroDecimal(Integer idViaje, BigDecimal latitud, BigDecimal longitud,
+                                           BigDecimal velocidadKmh, BigDecimal rumbo, OffsetDateTime fechaRegistro) {}
+
+    private static final String JSON = "{\"idViaje\":1842,\"latitud\":-12.04637412,\"longitud\":-77.04275311,"
+        + "\"velocidadKmh\":38.25,\"rumbo\":271.5}";
+
+    private JsonMapper mapper;
+    private OffsetDateTime fecha;
+
+    @Setup
+    public void preparar() {
+        mapper = JsonMapper.builder().build();
+        fecha = OffsetDateTime.now();
+    }
+
+    @Benchmark
+    public BusLocationResponse bigDecimal() {
+        GPSIngestaRequestDecimal request = mapper.readValue(JSON, GPSIngestaRequestDecimal.class);
+        UbicacionRegistroDecimal registro = new UbicacionRegistroDecimal(request.idViaje(), request.latitud(),
+            request.longitud(), request.velocidadKmh(), request.rumbo(), fecha);
+        return new BusLocationResponse(
+            registro.latitud().doubleValue(),
+            registro.longitud().doubleValue(),
+            registro.rumbo() != null ? registro.rumbo().doubleValue() : null,
+            registro.velocidadKmh() != null ? registro.velocidadKmh().doubleValue() : null,
+            registro.fechaRegistro()
+        );
+    }
+
+    @Benchmark
+    public BusLocationResponse primitivos() {
+        GPSIngestaRequest request = mapper.readValue(JSON, GPSIngestaRequest.class);
+        UbicacionRegistro registro = new UbicacionRegistro(request.idViaje(), request.latitud(),
+            request.longitud(), request.velocidadKmh(), request.rumbo(), fecha);
+        return registro.aBusLocationResponse();
+    }
+}
@@ -0,0 +1,149 @@
+package com.nettalco.backendappservicios.benchmark;
+
+import com.nettalco.backendappservicios.security.JwtAuthFilter;
+import com.nettalco.backendappservicios.security.UserDetails;
+import com.nettalco.backendappservicios.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthFilter antes y después de construir el parser una sola vez y cachear los datos del token:
+ * <ul>
+ *   <li>antes: clave y parser reconstruidos y el token verificado cinco veces por petición</li>
+ *   <li>despuesSinCache: una verificación con el parser prearmado (primer uso de cada token)</li>
+ *   <li>despues: token ya cacheado</li>
+ * </ul>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.incluir=JwtAuthFilter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final String SECRETO = "Y2Y4ZjE2NzM5YjQ4ZTNhMjVkNGI2YzVmODcwMTIzNDU2Nzg5MGFiY2RlZjEwMjM0NTY3ODkwYWJjZGVmMTIzNDU2Nzg5MGFiY2RlZjEyMzQ1Njc4OTBhYmNkZWY=";
+
+    private JwtAuthFilter filtro;
+    private JwtAuthFilter filtroSinCache;
+    private String[] tokens;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        filtro = filtro(10_000);
+        // Con un solo lugar en caché y dos tokens alternados, cada petición vuelve a verificar
+        filtroSinCache = filtro(1);
+        SecretKey clave = Keys.hmacShaKeyFor(SECRETO.getBytes(StandardCharsets.UTF_8));
+        tokens = new String[] {token(clave, "operador1", 7), token(clave, "operador2", 8)};
+    }
+
+    @Benchmark
+    public Authentication antes() throws IOException, ServletException {
+        String token = tokens[0];
+        if (validateToken(token)) {
+            String username = extractAllClaims(token).getSubject();
+            Integer idUsuario = extractAllClaims(token).get("idUsuario", Integer.class);
+            Integer idRol = extractAllClaims(token).get("idRol", Integer.class);
+            String nombreRol = extractAllClaims(token).get("nombreRol", String.class);
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                username, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + nombreRol)));
+            authToken.setDetails(new UserDetails(idUsuario, username, idRol, nombreRol));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+        }
+        new MockFilterChain().doFilter(peticion(token), new MockHttpServletResponse());
+        return autenticacion();
+    }
+
+    @Benchmark
+    public Authentication despuesSinCache() throws IOException, ServletException {
+        String token = tokens[siguiente];
+        siguiente ^= 1;
+        filtroSinCache.doFilter(peticion(token), new MockHttpServletResponse(), new MockFilterChain());
+        return autenticacion();
+    }
+
+    @Benchmark
+    public Authentication despues() throws IOException, ServletException {
+        filtro.doFilter(peticion(tokens[0]), new MockHttpServletResponse(), new MockFilterChain());
+        return autenticacion();
+    }
+
+    private static JwtAuthFilter filtro(int maxTokens) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRETO);
+        ReflectionTestUtils.setField(jwtUtil, "maxTokensCacheados", maxTokens);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "inicializar");
+        JwtAuthFilter filtro = new JwtAuthFilter();
+        ReflectionTestUtils.setField(filtro, "jwtUtil", jwtUtil);
+        return filtro;
+    }
+
+    private static String token(SecretKey clave, String usuario, int idUsuario) {
+        return Jwts.builder()
+            .subject(usuario)
+            .claim("idUsuario", idUsuario)
+            .claim("idRol", 2)
+            .claim("nombreRol", "OPERADOR")
+            .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+            .signWith(clave)
+            .compact();
+    }
+
+    private static MockHttpServletRequest peticion(String token) {
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/api/viajes");
+        peticion.addHeader("Authorization", "Bearer " + token);
+        return peticion;
+    }
+
+    private static Authentication autenticacion() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return autenticacion;
+    }
+
+    /** JwtUtil anterior: la clave y el parser se construían en cada llamada */
+    private static Claims extractAllClaims(String token) {
+        return Jwts.parser()
+            .verifyWith(Keys.hmacShaKeyFor(SECRETO.getBytes(StandardCharsets.UTF_8)))
+            .build()
+            .parseSignedClaims(token)
+            .getPayload();
+    }
+
+    private static boolean validateToken(String token) {
+        try {
+            return extractAllClaims(token).getExpiration().after(new Date());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
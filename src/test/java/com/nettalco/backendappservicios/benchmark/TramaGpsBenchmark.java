@@ -0,0 +1,124 @@
+package com.nettalco.backendappservicios.benchmark;
+
+import com.nettalco.backendappservicios.dtos.GPSIngestaRequest;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.util.TramaGps;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificación de un lote de ubicaciones hasta UbicacionRegistro: trama binaria
+ * (/api/gps/ubicaciones/binario) frente al JSON de /api/gps/ubicaciones/batch con
+ * su validación por elemento. Se informa también el tamaño de cada cuerpo.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.incluir=TramaGps
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TramaGpsBenchmark {
+
+    private static final String IMEI = "356938035643809";
+    private static final TypeReference<List<GPSIngestaRequest>> LISTA = new TypeReference<>() {};
+
+    @Param({"1", "50", "500"})
+    private int cantidad;
+
+    private byte[] binario;
+    private byte[] json;
+    private JsonMapper mapper;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    @Setup
+    public void preparar() {
+        mapper = JsonMapper.builder().build();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        byte[] imei = IMEI.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer trama = ByteBuffer.allocate(TramaGps.TAMANO_CABECERA_BASE + imei.length
+            + cantidad * TramaGps.TAMANO_FIJACION);
+        trama.putShort((short) TramaGps.MAGIA)
+            .put((byte) TramaGps.VERSION)
+            .put((byte) imei.length)
+            .put(imei)
+            .putShort((short) cantidad);
+        List<GPSIngestaRequest> requests = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            int latitudE7 = -120_464_000 + i * 37;
+            int longitudE7 = -770_428_000 - i * 41;
+            trama.putLong(1_700_000_000_000L + i * 5_000L)
+                .putInt(latitudE7)
+                .putInt(longitudE7)
+                .putShort((short) 3825)
+                .putShort((short) 27150);
+            requests.add(new GPSIngestaRequest(1842, TramaGps.coordenada(latitudE7),
+                TramaGps.coordenada(longitudE7), 38.25, 271.5));
+        }
+        binario = trama.array();
+        json = mapper.writeValueAsBytes(requests);
+        System.out.printf("%n%d fijaciones: binario %d bytes, JSON %d bytes%n", cantidad, binario.length, json.length);
+    }
+
+    @TearDown
+    public void cerrar() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public List<UbicacionRegistro> binario() {
+        List<UbicacionRegistro> registros = new ArrayList<>(cantidad);
+        TramaGps.decodificar(ByteBuffer.wrap(binario), (epochMilis, latitudE7, longitudE7, velocidad, rumbo) ->
+            registros.add(new UbicacionRegistro(
+                1842,
+                TramaGps.coordenada(latitudE7),
+                TramaGps.coordenada(longitudE7),
+                TramaGps.velocidadORumbo(velocidad),
+                TramaGps.velocidadORumbo(rumbo),
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMilis), ZoneOffset.UTC)
+            )));
+        return registros;
+    }
+
+    @Benchmark
+    public List<UbicacionRegistro> json() {
+        List<GPSIngestaRequest> requests = mapper.readValue(json, LISTA);
+        List<UbicacionRegistro> registros = new ArrayList<>(requests.size());
+        OffsetDateTime ahora = OffsetDateTime.now();
+        for (GPSIngestaRequest request : requests) {
+            if (!validator.validate(request).isEmpty()) {
+                continue;
+            }
+            registros.add(new UbicacionRegistro(request.idViaje(), request.latitud(), request.longitud(),
+                request.velocidadKmh(), request.rumbo(), ahora));
+        }
+        return registros;
+    }
+}
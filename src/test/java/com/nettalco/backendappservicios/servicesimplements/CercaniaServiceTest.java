@@ -0,0 +1,105 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.BusCercanoResponse;
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+import com.nettalco.backendappservicios.dtos.UbicacionRegistro;
+import com.nettalco.backendappservicios.servicesinterfaces.IEstadoViajeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+class CercaniaServiceTest {
+
+    private static final double LATITUD = -12.0464;
+    private static final double LONGITUD = -77.0428;
+    // ~2 km al norte: varias celdas de 250 m más allá
+    private static final double LATITUD_NORTE = LATITUD + 0.018;
+
+    private final IEstadoViajeService estadoViajeService = Mockito.mock(IEstadoViajeService.class);
+    private CercaniaService cercania;
+
+    @BeforeEach
+    void preparar() {
+        Mockito.when(estadoViajeService.obtenerEnCurso(anyInt())).thenAnswer(invocacion -> {
+            Integer idViaje = invocacion.getArgument(0);
+            return Optional.of(new EstadoViaje(idViaje, 1, idViaje, EstadoViaje.EN_CURSO));
+        });
+        cercania = new CercaniaService();
+        ReflectionTestUtils.setField(cercania, "estadoViajeService", estadoViajeService);
+        ReflectionTestUtils.setField(cercania, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cercania, "tamanoCeldaM", 250.0);
+        ReflectionTestUtils.setField(cercania, "radioMaxM", 3000.0);
+        ReflectionTestUtils.setField(cercania, "limiteMax", 100);
+        ReflectionTestUtils.setField(cercania, "ttlSegundos", 600L);
+        ReflectionTestUtils.invokeMethod(cercania, "inicializar");
+    }
+
+    private static UbicacionRegistro ubicacion(int idViaje, double latitud, OffsetDateTime fecha) {
+        return new UbicacionRegistro(idViaje, latitud, LONGITUD, 30.0, 0.0, fecha);
+    }
+
+    private List<Integer> viajesCercanos(double latitud) {
+        return cercania.busesCercanos(latitud, LONGITUD, 500, 100).stream()
+            .map(BusCercanoResponse::tripId)
+            .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Set<Integer>> celdasBuses() {
+        return (Map<Long, Set<Integer>>) ReflectionTestUtils.getField(cercania, "celdasBuses");
+    }
+
+    @Test
+    void unBusQueCambiaDeCeldaSoloApareceEnLaNueva() {
+        OffsetDateTime ahora = OffsetDateTime.now();
+        cercania.actualizar(List.of(ubicacion(1, LATITUD, ahora)));
+        assertEquals(List.of(1), viajesCercanos(LATITUD));
+
+        cercania.actualizar(List.of(ubicacion(1, LATITUD_NORTE, ahora.plusSeconds(60))));
+
+        assertEquals(List.of(), viajesCercanos(LATITUD));
+        assertEquals(List.of(1), viajesCercanos(LATITUD_NORTE));
+        assertEquals(1, celdasBuses().size());
+    }
+
+    @Test
+    void unaUbicacionAtrasadaNoMueveElBus() {
+        OffsetDateTime ahora = OffsetDateTime.now();
+        cercania.actualizar(List.of(ubicacion(1, LATITUD_NORTE, ahora)));
+        cercania.actualizar(List.of(ubicacion(1, LATITUD, ahora.minusSeconds(30))));
+
+        assertEquals(List.of(), viajesCercanos(LATITUD));
+        assertEquals(List.of(1), viajesCercanos(LATITUD_NORTE));
+    }
+
+    @Test
+    void expiraLosViajesTerminadosYLosQueDejaronDeReportar() {
+        OffsetDateTime ahora = OffsetDateTime.now();
+        cercania.actualizar(List.of(
+            ubicacion(1, LATITUD, ahora),
+            ubicacion(2, LATITUD, ahora),
+            ubicacion(3, LATITUD_NORTE, ahora.minusMinutes(11))
+        ));
+        // El viaje 2 ya terminó; el 3 sigue en curso pero no reporta hace más de ttl-segundos
+        Mockito.when(estadoViajeService.idsEnCurso()).thenReturn(Set.of(1, 3));
+
+        ReflectionTestUtils.invokeMethod(cercania, "expirarBuses");
+
+        assertEquals(List.of(1), viajesCercanos(LATITUD));
+        assertEquals(List.of(), viajesCercanos(LATITUD_NORTE));
+        assertEquals(1, celdasBuses().size());
+        assertTrue(celdasBuses().values().iterator().next().contains(1));
+    }
+}
@@ -0,0 +1,78 @@
+package com.nettalco.backendappservicios.servicesimplements;
+
+import com.nettalco.backendappservicios.dtos.EstadoViaje;
+import com.nettalco.backendappservicios.repositories.ViajeRepository;
+import com.nettalco.backendappservicios.servicesinterfaces.IPosicionActualService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EstadoViajeServiceTest {
+
+    private final ViajeRepository viajeRepository = Mockito.mock(ViajeRepository.class);
+    private EstadoViajeService estadoViajeService;
+
+    @BeforeEach
+    void preparar() {
+        estadoViajeService = new EstadoViajeService();
+        ReflectionTestUtils.setField(estadoViajeService, "viajeRepository", viajeRepository);
+        ReflectionTestUtils.setField(estadoViajeService, "posicionActualService", Mockito.mock(IPosicionActualService.class));
+        ReflectionTestUtils.setField(estadoViajeService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(estadoViajeService, "ttlNegativoMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(estadoViajeService, "inicializar");
+    }
+
+    private static Optional<EstadoViaje> viaje(String estado) {
+        return Optional.of(new EstadoViaje(1, 10, 100, estado));
+    }
+
+    @Test
+    void unViajeQueSeIniciaDespuesDeLaPrimeraConsultaSeAceptaEnLaSiguiente() {
+        Mockito.when(viajeRepository.findEstadoViajeById(1))
+            .thenReturn(viaje("programado"), viaje(EstadoViaje.EN_CURSO));
+
+        assertFalse(estadoViajeService.estaEnCurso(1));
+        assertTrue(estadoViajeService.estaEnCurso(1));
+        assertTrue(estadoViajeService.estaEnCurso(1));
+        verify(viajeRepository, times(2)).findEstadoViajeById(1);
+    }
+
+    @Test
+    void trasLaReverificacionElNegativoSeRecuerdaDuranteElTtl() {
+        Mockito.when(viajeRepository.findEstadoViajeById(1)).thenReturn(viaje("finalizado"));
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(estadoViajeService.estaEnCurso(1));
+        }
+        verify(viajeRepository, times(2)).findEstadoViajeById(1);
+    }
+
+    @Test
+    void filtrarEnCursoTambienReverificaUnaVez() {
+        Mockito.when(viajeRepository.findEstadosViajeByIds(List.of(1)))
+            .thenReturn(List.of(viaje("programado").get()), List.of(viaje(EstadoViaje.EN_CURSO).get()));
+
+        assertEquals(0, estadoViajeService.filtrarEnCurso(List.of(1)).size());
+        assertTrue(estadoViajeService.filtrarEnCurso(List.of(1)).contains(1));
+    }
+
+    @Test
+    void unBusSinViajeSeReverificaUnaVez() {
+        Mockito.when(viajeRepository.findEstadosEnCursoByBus(100))
+            .thenReturn(List.of(), List.of(viaje(EstadoViaje.EN_CURSO).get()));
+
+        assertTrue(estadoViajeService.obtenerEnCursoPorBus(100).isEmpty());
+        assertEquals(1, estadoViajeService.obtenerEnCursoPorBus(100).orElseThrow().idViaje());
+    }
+}
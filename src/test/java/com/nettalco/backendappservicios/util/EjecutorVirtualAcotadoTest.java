@@ -0,0 +1,193 @@
+package com.nettalco.backendappservicios.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EjecutorVirtualAcotadoTest {
+
+    private final MeterRegistry registro = new SimpleMeterRegistry();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private EjecutorVirtualAcotado ejecutor;
+
+    @AfterEach
+    void cerrar() {
+        liberar.countDown();
+        if (ejecutor != null) {
+            ejecutor.close();
+        }
+    }
+
+    private EjecutorVirtualAcotado ejecutor(int maxConcurrentes, int maxEnEspera, EjecutorVirtualAcotado.PoliticaRechazo politica) {
+        ejecutor = new EjecutorVirtualAcotado("prueba", maxConcurrentes, maxEnEspera, politica, registro);
+        return ejecutor;
+    }
+
+    private Runnable bloqueada(AtomicInteger iniciadas) {
+        return () -> {
+            iniciadas.incrementAndGet();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private double gauge(String nombre) {
+        return registro.get(nombre).gauge().value();
+    }
+
+    private double contador(String nombre) {
+        return registro.get(nombre).counter().count();
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                throw new AssertionError("La condición no se cumplió a tiempo");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void limitaLasTareasConcurrentes() throws InterruptedException {
+        EjecutorVirtualAcotado ejecutor = ejecutor(2, 10, EjecutorVirtualAcotado.PoliticaRechazo.RECHAZAR);
+        AtomicInteger iniciadas = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            ejecutor.execute(bloqueada(iniciadas));
+        }
+
+        esperarHasta(() -> gauge("prueba.activas") == 2 && gauge("prueba.en-espera") == 3);
+        assertEquals(2, iniciadas.get());
+
+        liberar.countDown();
+        esperarHasta(() -> iniciadas.get() == 5 && gauge("prueba.activas") == 0);
+        assertEquals(0, gauge("prueba.en-espera"));
+        assertEquals(5, registro.get("prueba.espera").timer().count());
+    }
+
+    @Test
+    void rechazarLanzaExcepcionConLaEsperaLlena() throws InterruptedException {
+        EjecutorVirtualAcotado ejecutor = ejecutor(1, 1, EjecutorVirtualAcotado.PoliticaRechazo.RECHAZAR);
+        AtomicInteger iniciadas = new AtomicInteger();
+        ejecutor.execute(bloqueada(iniciadas));
+        // La primera cuenta en espera hasta obtener su permiso
+        esperarHasta(() -> gauge("prueba.activas") == 1);
+        ejecutor.execute(bloqueada(iniciadas));
+        esperarHasta(() -> gauge("prueba.activas") == 1 && gauge("prueba.en-espera") == 1);
+
+        assertThrows(RejectedExecutionException.class, () -> ejecutor.execute(bloqueada(iniciadas)));
+        assertEquals(1, contador("prueba.rechazadas"));
+        assertEquals(1, gauge("prueba.en-espera"));
+
+        liberar.countDown();
+        esperarHasta(() -> iniciadas.get() == 2 && gauge("prueba.activas") == 0);
+        assertEquals(0, gauge("prueba.en-espera"));
+    }
+
+    @Test
+    void llamadorEjecutaEnElHiloQueEnviaYEsperaSuPermiso() throws InterruptedException {
+        EjecutorVirtualAcotado ejecutor = ejecutor(1, 1, EjecutorVirtualAcotado.PoliticaRechazo.LLAMADOR);
+        AtomicInteger iniciadas = new AtomicInteger();
+        ejecutor.execute(bloqueada(iniciadas));
+        // La primera cuenta en espera hasta obtener su permiso
+        esperarHasta(() -> gauge("prueba.activas") == 1);
+        ejecutor.execute(bloqueada(iniciadas));
+        esperarHasta(() -> gauge("prueba.activas") == 1 && gauge("prueba.en-espera") == 1);
+
+        AtomicReference<Thread> hiloTarea = new AtomicReference<>();
+        Thread llamador = Thread.ofPlatform().start(() -> ejecutor.execute(() -> hiloTarea.set(Thread.currentThread())));
+        // El llamador queda esperando permiso como una tarea más
+        esperarHasta(() -> gauge("prueba.en-espera") == 2);
+        assertEquals(1, contador("prueba.en-llamador"));
+        assertNull(hiloTarea.get());
+
+        liberar.countDown();
+        llamador.join(TimeUnit.SECONDS.toMillis(5));
+        assertSame(llamador, hiloTarea.get());
+        esperarHasta(() -> gauge("prueba.activas") == 0);
+        assertEquals(0, gauge("prueba.en-espera"));
+        assertEquals(0, contador("prueba.rechazadas"));
+    }
+
+    @Test
+    void ejecutarEnLlamadorRespetaElLimiteDeConcurrencia() throws InterruptedException {
+        EjecutorVirtualAcotado ejecutor = ejecutor(1, 1, EjecutorVirtualAcotado.PoliticaRechazo.RECHAZAR);
+        AtomicInteger iniciadas = new AtomicInteger();
+        ejecutor.execute(bloqueada(iniciadas));
+        esperarHasta(() -> gauge("prueba.activas") == 1);
+        ejecutor.execute(bloqueada(iniciadas));
+        esperarHasta(() -> gauge("prueba.en-espera") == 1);
+        assertThrows(RejectedExecutionException.class, () -> ejecutor.execute(bloqueada(iniciadas)));
+
+        AtomicReference<Thread> hiloTarea = new AtomicReference<>();
+        Thread llamador = Thread.ofPlatform().start(() -> ejecutor.ejecutarEnLlamador(() -> hiloTarea.set(Thread.currentThread())));
+        // Con el único permiso ocupado, el llamador espera aunque la espera esté llena
+        esperarHasta(() -> gauge("prueba.en-espera") == 2);
+        assertNull(hiloTarea.get());
+
+        liberar.countDown();
+        llamador.join(TimeUnit.SECONDS.toMillis(5));
+        assertSame(llamador, hiloTarea.get());
+        esperarHasta(() -> iniciadas.get() == 2 && gauge("prueba.activas") == 0);
+        assertEquals(0, gauge("prueba.en-espera"));
+        assertEquals(1, contador("prueba.en-llamador"));
+    }
+
+    @Test
+    void unaTareaQueFallaDevuelveSuPermiso() throws InterruptedException {
+        EjecutorVirtualAcotado ejecutor = ejecutor(1, 10, EjecutorVirtualAcotado.PoliticaRechazo.RECHAZAR);
+        for (int i = 0; i < 3; i++) {
+            ejecutor.execute(() -> {
+                throw new IllegalStateException("falla");
+            });
+        }
+        CountDownLatch ejecutada = new CountDownLatch(1);
+        ejecutor.execute(ejecutada::countDown);
+
+        assertTrue(ejecutada.await(5, TimeUnit.SECONDS));
+        esperarHasta(() -> gauge("prueba.activas") == 0);
+        assertEquals(0, gauge("prueba.en-espera"));
+    }
+
+    @Test
+    void cerrarEsperaLasAceptadasYRechazaLasNuevas() {
+        EjecutorVirtualAcotado ejecutor = ejecutor(1, 10, EjecutorVirtualAcotado.PoliticaRechazo.LLAMADOR);
+        AtomicInteger terminadas = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            ejecutor.execute(terminadas::incrementAndGet);
+        }
+
+        ejecutor.close();
+        assertEquals(3, terminadas.get());
+
+        assertThrows(RejectedExecutionException.class, () -> ejecutor.execute(terminadas::incrementAndGet));
+        assertEquals(1, contador("prueba.rechazadas"));
+        assertEquals(0, gauge("prueba.en-espera"));
+    }
+
+    @Test
+    void rechazaLimitesInvalidos() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new EjecutorVirtualAcotado("prueba", 0, 1, EjecutorVirtualAcotado.PoliticaRechazo.RECHAZAR, registro));
+        assertThrows(IllegalArgumentException.class,
+            () -> new EjecutorVirtualAcotado("prueba", 1, -1, EjecutorVirtualAcotado.PoliticaRechazo.RECHAZAR, registro));
+    }
+}
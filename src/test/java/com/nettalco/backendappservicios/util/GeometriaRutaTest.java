@@ -0,0 +1,245 @@
+package com.nettalco.backendappservicios.util;
+
+import com.nettalco.backendappservicios.entities.RutaPunto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeometriaRutaTest {
+
+    private static final double LATITUD = -12.0464;
+    private static final double LONGITUD = -77.0428;
+    // Mismo plano local que GeometriaRuta
+    private static final double METROS_POR_GRADO = Math.toRadians(6_371_008.8);
+    private static final double METROS_POR_GRADO_LNG = METROS_POR_GRADO * Math.cos(Math.toRadians(LATITUD));
+    private static final double TOLERANCIA = 1e-6;
+
+    /** Punto desplazado desde el origen, en metros (este, norte) */
+    private static RutaPunto punto(int orden, double esteM, double norteM) {
+        return new RutaPunto(null, orden, LATITUD + norteM / METROS_POR_GRADO, LONGITUD + esteM / METROS_POR_GRADO_LNG,
+            null, false);
+    }
+
+    private static double latitud(double norteM) {
+        return LATITUD + norteM / METROS_POR_GRADO;
+    }
+
+    private static double longitud(double esteM) {
+        return LONGITUD + esteM / METROS_POR_GRADO_LNG;
+    }
+
+    /** Recorrido al azar; a veces repite el punto anterior (segmento de largo cero) */
+    private static List<RutaPunto> rutaAlAzar(SplittableRandom azar, int puntos, double pasoM) {
+        List<RutaPunto> ruta = new ArrayList<>();
+        double este = 0;
+        double norte = 0;
+        for (int i = 0; i < puntos; i++) {
+            ruta.add(punto(i, este, norte));
+            if (azar.nextInt(10) > 0) {
+                este += azar.nextDouble(-pasoM, pasoM);
+                norte += azar.nextDouble(-pasoM, pasoM);
+            }
+        }
+        return ruta;
+    }
+
+    /**
+     * Recorre todos los segmentos y devuelve {desvío, distancia}; la distancia es NaN si
+     * varios segmentos empatan en desvío con distancias distintas (cruces de la ruta)
+     */
+    private static double[] fuerzaBruta(List<RutaPunto> puntos, double latitud, double longitud,
+                                        double desde, double radioMaximo) {
+        int n = puntos.size();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] acumulado = new double[n];
+        double latitudOrigen = puntos.get(0).getLatitud();
+        double longitudOrigen = puntos.get(0).getLongitud();
+        double metrosPorGradoLng = METROS_POR_GRADO * Math.cos(Math.toRadians(latitudOrigen));
+        for (int i = 0; i < n; i++) {
+            x[i] = (puntos.get(i).getLongitud() - longitudOrigen) * metrosPorGradoLng;
+            y[i] = (puntos.get(i).getLatitud() - latitudOrigen) * METROS_POR_GRADO;
+            if (i > 0) {
+                acumulado[i] = acumulado[i - 1] + GeometriaRuta.distanciaMetros(
+                    puntos.get(i - 1).getLatitud(), puntos.get(i - 1).getLongitud(),
+                    puntos.get(i).getLatitud(), puntos.get(i).getLongitud());
+            }
+        }
+        double px = (longitud - longitudOrigen) * metrosPorGradoLng;
+        double py = (latitud - latitudOrigen) * METROS_POR_GRADO;
+
+        double[] desvios = new double[n - 1];
+        double[] distancias = new double[n - 1];
+        double mejor = Double.POSITIVE_INFINITY;
+        for (int i = 0; i + 1 < n; i++) {
+            desvios[i] = Double.POSITIVE_INFINITY;
+            if (acumulado[i + 1] < desde) {
+                continue;
+            }
+            double dxSeg = x[i + 1] - x[i];
+            double dySeg = y[i + 1] - y[i];
+            double largo2 = dxSeg * dxSeg + dySeg * dySeg;
+            double t = largo2 == 0 ? 0 : Math.clamp(((px - x[i]) * dxSeg + (py - y[i]) * dySeg) / largo2, 0.0, 1.0);
+            desvios[i] = Math.hypot(x[i] + t * dxSeg - px, y[i] + t * dySeg - py);
+            distancias[i] = acumulado[i] + t * (acumulado[i + 1] - acumulado[i]);
+            mejor = Math.min(mejor, desvios[i]);
+        }
+        if (mejor > radioMaximo) {
+            return new double[] {Double.POSITIVE_INFINITY, Double.NaN};
+        }
+        double distancia = Double.NaN;
+        for (int i = 0; i + 1 < n; i++) {
+            if (desvios[i] <= mejor + TOLERANCIA) {
+                if (Double.isNaN(distancia)) {
+                    distancia = distancias[i];
+                } else if (Math.abs(distancia - distancias[i]) > TOLERANCIA) {
+                    return new double[] {mejor, Double.NaN};
+                }
+            }
+        }
+        return new double[] {mejor, distancia};
+    }
+
+    private static void compararConFuerzaBruta(List<RutaPunto> ruta, double tamanoCelda, SplittableRandom azar,
+                                               int consultas, double dispersionM) {
+        GeometriaRuta geometria = GeometriaRuta.de(1, ruta, tamanoCelda);
+        for (int c = 0; c < consultas; c++) {
+            RutaPunto base = ruta.get(azar.nextInt(ruta.size()));
+            double latitud = base.getLatitud() + azar.nextDouble(-dispersionM, dispersionM) / METROS_POR_GRADO;
+            double longitud = base.getLongitud() + azar.nextDouble(-dispersionM, dispersionM) / METROS_POR_GRADO_LNG;
+            double desde = azar.nextBoolean() ? 0 : azar.nextDouble(geometria.getLongitudTotal());
+            double radio = azar.nextDouble(10, 2 * dispersionM);
+
+            GeometriaRuta.Proyeccion proyeccion = geometria.proyectar(latitud, longitud, desde, radio);
+            double[] esperado = fuerzaBruta(ruta, latitud, longitud, desde, radio);
+
+            String caso = "consulta " + c + " (celda " + tamanoCelda + " m, desde " + desde + ", radio " + radio + ")";
+            if (esperado[0] == Double.POSITIVE_INFINITY) {
+                assertFalse(proyeccion.encontrada(), caso);
+                continue;
+            }
+            assertTrue(proyeccion.encontrada(), caso);
+            assertEquals(esperado[0], proyeccion.desvio(), TOLERANCIA, caso);
+            if (!Double.isNaN(esperado[1])) {
+                assertEquals(esperado[1], proyeccion.distancia(), TOLERANCIA, caso);
+            }
+        }
+    }
+
+    @Test
+    void coincideConLaFuerzaBrutaConDistintosTamanosDeCelda() {
+        SplittableRandom azar = new SplittableRandom(7);
+        for (double tamanoCelda : new double[] {10, 50, 250, 2000}) {
+            List<RutaPunto> ruta = rutaAlAzar(azar, 300, 150);
+            compararConFuerzaBruta(ruta, tamanoCelda, azar, 2000, 400);
+        }
+    }
+
+    @Test
+    void coincideConLaFuerzaBrutaCuandoLasClavesDeCeldaDanLaVuelta() {
+        // Celdas de 1 m sobre 60 km: las coordenadas de celda superan los 15 bits de la clave
+        SplittableRandom azar = new SplittableRandom(11);
+        List<RutaPunto> ruta = new ArrayList<>();
+        for (int i = 0; i <= 60; i++) {
+            ruta.add(punto(i, i * 1000.0, (i % 2) * 40.0));
+        }
+        compararConFuerzaBruta(ruta, 1, azar, 500, 30);
+    }
+
+    @Test
+    void enUnaRutaCircularDesdeEligeLaSegundaPasada() {
+        // Cuadrado de 1 km de lado que vuelve al inicio y sigue 200 m por el primer lado
+        List<RutaPunto> ruta = List.of(
+            punto(0, 0, 0),
+            punto(1, 1000, 0),
+            punto(2, 1000, 1000),
+            punto(3, 0, 1000),
+            punto(4, 0, 0),
+            punto(5, 200, 0)
+        );
+        GeometriaRuta geometria = GeometriaRuta.de(1, ruta, 100);
+        double vuelta = geometria.getLongitudTotal() - 200;
+
+        GeometriaRuta.Proyeccion primera = geometria.proyectar(latitud(5), longitud(100), 0, 50);
+        assertEquals(100, primera.distancia(), 0.5);
+        assertEquals(5, primera.desvio(), 0.01);
+
+        GeometriaRuta.Proyeccion segunda = geometria.proyectar(latitud(5), longitud(100), vuelta - 100, 50);
+        assertEquals(vuelta + 100, segunda.distancia(), 0.5);
+        assertEquals(5, segunda.desvio(), 0.01);
+    }
+
+    @Test
+    void losSegmentosDeLargoCeroNoRompenLaProyeccion() {
+        List<RutaPunto> ruta = List.of(
+            punto(0, 0, 0),
+            punto(1, 0, 0),
+            punto(2, 500, 0),
+            punto(3, 500, 0),
+            punto(4, 500, 0),
+            punto(5, 1000, 0)
+        );
+        GeometriaRuta geometria = GeometriaRuta.de(1, ruta, 100);
+        assertEquals(5, geometria.getCantidadSegmentos());
+        assertEquals(1000, geometria.getLongitudTotal(), 0.5);
+
+        GeometriaRuta.Proyeccion enVertice = geometria.proyectar(latitud(20), longitud(500), 0, 100);
+        assertEquals(500, enVertice.distancia(), 0.5);
+        assertEquals(20, enVertice.desvio(), 0.01);
+
+        GeometriaRuta.Proyeccion alInicio = geometria.proyectar(latitud(0), longitud(-30), 0, 100);
+        assertEquals(0, alInicio.distancia(), TOLERANCIA);
+        assertEquals(30, alInicio.desvio(), 0.01);
+    }
+
+    @Test
+    void radioMaximoCortaLaBusqueda() {
+        GeometriaRuta geometria = GeometriaRuta.de(1, List.of(punto(0, 0, 0), punto(1, 2000, 0)), 50);
+
+        assertFalse(geometria.proyectar(latitud(300), longitud(1000), 0, 299).encontrada());
+        GeometriaRuta.Proyeccion dentro = geometria.proyectar(latitud(300), longitud(1000), 0, 301);
+        assertTrue(dentro.encontrada());
+        assertEquals(300, dentro.desvio(), 0.01);
+        assertEquals(1000, dentro.distancia(), 0.5);
+    }
+
+    @Test
+    void desdeDescartaLosSegmentosAnteriores() {
+        GeometriaRuta geometria = GeometriaRuta.de(1, List.of(punto(0, 0, 0), punto(1, 1000, 0), punto(2, 1000, 1000)), 100);
+
+        // Junto al primer tramo, pero solo se aceptan segmentos que terminan después de 1500 m
+        assertFalse(geometria.proyectar(latitud(10), longitud(500), 1500, 200).encontrada());
+        GeometriaRuta.Proyeccion lejos = geometria.proyectar(latitud(10), longitud(500), 1500, 600);
+        assertTrue(lejos.encontrada());
+        assertEquals(1010, lejos.distancia(), 0.5);
+    }
+
+    @Test
+    void ordenaLosPuntosYCalculaLaDistanciaDeLosParaderos() {
+        RutaPunto paradero = punto(2, 1000, 500);
+        paradero.setEsParaderoOficial(true);
+        paradero.setNombreParadero("Plaza");
+        GeometriaRuta geometria = GeometriaRuta.de(1, List.of(paradero, punto(0, 0, 0), punto(1, 1000, 0)), 100);
+
+        assertEquals(1500, geometria.getLongitudTotal(), 0.5);
+        assertEquals(1, geometria.getParaderos().size());
+        assertEquals("Plaza", geometria.getParaderos().get(0).nombre());
+        assertEquals(1500, geometria.getParaderos().get(0).distancia(), 0.5);
+    }
+
+    @Test
+    void sinSegmentosNoEsValidaNiEncuentraNada() {
+        GeometriaRuta vacia = GeometriaRuta.de(1, List.of(), 100);
+        GeometriaRuta unPunto = GeometriaRuta.de(1, List.of(punto(0, 0, 0)), 100);
+
+        assertFalse(vacia.esValida());
+        assertFalse(unPunto.esValida());
+        assertFalse(unPunto.proyectar(LATITUD, LONGITUD, 0, 100).encontrada());
+    }
+}
@@ -0,0 +1,137 @@
+package com.nettalco.backendappservicios.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LimitadorTasaTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong reloj = new AtomicLong(1_000_000 * MS);
+
+    // 5 tokens de ráfaga, 10 por segundo: un token cada 100 ms
+    private LimitadorTasa limitador(int maxClaves) {
+        return new LimitadorTasa(5, 10, maxClaves, reloj::get);
+    }
+
+    private void avanzar(long ms) {
+        reloj.addAndGet(ms * MS);
+    }
+
+    @Test
+    void admiteLaRafagaYRechazaConLaEsperaExacta() {
+        LimitadorTasa limitador = limitador(10);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limitador.consumir("bus", 1));
+        }
+
+        assertEquals(100 * MS, limitador.consumir("bus", 1));
+        avanzar(40);
+        assertEquals(60 * MS, limitador.consumir("bus", 1));
+    }
+
+    @Test
+    void recargaUnTokenPorIntervalo() {
+        LimitadorTasa limitador = limitador(10);
+        for (int i = 0; i < 5; i++) {
+            limitador.consumir("bus", 1);
+        }
+
+        avanzar(100);
+        assertEquals(0, limitador.consumir("bus", 1));
+        assertEquals(100 * MS, limitador.consumir("bus", 1));
+
+        // Recarga completa: la ráfaga vuelve a estar disponible, sin superar la capacidad
+        avanzar(10_000);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limitador.consumir("bus", 1));
+        }
+        assertEquals(100 * MS, limitador.consumir("bus", 1));
+    }
+
+    @Test
+    void consumoDeVariosTokens() {
+        LimitadorTasa limitador = limitador(10);
+
+        assertEquals(0, limitador.consumir("bus", 3));
+        assertEquals(100 * MS, limitador.consumir("bus", 3));
+        assertEquals(0, limitador.consumir("bus", 2));
+        assertEquals(Long.MAX_VALUE, limitador.consumir("bus", 6));
+    }
+
+    @Test
+    void unConsumoRechazadoNoGastaTokens() {
+        LimitadorTasa limitador = limitador(10);
+        limitador.consumir("bus", 4);
+
+        assertEquals(200 * MS, limitador.consumir("bus", 3));
+        assertEquals(0, limitador.consumir("bus", 1));
+    }
+
+    @Test
+    void lasClavesNoCompartenCubeta() {
+        LimitadorTasa limitador = limitador(10);
+        limitador.consumir("a", 5);
+
+        assertEquals(0, limitador.consumir("b", 5));
+        assertEquals(100 * MS, limitador.consumir("a", 1));
+        assertEquals(2, limitador.cantidadClaves());
+    }
+
+    @Test
+    void conLaTablaLlenaLasClavesNuevasUsanElDesbordeSinReiniciarLasExistentes() {
+        LimitadorTasa limitador = limitador(1);
+        limitador.consumir("a", 5);
+
+        // "b" y "c" comparten la cubeta de desborde
+        assertEquals(0, limitador.consumir("b", 3));
+        assertEquals(100 * MS, limitador.consumir("c", 3));
+        assertEquals(2, limitador.cantidadDesbordados());
+        assertEquals(1, limitador.cantidadClaves());
+        // "a" conserva su cubeta vacía
+        assertEquals(100 * MS, limitador.consumir("a", 1));
+    }
+
+    @Test
+    void purgarSoloDescartaCubetasLlenas() {
+        LimitadorTasa limitador = limitador(10);
+        limitador.consumir("a", 1);
+        limitador.consumir("b", 5);
+
+        avanzar(100);
+        limitador.purgar();
+        assertEquals(1, limitador.cantidadClaves());
+
+        avanzar(400);
+        limitador.purgar();
+        assertEquals(0, limitador.cantidadClaves());
+    }
+
+    @Test
+    void conLaTablaLlenaPurgaComoMaximoUnaVezPorSegundo() {
+        LimitadorTasa limitador = limitador(1);
+        limitador.consumir("a", 1);
+        avanzar(100);
+
+        // La cubeta de "a" ya está llena, pero aún no pasó el intervalo de purga
+        limitador.consumir("b", 1);
+        assertEquals(1, limitador.cantidadDesbordados());
+
+        avanzar(1_000);
+        assertEquals(0, limitador.consumir("c", 5));
+        assertEquals(1, limitador.cantidadDesbordados());
+        assertEquals(1, limitador.cantidadClaves());
+    }
+
+    @Test
+    void rechazaParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new LimitadorTasa(0, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> new LimitadorTasa(5, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new LimitadorTasa(5, 10, 0));
+    }
+}
@@ -0,0 +1,114 @@
+package com.nettalco.backendappservicios.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RejillaGeograficaTest {
+
+    // Mismo valor que RejillaGeografica
+    private static final double METROS_POR_GRADO = 111_195.0;
+    private static final double CELDA_M = 250;
+
+    private final RejillaGeografica rejilla = new RejillaGeografica(CELDA_M);
+
+    private Set<Long> visitadas(double latitud, double longitud, double radioM) {
+        Set<Long> claves = new HashSet<>();
+        rejilla.recorrer(latitud, longitud, radioM, claves::add);
+        return claves;
+    }
+
+    private static Set<Integer> columnas(Set<Long> claves) {
+        Set<Integer> columnas = new HashSet<>();
+        claves.forEach(clave -> columnas.add((int) clave.longValue()));
+        return columnas;
+    }
+
+    private static Set<Integer> filas(Set<Long> claves) {
+        Set<Integer> filas = new HashSet<>();
+        claves.forEach(clave -> filas.add((int) (clave >> 32)));
+        return filas;
+    }
+
+    @Test
+    void recorrerCubreLaCeldaDeTodoPuntoDentroDelRadio() {
+        SplittableRandom azar = new SplittableRandom(3);
+        for (double latitud : new double[] {-12.0464, 0.001, 45.5, -60.2, 75.0}) {
+            for (int c = 0; c < 200; c++) {
+                double centroLatitud = latitud + azar.nextDouble(-0.01, 0.01);
+                double centroLongitud = -77.0428 + azar.nextDouble(-0.01, 0.01);
+                double radioM = azar.nextDouble(5, 3000);
+                Set<Long> claves = visitadas(centroLatitud, centroLongitud, radioM);
+
+                double gradosLatitud = radioM / METROS_POR_GRADO;
+                double gradosLongitud = gradosLatitud / Math.cos(Math.toRadians(centroLatitud));
+                for (int p = 0; p < 200; p++) {
+                    double puntoLatitud = centroLatitud + azar.nextDouble(-gradosLatitud, gradosLatitud);
+                    double puntoLongitud = centroLongitud + azar.nextDouble(-gradosLongitud, gradosLongitud);
+                    if (GeometriaRuta.distanciaMetros(centroLatitud, centroLongitud, puntoLatitud, puntoLongitud) > radioM) {
+                        continue;
+                    }
+                    assertTrue(claves.contains(rejilla.clave(puntoLatitud, puntoLongitud)),
+                        "Celda no visitada a " + puntoLatitud + ", " + puntoLongitud + " con radio " + radioM);
+                }
+            }
+        }
+    }
+
+    @Test
+    void unRadioQueCruzaElBordeVisitaLaCeldaVecina() {
+        double tamanoGrados = CELDA_M / METROS_POR_GRADO;
+        // 1 m al sur del borde entre las filas 9 y 10, al centro de una columna
+        double latitud = 10 * tamanoGrados - 1 / METROS_POR_GRADO;
+        double longitud = 20.5 * tamanoGrados;
+        double alNorte = latitud + 2 / METROS_POR_GRADO;
+
+        assertNotEquals(rejilla.clave(latitud, longitud), rejilla.clave(alNorte, longitud));
+        assertEquals(Set.of(rejilla.clave(latitud, longitud)), visitadas(latitud, longitud, 0.5));
+
+        Set<Long> claves = visitadas(latitud, longitud, 5);
+        assertEquals(2, claves.size());
+        assertTrue(claves.contains(rejilla.clave(latitud, longitud)));
+        assertTrue(claves.contains(rejilla.clave(alNorte, longitud)));
+    }
+
+    @Test
+    void laLongitudSeEnsanchaLejosDelEcuador() {
+        double radioM = 1000;
+        Set<Long> ecuador = visitadas(0.0001, 0.0001, radioM);
+        Set<Long> norte = visitadas(60.0001, 0.0001, radioM);
+
+        // Las filas no cambian; a 60° un grado de longitud mide la mitad, así que hacen falta el doble de columnas
+        assertEquals(filas(ecuador).size(), filas(norte).size());
+        assertTrue(columnas(norte).size() >= 2 * columnas(ecuador).size() - 2,
+            columnas(ecuador).size() + " columnas en el ecuador, " + columnas(norte).size() + " a 60°");
+
+        // 990 m al este a 60° son ~0.0178°, más de 7 celdas
+        double alEste = 0.0001 + 990 / (METROS_POR_GRADO * Math.cos(Math.toRadians(60.0001)));
+        assertTrue(norte.contains(rejilla.clave(60.0001, alEste)));
+    }
+
+    @Test
+    void puntosDeLaMismaCeldaCompartenClave() {
+        double tamanoGrados = CELDA_M / METROS_POR_GRADO;
+
+        assertEquals(rejilla.clave(0.1 * tamanoGrados, -3.1 * tamanoGrados),
+            rejilla.clave(0.9 * tamanoGrados, -3.9 * tamanoGrados));
+        // Las coordenadas negativas usan floor, no truncamiento hacia cero
+        assertNotEquals(rejilla.clave(0.1 * tamanoGrados, 0.1 * tamanoGrados),
+            rejilla.clave(-0.1 * tamanoGrados, 0.1 * tamanoGrados));
+    }
+
+    @Test
+    void rechazaUnTamanoDeCeldaNoPositivo() {
+        assertThrows(IllegalArgumentException.class, () -> new RejillaGeografica(0));
+        assertThrows(IllegalArgumentException.class, () -> new RejillaGeografica(-10));
+    }
+}
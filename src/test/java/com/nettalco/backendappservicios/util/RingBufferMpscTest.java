@@ -0,0 +1,133 @@
+package com.nettalco.backendappservicios.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferMpscTest {
+
+    @Test
+    void redondeaLaCapacidadAPotenciaDeDos() {
+        assertEquals(2, new RingBufferMpsc<Integer>(2).capacidad());
+        assertEquals(4, new RingBufferMpsc<Integer>(3).capacidad());
+        assertEquals(4, new RingBufferMpsc<Integer>(4).capacidad());
+        assertEquals(8, new RingBufferMpsc<Integer>(5).capacidad());
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferMpsc<Integer>(1));
+    }
+
+    @Test
+    void vacioNoEntregaElementos() {
+        RingBufferMpsc<Integer> buffer = new RingBufferMpsc<>(4);
+
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.drenar(10, e -> { throw new AssertionError("No debería entregar"); }));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void llenoRechazaHastaQueSeConsume() {
+        RingBufferMpsc<Integer> buffer = new RingBufferMpsc<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+    }
+
+    @Test
+    void conservaElOrdenAlDarLaVuelta() {
+        RingBufferMpsc<Integer> buffer = new RingBufferMpsc<>(4);
+        int siguienteEsperado = 0;
+        int siguiente = 0;
+        // Varias vueltas completas con el índice desfasado respecto del inicio del arreglo
+        for (int vuelta = 0; vuelta < 10; vuelta++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.offer(siguiente++));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(siguienteEsperado++, buffer.poll());
+            }
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void drenarRespetaElMaximo() {
+        RingBufferMpsc<Integer> buffer = new RingBufferMpsc<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> lote = new ArrayList<>();
+
+        assertEquals(3, buffer.drenar(3, lote::add));
+        assertEquals(List.of(0, 1, 2), lote);
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.drenar(10, lote::add));
+        assertEquals(List.of(0, 1, 2, 3, 4), lote);
+    }
+
+    @Test
+    void rechazaNull() {
+        assertThrows(NullPointerException.class, () -> new RingBufferMpsc<Integer>(4).offer(null));
+    }
+
+    @Test
+    void variosProductoresEntreganCadaElementoUnaVezYEnOrdenPorProductor() throws InterruptedException {
+        int productores = 4;
+        int porProductor = 5_000;
+        RingBufferMpsc<Long> buffer = new RingBufferMpsc<>(64);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+        for (int p = 0; p < productores; p++) {
+            long productor = p;
+            hilos.add(Thread.ofPlatform().start(() -> {
+                try {
+                    inicio.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < porProductor; i++) {
+                    while (!buffer.offer(productor << 32 | i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        inicio.countDown();
+        long[] siguientePorProductor = new long[productores];
+        int recibidos = 0;
+        while (recibidos < productores * porProductor) {
+            Long elemento = buffer.poll();
+            if (elemento == null) {
+                Thread.yield();
+                continue;
+            }
+            int productor = (int) (elemento >>> 32);
+            assertEquals(siguientePorProductor[productor]++, elemento & 0xFFFFFFFFL);
+            recibidos++;
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        assertNull(buffer.poll());
+        for (long siguiente : siguientePorProductor) {
+            assertEquals(porProductor, siguiente);
+        }
+    }
+}
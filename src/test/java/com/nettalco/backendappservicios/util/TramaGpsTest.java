@@ -0,0 +1,67 @@
+package com.nettalco.backendappservicios.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TramaGpsTest {
+
+    private static final String IMEI = "356938035643809";
+
+    private static ByteBuffer trama(int cantidad) {
+        byte[] imei = IMEI.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(TramaGps.TAMANO_CABECERA_BASE + imei.length
+            + cantidad * TramaGps.TAMANO_FIJACION);
+        buffer.putShort((short) TramaGps.MAGIA)
+            .put((byte) TramaGps.VERSION)
+            .put((byte) imei.length)
+            .put(imei)
+            .putShort((short) cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            buffer.putLong(1_700_000_000_000L + i * 5_000L)
+                .putInt(-120_464_000 + i)
+                .putInt(-770_428_000 - i)
+                .putShort((short) 4_550)
+                .putShort((short) TramaGps.SIN_DATO);
+        }
+        return buffer.flip();
+    }
+
+    @Test
+    void decodificaCabeceraYFijaciones() {
+        List<double[]> fijaciones = new ArrayList<>();
+        TramaGps.Cabecera cabecera = TramaGps.decodificar(trama(3), (fecha, lat, lng, velocidad, rumbo) -> {
+            fijaciones.add(new double[] { fecha, TramaGps.coordenada(lat), TramaGps.coordenada(lng), velocidad, rumbo });
+        });
+
+        assertEquals(IMEI, cabecera.imei());
+        assertEquals(3, cabecera.cantidad());
+        assertEquals(3, fijaciones.size());
+        assertEquals(1_700_000_010_000L, (long) fijaciones.get(2)[0]);
+        assertEquals(-12.0464, fijaciones.get(0)[1], 1e-9);
+        assertEquals(-77.0428, fijaciones.get(0)[2], 1e-9);
+        assertEquals(45.5, TramaGps.velocidadORumbo((int) fijaciones.get(0)[3]));
+        assertNull(TramaGps.velocidadORumbo((int) fijaciones.get(0)[4]));
+    }
+
+    @Test
+    void rechazaTramaTruncada() {
+        ByteBuffer truncada = trama(2);
+        truncada.limit(truncada.limit() - 1);
+        assertThrows(IllegalArgumentException.class, () -> TramaGps.decodificar(truncada, (f, la, lo, v, r) -> {}));
+    }
+
+    @Test
+    void rechazaIdentificadorInvalido() {
+        ByteBuffer invalida = trama(1);
+        invalida.put(0, (byte) 0);
+        assertThrows(IllegalArgumentException.class, () -> TramaGps.leerCabecera(invalida));
+    }
+}